@@ -2,34 +2,97 @@ package com.coalminesoftware.dbunit.android;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.database.DatabaseErrorHandler;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.RawRes;
 import android.test.InstrumentationTestCase;
 import android.test.IsolatedContext;
 import android.test.RenamingDelegatingContext;
 import android.test.mock.MockContentResolver;
 import android.test.mock.MockContext;
 
+import com.coalminesoftware.dbunit.android.assertion.DatabaseAssertion;
+import com.coalminesoftware.dbunit.android.database.AndroidSQLiteDatabaseConnection;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.database.DatabaseSnapshot;
+import com.coalminesoftware.dbunit.android.database.DatabaseTemplates;
+import com.coalminesoftware.dbunit.android.database.ModifiedTableTracker;
+import com.coalminesoftware.dbunit.android.database.RollbackTransaction;
+import com.coalminesoftware.dbunit.android.database.SQLiteConnectionDataSet;
+import com.coalminesoftware.dbunit.android.database.SQLiteSql;
+import com.coalminesoftware.dbunit.android.database.SchemaApplier;
+import com.coalminesoftware.dbunit.android.database.SchemaFingerprint;
+import com.coalminesoftware.dbunit.android.database.SchemaMetadataCache;
 import com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+import com.coalminesoftware.dbunit.android.performance.CountingResultSetTableFactory;
+import com.coalminesoftware.dbunit.android.performance.CountingStatementFactory;
+import com.coalminesoftware.dbunit.android.performance.MetricsOperationListener;
+import com.coalminesoftware.dbunit.android.performance.PerformanceBudget;
+import com.coalminesoftware.dbunit.android.performance.PerformanceReport;
+import com.coalminesoftware.dbunit.android.performance.QueryPlanProfiler;
+import com.coalminesoftware.dbunit.android.performance.TestMetrics;
+import com.coalminesoftware.dbunit.android.performance.TimedDatabaseOperation;
 
 import org.dbunit.DBTestCase;
 import org.dbunit.IDatabaseTester;
 import org.dbunit.IOperationListener;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.SortedDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.dataset.stream.StreamingDataSet;
 import org.dbunit.operation.DatabaseOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AndroidDbTestCase extends InstrumentationTestCase {
-	private static final String FILENAME_PREFIX = "dbunit_";
+    private static final Logger LOGGER = LoggerFactory.getLogger(AndroidDbTestCase.class);
+
+    /**
+     * Databases known to be populated with a test class's data set, keyed by path, kept so that
+     * isolation strategies other than {@link DatabaseIsolation#RESET} only need to populate a
+     * database once per class.
+     */
+    private static final Map<String, PopulatedDatabase> populatedDatabases = new HashMap<String, PopulatedDatabase>();
+
+    /**
+     * Test classes using {@link DatabaseIsolation#ROLLBACK} whose databases must instead be
+     * repopulated for every test, since changes to them can't be isolated in a transaction.
+     */
+    private static final Set<Class<?>> rollbackIncompatibleClasses = new HashSet<Class<?>>();
+
+    /** Test classes that have been warned that some of their queries can't be profiled. */
+    private static final Set<Class<?>> partiallyProfiledClasses = new HashSet<Class<?>>();
 
     private IsolatedContext databaseContext;
     private final DelegateDbTestCase dbTestCase = new DelegateDbTestCase();
     private String databaseName;
+    private String filenamePrefix;
     private IDatabaseConnection connection;
+    private RollbackTransaction rollbackTransaction;
+    private SQLiteDatabase inMemoryDatabase;
+    private TestMetrics metrics;
+    private QueryPlanProfiler queryPlanProfiler;
+    private final List<DatabaseSnapshot> snapshots = new ArrayList<DatabaseSnapshot>();
 
     /**
      * Creates a test case that will use the given filename for the test database.
@@ -50,9 +113,30 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
         return databaseName;
     }
 
+    /**
+     * @return The test database. When a native connection is enabled, this is the same database
+     * instance used by {@link #getConnection()}, so that changes made through it are visible to
+     * DBUnit's connection even before being committed.
+     */
     protected SQLiteDatabase getDatabase() {
+        if(isNativeConnectionInUse()) {
+            SQLiteDatabase database;
+            try {
+                database = ((AndroidSQLiteDatabaseConnection)getConnection()).getDatabase();
+            } catch(Exception e) {
+                throw new IllegalStateException("Unable to retrieve database connection.", e);
+            }
+
+            // Keep the shared instance open even if the caller closes the returned database.
+            database.acquireReference();
+            return database;
+        }
+
+        // The connection opened here is separate from the test's own.
+        releaseRollbackTransaction();
+
         String databasePath = getDatabaseContext().getDatabasePath(databaseName).getAbsolutePath();
-        return SQLiteDatabase.openDatabase(databasePath, null, 0);
+        return SQLiteDatabase.openDatabase(databasePath, getProfilingCursorFactory(null), 0);
     }
 
     /**
@@ -70,12 +154,187 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
      * {@link android.database.sqlite.SQLiteOpenHelper#onUpgrade(SQLiteDatabase, int, int)
      * implementation.
      * @param schemaCreationSql Comma-separated SQL commands to create tables, views, indexes, etc.
+     *
+     * @see #isDatabaseTemplateEnabled()
+     * @see SchemaApplier
      */
     protected void createDatabase(int schemaRevision, String schemaCreationSql) {
-        DatabaseUtils.createDbFromSqlStatements(getDatabaseContext(),
-                getDatabaseName(),
-                schemaRevision,
-                schemaCreationSql);
+        // An in-memory database can't be created by copying a template's file.
+        if(isDatabaseTemplateEnabled() && !isInMemoryDatabaseEnabled()) {
+            try {
+                DatabaseTemplates.createDatabase(getDatabaseContext(),
+                        getInstrumentation().getTargetContext().getCacheDir(),
+                        getDatabaseName(),
+                        schemaRevision,
+                        schemaCreationSql);
+            } catch(IOException e) {
+                throw new IllegalStateException("Unable to create database from template.", e);
+            }
+        } else {
+            // The schema is only recreated if it has changed. Otherwise, its rows are deleted.
+            SchemaApplier.apply(getDatabaseContext(),
+                    getDatabaseName(),
+                    schemaRevision,
+                    schemaCreationSql);
+        }
+    }
+
+    /**
+     * Creates the test database's schema as {@link #createDatabase(int, String)} does, from SQL in
+     * the raw resource with the given ID.
+     *
+     * @param resourceContext The context whose resources contain the SQL, such as
+     * {@link android.app.Instrumentation#getContext()} for a test APK's resources.
+     */
+    protected void createDatabaseFromRawResource(int schemaRevision, Context resourceContext,
+            @RawRes int schemaResourceId) {
+        try {
+            createDatabase(schemaRevision, SchemaApplier.readRawResource(resourceContext, schemaResourceId));
+        } catch(IOException e) {
+            throw new IllegalStateException("Unable to read schema resource.", e);
+        }
+    }
+
+    /**
+     * Creates the test database's schema as {@link #createDatabase(int, String)} does, from SQL in
+     * the asset with the given name.
+     *
+     * @param assetContext The context whose assets contain the SQL, such as
+     * {@link android.app.Instrumentation#getContext()} for a test APK's assets.
+     */
+    protected void createDatabaseFromAsset(int schemaRevision, Context assetContext, String schemaAssetName) {
+        try {
+            createDatabase(schemaRevision, SchemaApplier.readAsset(assetContext, schemaAssetName));
+        } catch(IOException e) {
+            throw new IllegalStateException("Unable to read schema asset " + schemaAssetName + ".", e);
+        }
+    }
+
+    /**
+     * Whether {@link #createDatabase(int, String)} should build the schema once into a template
+     * database and copy that template for each test, rather than executing the schema creation SQL
+     * for every test. Templates are kept in the target application's cache directory and keyed by
+     * the database name, schema revision and creation SQL, so a changed schema results in a new
+     * template, replacing the old one. Disabled by default.
+     *
+     * @see DatabaseTemplates
+     */
+    protected boolean isDatabaseTemplateEnabled() {
+        return false;
+    }
+
+    /**
+     * @return The strategy used to give each test a database populated with the data set. Returns
+     * {@link DatabaseIsolation#RESET} by default.
+     */
+    protected DatabaseIsolation getDatabaseIsolation() {
+        return DatabaseIsolation.RESET;
+    }
+
+    /**
+     * Whether the test's database connection should work directly with {@link SQLiteDatabase},
+     * through an {@link AndroidSQLiteNativeDatabaseTester}, instead of through the SQLite.JDBC
+     * driver. Disabled by default.
+     */
+    protected boolean isNativeConnectionEnabled() {
+        return false;
+    }
+
+    /**
+     * Whether SQLite.JDBC connections should reuse table metadata read by previous tests from the
+     * process-wide {@link SchemaMetadataCache}, which is keyed by a fingerprint of the schema and
+     * the connection's metadata configuration so that metadata is read anew whenever either
+     * changes. Disabled by default.
+     */
+    protected boolean isSchemaMetadataCacheEnabled() {
+        return false;
+    }
+
+    /**
+     * @return The number of threads on which {@link #assertDatabaseEquals(IDataSet)} compares
+     * tables, each reading through its own read-only connection. Defaults to 1. Only committed
+     * changes are seen by the other connections, so tables are compared on the test's own
+     * connection regardless when the database is in memory or the test runs in a rollback
+     * transaction.
+     *
+     * @see DatabaseAssertion#assertEquals(IDataSet, IDatabaseConnection, DatabaseAssertion.ConnectionFactory, int)
+     */
+    protected int getAssertionThreadCount() {
+        return 1;
+    }
+
+    /**
+     * Whether the test database should be kept in memory rather than written to storage, avoiding
+     * the cost of journaling and syncing writes. Disabled by default.
+     * <p>
+     * When enabled, a native connection is used regardless of {@link #isNativeConnectionEnabled()},
+     * as SQLite.JDBC has no way to reach the in-memory database. Opening the test database by name
+     * through {@link #getDatabaseContext()}, as a SQLiteOpenHelper does, provides the same
+     * in-memory database. Each test starts with a new database, so {@link #getDatabaseIsolation()}
+     * is ignored.
+     * <p>
+     * From API level 28, SQLiteOpenHelper opens its database by path rather than through its
+     * context, so it gets a database file instead of the in-memory database.
+     */
+    protected boolean isInMemoryDatabaseEnabled() {
+        return false;
+    }
+
+    private boolean isNativeConnectionInUse() {
+        return isNativeConnectionEnabled() || isInMemoryDatabaseEnabled();
+    }
+
+    private DatabaseIsolation getEffectiveDatabaseIsolation() {
+        if(isInMemoryDatabaseEnabled()) {
+            return DatabaseIsolation.RESET;
+        }
+
+        DatabaseIsolation isolation = getDatabaseIsolation();
+        if(isolation == DatabaseIsolation.ROLLBACK) {
+            synchronized(rollbackIncompatibleClasses) {
+                if(rollbackIncompatibleClasses.contains(getClass())) {
+                    return DatabaseIsolation.RESET;
+                }
+            }
+        }
+
+        return isolation;
+    }
+
+    /**
+     * Falls back to {@link DatabaseIsolation#RESET} for the rest of the test class's tests, as well
+     * as for the current test once it ends.
+     */
+    private void fallBackFromRollbackIsolation() {
+        synchronized(rollbackIncompatibleClasses) {
+            rollbackIncompatibleClasses.add(getClass());
+        }
+    }
+
+    /**
+     * Commits the test's rollback transaction, if any, before another connection to the test
+     * database is opened, so that the other connection can write to the database and see the
+     * test's changes rather than being locked out. The database is then repopulated for every
+     * test of the class.
+     */
+    private void releaseRollbackTransaction() {
+        if(rollbackTransaction == null) {
+            return;
+        }
+
+        LOGGER.warn("{} opened a connection to the test database other than its own, so {} isolation can't be used. The database will be repopulated for each of its class's tests.",
+                getName(), DatabaseIsolation.ROLLBACK);
+
+        try {
+            if(!rollbackTransaction.commit()) {
+                LOGGER.warn("The rollback transaction of {} could not be committed.", getName());
+            }
+        } catch(SQLException e) {
+            LOGGER.warn("Unable to commit the rollback transaction of " + getName() + ".", e);
+        }
+
+        rollbackTransaction = null;
+        fallBackFromRollbackIsolation();
     }
 
 	/**
@@ -86,24 +345,88 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
     }
 
 	/**
+     * @return The operation with which the database is populated with {@link #getDataSet()}.
+     * Defaults to {@link DatabaseOperation#CLEAN_INSERT}, as in DBTestCase.
+     *
      * @see DBTestCase#getSetUpOperation()
      */
     protected DatabaseOperation getSetUpOperation() throws Exception {
-        return dbTestCase.getSetUpOperation();
+        return DatabaseOperation.CLEAN_INSERT;
     }
 
 	/**
+     * @return The operation executed after each test. Defaults to {@link DatabaseOperation#NONE},
+     * as in DBTestCase.
+     *
      * @see DBTestCase#getTearDownOperation()
      */
     protected DatabaseOperation getTearDownOperation() throws Exception {
-        return dbTestCase.getTearDownOperation();
+        return DatabaseOperation.NONE;
     }
 
 	/**
      * @see DBTestCase#getOperationListener()
      */
     protected IOperationListener getOperationListener() {
-        return dbTestCase.getOperationListener();
+        return dbTestCase.callSuperGetOperationListener();
+    }
+
+    /**
+     * @return The file to which the time spent in each phase of the test, and counts of the rows
+     * and statements it processed, are appended as a line of JSON when the test finishes, or null
+     * if no report should be written. Defaults to null. Subclasses can return
+     * {@code PerformanceReport.getDefaultFile(getInstrumentation().getTargetContext())} to write a
+     * report for the run that CI can collect.
+     *
+     * @see PerformanceReport
+     */
+    protected File getPerformanceReportFile() {
+        return null;
+    }
+
+    /**
+     * @return Limits on the time the test spends in each phase and the work it does, exceeding any
+     * of which fails the test, or null if the test has no budget. Defaults to null. Times vary
+     * between devices, so time limits need generous headroom to keep the build from failing
+     * spuriously.
+     *
+     * @see PerformanceBudget
+     */
+    protected PerformanceBudget getPerformanceBudget() {
+        return null;
+    }
+
+    /**
+     * @return The number of rows above which a table that a query scans in full, rather than
+     * searching through an index, fails the test, or -1 if queries shouldn't be profiled. Defaults
+     * to -1.
+     * <p>
+     * When profiling, queries run through databases opened with {@link #getDatabaseContext()}'s
+     * openOrCreateDatabase(), or with {@link #getDatabase()}, are captured and their plans read
+     * with EXPLAIN QUERY PLAN, so that missing indexes can be caught against realistically sized
+     * fixtures. DBUnit's own queries aren't profiled. Neither are the queries of:
+     * <ul>
+     * <li>a SQLiteOpenHelper on API level 28 and above, which opens its database by path, unless
+     * it's given {@link #getProfilingCursorFactory(SQLiteDatabase.CursorFactory)}'s factory;</li>
+     * <li>the database {@link #getDatabase()} returns when a native connection is enabled, which is
+     * the connection's own;</li>
+     * <li>the in-memory database, which is opened before profiling begins.</li>
+     * </ul>
+     * A warning is logged when profiling is enabled along with a native connection or in-memory
+     * database.
+     *
+     * @see QueryPlanProfiler
+     */
+    protected int getFullTableScanRowThreshold() {
+        return -1;
+    }
+
+    /**
+     * @return The current test's metrics, or null if neither a performance report nor a budget is
+     * enabled.
+     */
+    protected TestMetrics getTestMetrics() {
+        return metrics;
     }
 
     /**
@@ -120,53 +443,495 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
      * @return A data set representing the database's state when called, built from the current
      * database connection and filtered of metadata tables used by SQLite and Android.
      *
-     * @param sorted Whether to return a {@link SortedDataSet}.
+     * @param sorted Whether to sort each table's rows as a {@link SortedDataSet} would.
+     * Otherwise, rows are ordered by their table's primary key.
      *
      * @see AndroidFilteredDataSet
+     * @see SQLiteConnectionDataSet
      */
     protected IDataSet createFilteredConnectionDataSet(boolean sorted) throws Exception {
-        IDataSet dataSet = new AndroidFilteredDataSet(getConnection().createDataSet());
+        // Tables are listed with one query and filtered before any metadata is read, and the
+        // remaining tables are only read, and sorted, when an assertion retrieves them.
+        return new SQLiteConnectionDataSet(getConnection(),
+                new ExcludeTableFilter(AndroidFilteredDataSet.EXCLUDED_TABLE_NAMES),
+                sorted);
+    }
+
+    /**
+     * Asserts that the database matches the given data set, as asserting that the data set equals
+     * {@link #createFilteredConnectionDataSet()} would, but without loading and sorting the
+     * database's tables in memory.
+     *
+     * @see DatabaseAssertion
+     */
+    protected void assertDatabaseEquals(IDataSet expectedDataSet) throws Exception {
+        IDatabaseConnection connection = getConnection();
+
+        int threadCount = isInMemoryDatabaseEnabled() || rollbackTransaction != null
+                ? 1
+                : getAssertionThreadCount();
 
-        return sorted ? new SortedDataSet(dataSet) : dataSet;
+        long startTime = System.nanoTime();
+        try {
+            DatabaseAssertion.assertEquals(expectedDataSet, connection, new DatabaseAssertion.ConnectionFactory() {
+                @Override
+                public IDatabaseConnection openConnection() throws Exception {
+                    return openAssertionConnection();
+                }
+            }, threadCount);
+        } finally {
+            addTime(TestMetrics.Phase.ASSERTION, startTime);
+        }
+    }
+
+    /** @return A new connection to the test database, configured as the test's own connection is. */
+    private IDatabaseConnection openAssertionConnection() throws Exception {
+        IDatabaseConnection connection = getDatabaseTester().getConnection();
+        dbTestCase.setUpDatabaseConfig(connection.getConfig());
+
+        if(metrics != null) {
+            metrics.increment(TestMetrics.Counter.CONNECTIONS_OPENED, 1);
+        }
+
+        return connection;
     }
 
     /**
-     * Replaces the database's existing data with the given data set.
+     * Replaces the database's existing data with the given data set, using the operation returned by
+     * {@link #getSetUpOperation()}. Return an {@link AndroidBulkLoadOperation} from it to load large
+     * data sets quickly.
      */
     protected void replaceDatabaseDataSet(IDataSet dataSet) throws Exception {
-        DatabaseOperation.CLEAN_INSERT.execute(getConnection(), dataSet);
+        getSetUpOperation().execute(getConnection(), dataSet);
+    }
+
+    /**
+     * Takes a snapshot of the rows of every table in the test database, which
+     * {@link #restore(DatabaseSnapshot)} can return the database to any number of times during the
+     * test, far more quickly than by replacing its data set. Snapshots are released when the test
+     * ends.
+     *
+     * @throws IllegalStateException If the test is running in a rollback transaction, as with
+     * {@link DatabaseIsolation#ROLLBACK}, since SQLite can't attach the snapshot's database within a
+     * transaction.
+     *
+     * @see DatabaseSnapshot
+     */
+    protected DatabaseSnapshot snapshot() throws Exception {
+        if(rollbackTransaction != null) {
+            throw new IllegalStateException("Snapshots can't be taken within the rollback transaction of "
+                    + DatabaseIsolation.ROLLBACK + " isolation.");
+        }
+
+        // A snapshot of an in-memory database is kept in memory too.
+        File file = isInMemoryDatabaseEnabled()
+                ? null
+                : getDatabaseContext().getDatabasePath(databaseName + "-snapshot-" + snapshots.size());
+
+        long startTime = System.nanoTime();
+        DatabaseSnapshot snapshot = DatabaseSnapshot.create(getConnection(), file);
+        addTime(TestMetrics.Phase.SNAPSHOT, startTime);
+        snapshots.add(snapshot);
+
+        if(metrics != null) {
+            metrics.increment(TestMetrics.Counter.SNAPSHOT_BYTES, snapshot.getSize());
+        }
+
+        LOGGER.debug("Took {} byte snapshot of database for {} in {} ms.",
+                snapshot.getSize(),
+                getName(),
+                TimeUnit.NANOSECONDS.toMillis(snapshot.getCreationNanos()));
+        return snapshot;
+    }
+
+    /**
+     * Returns the test database's rows to their state when the given snapshot was taken. The
+     * schema must not have changed since then.
+     */
+    protected void restore(DatabaseSnapshot snapshot) throws Exception {
+        if(!snapshots.contains(snapshot)) {
+            throw new IllegalArgumentException("The snapshot was not taken by this test, or has been released.");
+        }
+
+        long startTime = System.nanoTime();
+        snapshot.restore(getConnection());
+        addTime(TestMetrics.Phase.RESTORE, startTime);
+
+        LOGGER.debug("Restored snapshot of database for {} in {} ms.",
+                getName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     @Override
 	protected void setUp() throws Exception {
         super.setUp();
 
-        RenamingDelegatingContext targetContextWrapper = new RenamingDelegatingContext(
-        		new DirectoryPrefixingMockContext(), // The context that most methods are delegated to
-                getInstrumentation().getTargetContext(), // The context that file methods are delegated to
-                FILENAME_PREFIX);
+        if(getPerformanceReportFile() != null || getPerformanceBudget() != null) {
+            metrics = new TestMetrics();
+        }
+
+        // Files are namespaced by process and thread, so that concurrently running tests, such as
+        // those of other shards on the same device, don't share them.
+        TestFileNamespace.deleteStaleFiles(getInstrumentation().getTargetContext());
+        filenamePrefix = TestFileNamespace.getFilenamePrefix();
+
+        // Fixtures declared with @Prefetch, for this class and those after it, are prepared in the
+        // background while this test's database is created.
+        Prefetcher.prefetch(getInstrumentation(), getClass());
+
+        RenamingDelegatingContext targetContextWrapper;
+        if(isInMemoryDatabaseEnabled()) {
+            inMemoryDatabase = SQLiteDatabase.create(null);
+            targetContextWrapper = new InMemoryDatabaseContext();
+        } else {
+            targetContextWrapper = new DatabaseFilesContext();
+        }
 
         databaseContext = new IsolatedContext(new MockContentResolver(), targetContextWrapper);
 
+        DatabaseIsolation isolation = getEffectiveDatabaseIsolation();
+        String databasePath = databaseContext.getDatabasePath(databaseName).getAbsolutePath();
+
+        synchronized(populatedDatabases) {
+            PopulatedDatabase previousDatabase = populatedDatabases.get(databasePath);
+            if(!isPopulatedDatabaseReusable(previousDatabase, isolation)) {
+                populatedDatabases.remove(databasePath);
+
+                // The schema is otherwise left in place by SchemaApplier, so the previous class's
+                // tracking triggers would keep firing for this one.
+                if(previousDatabase != null && previousDatabase.isolation == DatabaseIsolation.MODIFIED_TABLES) {
+                    ModifiedTableTracker.uninstall(getConnection());
+                }
+
+                populateDatabase();
+
+                if(isolation != DatabaseIsolation.RESET) {
+                    PopulatedDatabase populatedDatabase = createPopulatedDatabase(isolation);
+                    if(populatedDatabase != null) {
+                        populatedDatabases.put(databasePath, populatedDatabase);
+                    }
+                }
+            }
+        }
+
+        if(isolation == DatabaseIsolation.ROLLBACK) {
+            rollbackTransaction = RollbackTransaction.begin(getConnection(), new File(databasePath));
+
+            if(rollbackTransaction == null) {
+                LOGGER.warn("Changes to the database of {} by other connections can't be detected in WAL mode, so {} isolation can't be used. The database will be repopulated for each of its tests.",
+                        getClass().getName(), DatabaseIsolation.ROLLBACK);
+                fallBackFromRollbackIsolation();
+            }
+        }
+
+        // Profiling begins once the database is set up, so that only the test's own queries are
+        // profiled.
+        if(getFullTableScanRowThreshold() >= 0) {
+            queryPlanProfiler = new QueryPlanProfiler(getFullTableScanRowThreshold());
+            warnIfPartiallyProfiled();
+        }
+    }
+
+    private void populateDatabase() throws Exception {
+        long startTime = System.nanoTime();
         onCreateDatabase(databaseContext);
+        addTime(TestMetrics.Phase.CREATE_DATABASE, startTime);
+        LOGGER.debug("Created database for {} in {} ms.",
+                getName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
 
         dbTestCase.setUp();
     }
 
+    /** @return The populated database's description, or null if it can't be reused. */
+    private PopulatedDatabase createPopulatedDatabase(DatabaseIsolation isolation) throws Exception {
+        if(isolation == DatabaseIsolation.MODIFIED_TABLES) {
+            IDataSet setUpDataSet = dbTestCase.getSetUpDataSet();
+            if(setUpDataSet instanceof StreamingDataSet) {
+                // Tables can't be restored from a data set that has already been consumed.
+                LOGGER.warn("The database for {} will be recreated for every test, since it was populated from a streaming data set.",
+                        getClass().getName());
+                return null;
+            }
+
+            IDatabaseConnection connection = getConnection();
+            ModifiedTableTracker.install(connection);
+
+            return new PopulatedDatabase(getClass(), isolation, setUpDataSet,
+                    SchemaFingerprint.of(connection));
+        }
+
+        return new PopulatedDatabase(getClass(), isolation, null, null);
+    }
+
+    /**
+     * @return Whether the given database, populated for a previous test, can be used by this test.
+     * For {@link DatabaseIsolation#MODIFIED_TABLES}, the tables modified by previous tests are
+     * restored in the process.
+     */
+    private boolean isPopulatedDatabaseReusable(PopulatedDatabase populatedDatabase,
+            DatabaseIsolation isolation) throws Exception {
+        if(isolation == DatabaseIsolation.RESET
+                || populatedDatabase == null
+                || populatedDatabase.testClass != getClass()
+                || populatedDatabase.isolation != isolation) {
+            return false;
+        }
+
+        return isolation != DatabaseIsolation.MODIFIED_TABLES || restoreModifiedTables(populatedDatabase);
+    }
+
+    /**
+     * Restores the tables modified since the database was populated, using the data set it was
+     * populated with. Tables modified but not included in the data set are emptied.
+     *
+     * @return Whether the tables could be restored. False if the schema has changed.
+     */
+    private boolean restoreModifiedTables(PopulatedDatabase populatedDatabase) throws Exception {
+        IDatabaseConnection connection = getConnection();
+
+        long startTime = System.nanoTime();
+        try {
+            return restoreModifiedTables(connection, populatedDatabase);
+        } finally {
+            addTime(TestMetrics.Phase.SET_UP_OPERATION, startTime);
+        }
+    }
+
+    private boolean restoreModifiedTables(IDatabaseConnection connection, PopulatedDatabase populatedDatabase)
+            throws Exception {
+        if(!populatedDatabase.schemaFingerprint.equals(SchemaFingerprint.of(connection))) {
+            return false;
+        }
+
+        String[] modifiedTableNames = ModifiedTableTracker.getModifiedTableNames(connection);
+        if(modifiedTableNames.length == 0) {
+            return true;
+        }
+
+        Set<String> unrestoredTableNames = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        Collections.addAll(unrestoredTableNames, modifiedTableNames);
+
+        // Restore tables in the order they appear in the data set, to respect their dependencies.
+        List<String> restoredTableNames = new ArrayList<String>();
+        for(String tableName : populatedDatabase.dataSet.getTableNames()) {
+            if(unrestoredTableNames.remove(tableName)) {
+                restoredTableNames.add(tableName);
+            }
+        }
+
+        List<String> statements = new ArrayList<String>();
+        for(String tableName : unrestoredTableNames) {
+            statements.add("DELETE FROM " + SQLiteSql.quoteIdentifier(tableName));
+        }
+
+        // Reset AUTOINCREMENT sequences, as recreating the tables would.
+        long sequenceTableCount = DatabaseConnectionUtils.queryForLong(connection,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_sequence'");
+        if(sequenceTableCount > 0) {
+            for(String tableName : modifiedTableNames) {
+                statements.add("DELETE FROM sqlite_sequence WHERE name = '" + tableName.replace("'", "''") + "'");
+            }
+        }
+
+        DatabaseConnectionUtils.execute(connection, statements.toArray(new String[statements.size()]));
+        new AndroidBulkLoadOperation().execute(connection, new FilteredDataSet(
+                restoredTableNames.toArray(new String[restoredTableNames.size()]),
+                populatedDatabase.dataSet));
+        ModifiedTableTracker.clear(connection);
+
+        LOGGER.debug("Restored {} modified table(s) for {}.", modifiedTableNames.length, getName());
+        return true;
+    }
+
     @Override
 	protected void tearDown() throws Exception {
-        dbTestCase.tearDown();
+        TestMetrics finishedMetrics = metrics;
+        try {
+            if(getEffectiveDatabaseIsolation() == DatabaseIsolation.RESET) {
+                dbTestCase.tearDown();
+            } else {
+                tearDownPopulatedDatabase();
+            }
+        } finally {
+            releaseSnapshots();
+
+            if(connection != null) {
+                connection.close();
+                connection = null;
+            }
+
+            if(inMemoryDatabase != null) {
+                inMemoryDatabase.close();
+                inMemoryDatabase = null;
+            }
+
+            if(metrics != null && getPerformanceReportFile() != null) {
+                writePerformanceReport();
+            }
+            metrics = null;
+
+            queryPlanProfiler = null;
+        }
+
         super.tearDown();
+
+        if(finishedMetrics != null) {
+            assertWithinPerformanceBudget(finishedMetrics);
+        }
+    }
+
+    private void assertWithinPerformanceBudget(TestMetrics testMetrics) {
+        PerformanceBudget budget = getPerformanceBudget();
+        if(budget == null) {
+            return;
+        }
+
+        List<String> violations = budget.getViolations(testMetrics);
+        if(!violations.isEmpty()) {
+            StringBuilder message = new StringBuilder(getName()).append(" exceeded its performance budget:");
+            for(String violation : violations) {
+                message.append("\n").append(violation);
+            }
+
+            fail(message.toString());
+        }
+    }
+
+    private void releaseSnapshots() {
+        for(DatabaseSnapshot snapshot : snapshots) {
+            try {
+                snapshot.release(connection);
+            } catch(SQLException e) {
+                LOGGER.warn("Unable to detach database snapshot.", e);
+            }
+        }
+
+        snapshots.clear();
+    }
+
+    private void tearDownPopulatedDatabase() throws Exception {
+        boolean reusable = true;
+
+        if(rollbackTransaction != null) {
+            reusable = rollbackTransaction.rollback();
+            rollbackTransaction = null;
+
+            if(!reusable) {
+                LOGGER.info("{} changed the database outside of its rollback transaction. The database will be reset before the next test.",
+                        getName());
+            }
+        }
+
+        // Teardown operations are free to change the database, so it must then be repopulated.
+        if(getTearDownOperation() != DatabaseOperation.NONE) {
+            dbTestCase.tearDown();
+            reusable = false;
+        }
+
+        if(!reusable) {
+            synchronized(populatedDatabases) {
+                populatedDatabases.remove(getDatabaseContext().getDatabasePath(databaseName).getAbsolutePath());
+            }
+        }
     }
 
     public IDatabaseConnection getConnection() throws Exception {
         if(connection == null) {
+            long startTime = System.nanoTime();
             connection = dbTestCase.callGetConnection();
+            addTime(TestMetrics.Phase.CONNECT, startTime);
+
+            if(metrics != null) {
+                metrics.increment(TestMetrics.Counter.CONNECTIONS_OPENED, 1);
+            }
         }
 
         return connection;
     }
 
+    @Override
+    protected void runTest() throws Throwable {
+        long startTime = System.nanoTime();
+        try {
+            super.runTest();
+        } finally {
+            addTime(TestMetrics.Phase.TEST, startTime);
+        }
+
+        if(queryPlanProfiler != null) {
+            assertNoFullTableScans();
+        }
+    }
+
+    private void assertNoFullTableScans() {
+        List<QueryPlanProfiler.FullTableScan> fullTableScans = queryPlanProfiler.getFullTableScans();
+        if(metrics != null) {
+            metrics.increment(TestMetrics.Counter.FULL_TABLE_SCANS, fullTableScans.size());
+        }
+
+        if(!fullTableScans.isEmpty()) {
+            StringBuilder message = new StringBuilder()
+                    .append(fullTableScans.size())
+                    .append(" query plan(s) scan tables of more than ")
+                    .append(getFullTableScanRowThreshold())
+                    .append(" rows:");
+            for(QueryPlanProfiler.FullTableScan fullTableScan : fullTableScans) {
+                message.append("\n").append(fullTableScan);
+            }
+
+            fail(message.toString());
+        }
+    }
+
+    private void warnIfPartiallyProfiled() {
+        if(!isNativeConnectionInUse()) {
+            return;
+        }
+
+        synchronized(partiallyProfiledClasses) {
+            if(!partiallyProfiledClasses.add(getClass())) {
+                return;
+            }
+        }
+
+        if(isInMemoryDatabaseEnabled()) {
+            LOGGER.warn("Queries through the in-memory database of {} can't be profiled, so full table scans won't be found.",
+                    getClass().getName());
+        } else {
+            LOGGER.warn("Queries through the database getDatabase() returns for {} share the native connection, so they won't be profiled.",
+                    getClass().getName());
+        }
+    }
+
+    /**
+     * @return A cursor factory that profiles queries before creating cursors with the given factory,
+     * or the given factory itself when queries aren't being profiled. Code under test that opens
+     * the test database by path, such as a SQLiteOpenHelper on API level 28 and above, can be given
+     * this factory so that its queries are profiled. Only valid once the test has been set up.
+     *
+     * @see #getFullTableScanRowThreshold()
+     */
+    protected SQLiteDatabase.CursorFactory getProfilingCursorFactory(SQLiteDatabase.CursorFactory cursorFactory) {
+        return queryPlanProfiler == null ? cursorFactory : queryPlanProfiler.createCursorFactory(cursorFactory);
+    }
+
+    /** Adds the time elapsed since the given start time to a phase of the test's metrics, if any. */
+    private void addTime(TestMetrics.Phase phase, long startTime) {
+        if(metrics != null) {
+            metrics.addTime(phase, System.nanoTime() - startTime);
+        }
+    }
+
+    private void writePerformanceReport() {
+        File reportFile = getPerformanceReportFile();
+        try {
+            PerformanceReport.append(reportFile, getClass().getName() + "#" + getName(), metrics);
+        } catch(IOException e) {
+            LOGGER.warn("Unable to write performance report " + reportFile + ".", e);
+        }
+    }
+
     /**
      * @return The {@link IsolatedContext} created during initialization for use when interacting
      * with the database.
@@ -183,21 +948,57 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
     private class DelegateDbTestCase extends DBTestCase {
         @Override
         protected IDatabaseTester newDatabaseTester() throws Exception {
-            return new AndroidSQLiteDatabaseTester(getDatabaseContext(), getDatabaseName());
+            if(inMemoryDatabase != null) {
+                return new AndroidSQLiteNativeDatabaseTester(inMemoryDatabase);
+            }
+
+            return isNativeConnectionEnabled()
+                    ? new AndroidSQLiteNativeDatabaseTester(getDatabaseContext(), getDatabaseName())
+                    : new AndroidSQLiteDatabaseTester(getDatabaseContext(), getDatabaseName(),
+                            isSchemaMetadataCacheEnabled());
         }
 
+        private IDataSet setUpDataSet;
+
         @Override
         protected IDataSet getDataSet() throws Exception {
-            return AndroidDbTestCase.this.getDataSet();
+            long startTime = System.nanoTime();
+            setUpDataSet = AndroidDbTestCase.this.getDataSet();
+            addTime(TestMetrics.Phase.LOAD_DATA_SET, startTime);
+
+            return setUpDataSet;
+        }
+
+        /** @return The data set most recently provided to DBUnit, such as during setup. */
+        public IDataSet getSetUpDataSet() {
+            return setUpDataSet;
         }
 
         @Override
         public void setUpDatabaseConfig(DatabaseConfig config) {
             // SQLite.JDBC only accepts fetch size 1.  See http://dbunit.sourceforge.net/properties.html
+            // The property is ignored by native connections, which read through Cursors.
             config.setProperty("http://www.dbunit.org/properties/fetchSize", 1);
 
-            super.setUpDatabaseConfig(config);
+            if(metrics != null) {
+                // Connections are configured each time they're retrieved, so factories that are
+                // already counting for this test aren't wrapped again.
+                IStatementFactory statementFactory = (IStatementFactory)config.getProperty(
+                        DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+                if(!(statementFactory instanceof CountingStatementFactory)) {
+                    config.setProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY,
+                            new CountingStatementFactory(statementFactory, metrics));
+                }
+
+                IResultSetTableFactory tableFactory = (IResultSetTableFactory)config.getProperty(
+                        DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+                if(!(tableFactory instanceof CountingResultSetTableFactory)) {
+                    config.setProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY,
+                            new CountingResultSetTableFactory(tableFactory, metrics));
+                }
+            }
 
+            super.setUpDatabaseConfig(config);
         }
 
         @Override
@@ -205,14 +1006,22 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
             return super.getDatabaseTester();
         }
 
+        // The operations and listener are taken from the enclosing class, so that subclasses
+        // overriding them there, like those using AndroidBulkLoadOperation, take effect.
         @Override
         public DatabaseOperation getSetUpOperation() throws Exception {
-            return super.getSetUpOperation();
+            return timed(AndroidDbTestCase.this.getSetUpOperation(), TestMetrics.Phase.SET_UP_OPERATION);
         }
 
         @Override
         public DatabaseOperation getTearDownOperation() throws Exception {
-            return super.getTearDownOperation();
+            return timed(AndroidDbTestCase.this.getTearDownOperation(), TestMetrics.Phase.TEAR_DOWN_OPERATION);
+        }
+
+        private DatabaseOperation timed(DatabaseOperation operation, TestMetrics.Phase phase) {
+            return metrics == null || operation == DatabaseOperation.NONE
+                    ? operation
+                    : new TimedDatabaseOperation(operation, metrics, phase);
         }
 
         @Override
@@ -227,6 +1036,12 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
 
         @Override
         public IOperationListener getOperationListener() {
+            IOperationListener listener = AndroidDbTestCase.this.getOperationListener();
+            return metrics == null ? listener : new MetricsOperationListener(listener, metrics);
+        }
+
+        /** Gives the enclosing class DBTestCase's default listener, for it to return by default. */
+        public IOperationListener callSuperGetOperationListener() {
             return super.getOperationListener();
         }
 
@@ -238,6 +1053,80 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
         }
     }
 
+    /** A database populated with a test class's data set, for use by subsequent tests. */
+    private static class PopulatedDatabase {
+        private final Class<?> testClass;
+        private final DatabaseIsolation isolation;
+        private final IDataSet dataSet;
+        private final String schemaFingerprint;
+
+        private PopulatedDatabase(Class<?> testClass, DatabaseIsolation isolation, IDataSet dataSet,
+                String schemaFingerprint) {
+            this.testClass = testClass;
+            this.isolation = isolation;
+            this.dataSet = dataSet;
+            this.schemaFingerprint = schemaFingerprint;
+        }
+    }
+
+    /**
+     * Context whose files are those of the target context, prefixed to keep them apart from the
+     * application's own, and whose databases profile their queries when
+     * {@link #getFullTableScanRowThreshold()} enables it.
+     */
+    private class DatabaseFilesContext extends RenamingDelegatingContext {
+        private DatabaseFilesContext() {
+            super(new DirectoryPrefixingMockContext(), // The context that most methods are delegated to
+                    getInstrumentation().getTargetContext(), // The context that file methods are delegated to
+                    filenamePrefix);
+        }
+
+        @Override
+        public SQLiteDatabase openOrCreateDatabase(String name, int mode, SQLiteDatabase.CursorFactory factory) {
+            onOpenDatabase(name);
+            return super.openOrCreateDatabase(name, mode, getProfilingCursorFactory(factory));
+        }
+
+        @Override
+        public SQLiteDatabase openOrCreateDatabase(String name, int mode, SQLiteDatabase.CursorFactory factory,
+                DatabaseErrorHandler errorHandler) {
+            onOpenDatabase(name);
+            return super.openOrCreateDatabase(name, mode, getProfilingCursorFactory(factory), errorHandler);
+        }
+
+        private void onOpenDatabase(String name) {
+            // Code under test opening the test database, as a SQLiteOpenHelper would, gets a
+            // connection of its own.
+            if(databaseName.equals(name)) {
+                releaseRollbackTransaction();
+            }
+        }
+    }
+
+    /**
+     * Context that provides the in-memory test database whenever a database with the test
+     * database's name is opened, as is done by SQLiteOpenHelper and
+     * {@link DatabaseUtils#createDbFromSqlStatements(Context, String, int, String)}.
+     */
+    private class InMemoryDatabaseContext extends DatabaseFilesContext {
+        @Override
+        public SQLiteDatabase openOrCreateDatabase(String name, int mode, SQLiteDatabase.CursorFactory factory) {
+            return openOrCreateDatabase(name, mode, factory, null);
+        }
+
+        @Override
+        public SQLiteDatabase openOrCreateDatabase(String name, int mode, SQLiteDatabase.CursorFactory factory,
+                DatabaseErrorHandler errorHandler) {
+            if(!databaseName.equals(name)) {
+                return super.openOrCreateDatabase(name, mode, factory, errorHandler);
+            }
+
+            // The caller will close the database when done, which releases this reference.
+            inMemoryDatabase.acquireReference();
+            return inMemoryDatabase;
+        }
+    }
+
     // TODO Verify whether this is necessary since it's being provided to a RenamingDelegatingContext.
     private class DirectoryPrefixingMockContext extends MockContext {
 		@Override
@@ -248,7 +1137,7 @@ public abstract class AndroidDbTestCase extends InstrumentationTestCase {
         @Override
         public File getDir(String name, int mode) {
             // Name the directory differently than the one created through the regular Context
-            return getInstrumentation().getTargetContext().getDir(FILENAME_PREFIX + name, mode);
+            return getInstrumentation().getTargetContext().getDir(filenamePrefix + name, mode);
         }
 
         @Override
@@ -2,7 +2,13 @@ package com.coalminesoftware.dbunit.android;
 
 import android.content.Context;
 
+import com.coalminesoftware.dbunit.android.database.MetadataCachingDatabaseConnection;
+import com.coalminesoftware.dbunit.android.database.SchemaMetadataCache;
+
 import org.dbunit.JdbcDatabaseTester;
+import org.dbunit.database.IDatabaseConnection;
+
+import java.sql.DriverManager;
 
 import SQLite.JDBCDriver;
 
@@ -10,8 +16,43 @@ public class AndroidSQLiteDatabaseTester extends JdbcDatabaseTester {
 	private static final String CONNECTION_URL_SCHEMA = "jdbc:sqlite:%s";
 	public static final String JDBC_DRIVER_CLASS_NAME = JDBCDriver.class.getName();
 
+	private final String connectionUrl;
+	private final boolean metadataCacheEnabled;
+
 	public AndroidSQLiteDatabaseTester(Context context, String databaseName) throws Exception {
-		super(JDBC_DRIVER_CLASS_NAME, buildConnectionUrl(context, databaseName), null, null);
+		this(context, databaseName, false);
+	}
+
+	/**
+	 * @param metadataCacheEnabled Whether connections should reuse table metadata from the
+	 * process-wide {@link SchemaMetadataCache}, rather than reading it anew through JDBC.
+	 */
+	public AndroidSQLiteDatabaseTester(Context context, String databaseName, boolean metadataCacheEnabled) throws Exception {
+		this(buildConnectionUrl(context, databaseName), metadataCacheEnabled);
+	}
+
+	private AndroidSQLiteDatabaseTester(String connectionUrl, boolean metadataCacheEnabled) throws Exception {
+		super(JDBC_DRIVER_CLASS_NAME, connectionUrl, null, null);
+
+		this.connectionUrl = connectionUrl;
+		this.metadataCacheEnabled = metadataCacheEnabled;
+	}
+
+	/**
+	 * @return A new connection, which reuses cached metadata if enabled. The cache is provided by
+	 * the connection's class, rather than through its {@link org.dbunit.database.DatabaseConfig},
+	 * since DBUnit reads metadata through {@link IDatabaseConnection#createDataSet()}, which no
+	 * configuration property replaces.
+	 */
+	@Override
+	public IDatabaseConnection getConnection() throws Exception {
+		if(!metadataCacheEnabled) {
+			return super.getConnection();
+		}
+
+		// Load the driver, as JdbcDatabaseTester does, so that it registers with DriverManager.
+		Class.forName(JDBC_DRIVER_CLASS_NAME);
+		return new MetadataCachingDatabaseConnection(DriverManager.getConnection(connectionUrl), getSchema());
 	}
 
 	private static String buildConnectionUrl(Context context, String databaseName) {
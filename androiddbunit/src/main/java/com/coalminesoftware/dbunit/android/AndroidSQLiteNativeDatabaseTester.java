@@ -0,0 +1,47 @@
+package com.coalminesoftware.dbunit.android;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.database.AndroidSQLiteDatabaseConnection;
+
+import org.dbunit.AbstractDatabaseTester;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * Database tester that connects directly to SQLite through {@link SQLiteDatabase} rather than
+ * through the SQLite.JDBC driver used by {@link AndroidSQLiteDatabaseTester}.
+ *
+ * @see AndroidSQLiteDatabaseConnection
+ */
+public class AndroidSQLiteNativeDatabaseTester extends AbstractDatabaseTester {
+	private final String databasePath;
+	private final SQLiteDatabase database;
+
+	/** Creates a tester that opens the named database for each connection. */
+	public AndroidSQLiteNativeDatabaseTester(Context context, String databaseName) {
+		databasePath = context.getDatabasePath(databaseName).getAbsolutePath();
+		database = null;
+	}
+
+	/**
+	 * Creates a tester whose connections all share the given database, such as an in-memory
+	 * database. Closing a connection releases its reference to the database, without closing the
+	 * database outright.
+	 */
+	public AndroidSQLiteNativeDatabaseTester(SQLiteDatabase database) {
+		databasePath = null;
+		this.database = database;
+	}
+
+	@Override
+	public IDatabaseConnection getConnection() throws Exception {
+		if(database != null) {
+			database.acquireReference();
+			return new AndroidSQLiteDatabaseConnection(database);
+		}
+
+		return new AndroidSQLiteDatabaseConnection(
+				SQLiteDatabase.openDatabase(databasePath, null, SQLiteDatabase.OPEN_READWRITE));
+	}
+}
@@ -0,0 +1,51 @@
+package com.coalminesoftware.dbunit.android;
+
+/**
+ * Strategies {@link AndroidDbTestCase} can use to give each test method a database in the state
+ * defined by {@link AndroidDbTestCase#getDataSet()}.
+ *
+ * @see AndroidDbTestCase#getDatabaseIsolation()
+ */
+public enum DatabaseIsolation {
+    /**
+     * Recreate the database and execute the setup operation before every test. This is the most
+     * robust strategy, and the slowest.
+     */
+    RESET,
+
+    /**
+     * Create and populate the database before the first test of each test class, then run each test
+     * within a transaction on the test's connection that is rolled back afterward. Changes made
+     * through {@link AndroidDbTestCase#getConnection()} (or, when using a native connection,
+     * {@link AndroidDbTestCase#getDatabase()}) are undone, as is any schema change.
+     * <p>
+     * The code under test must share the test's connection: any access to the test database from
+     * another connection cancels this mode for the rest of the class. Once the transaction has
+     * written to the database, it keeps other connections from writing, and they don't see the
+     * test's changes. So when a test opens another connection to the test database through
+     * {@link AndroidDbTestCase#getDatabaseContext()}, as a SQLiteOpenHelper does, or through
+     * {@link AndroidDbTestCase#getDatabase()} without a native connection, the transaction is
+     * committed, and the class's tests fall back to {@link #RESET}. SQLiteOpenHelper on API 28 and
+     * later opens databases without going through the context, so its connections aren't
+     * detected.
+     * <p>
+     * If a test ends the transaction itself, or another connection commits changes, the database is
+     * reset before the next test. In WAL mode, commits by other connections can only be detected
+     * through PRAGMA data_version, which SQLite on older devices lacks, so there, too, tests fall
+     * back to {@link #RESET}.
+     */
+    ROLLBACK,
+
+    /**
+     * Create and populate the database before the first test of each test class, and track which
+     * tables each test inserts into, updates or deletes from, using triggers. Before each subsequent
+     * test, only the modified tables are restored from the data set, which is kept in memory for
+     * the purpose. Tables modified but not included in the data set are emptied.
+     * <p>
+     * Changes are tracked regardless of the connection they're made through. If the schema changes,
+     * the database is recreated. The tracking table, dbunit_modified_tables, is excluded by
+     * {@link com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet}. It and the
+     * triggers are dropped before the database is next populated, such as for another test class.
+     */
+    MODIFIED_TABLES
+}
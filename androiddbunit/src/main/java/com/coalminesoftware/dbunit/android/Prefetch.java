@@ -0,0 +1,49 @@
+package com.coalminesoftware.dbunit.android;
+
+import android.support.annotation.RawRes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the fixtures an {@link AndroidDbTestCase} subclass needs, so that the {@link Prefetcher}
+ * can prepare them in the background: data sets are parsed into the
+ * {@link com.coalminesoftware.dbunit.android.dataset.AndroidDataSetCache} and the template database
+ * for the schema is built. Resources are those of the instrumentation's own package.
+ * <p>
+ * Prefetching only pays off if the test then retrieves the same fixtures, by way of
+ * {@link com.coalminesoftware.dbunit.android.dataset.AndroidDataSetCache} and
+ * {@link AndroidDbTestCase#createDatabaseFromRawResource(int, android.content.Context, int)} with
+ * templates enabled.
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Prefetch {
+    /** Raw resource IDs of flat XML data sets. */
+    @RawRes int[] flatXmlDataSets() default {};
+
+    /** Raw resource IDs of XML data sets. */
+    @RawRes int[] xmlDataSets() default {};
+
+    /** Raw resource ID of the SQL that creates the test database's schema, or 0 if there is none. */
+    @RawRes int schema() default 0;
+
+    /** The revision of the schema, as passed to createDatabaseFromRawResource(). */
+    int schemaRevision() default 1;
+
+    /**
+     * The name of the test database the schema is for, as passed to the test case's constructor.
+     * Required for the schema's template to be prefetched, since templates are kept per database.
+     */
+    String databaseName() default "";
+
+    /**
+     * Test classes that run after this one, whose fixtures are prefetched while this class's tests
+     * run.
+     */
+    Class<? extends AndroidDbTestCase>[] next() default {};
+}
@@ -0,0 +1,185 @@
+package com.coalminesoftware.dbunit.android;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.test.RenamingDelegatingContext;
+
+import com.coalminesoftware.dbunit.android.database.DatabaseTemplates;
+import com.coalminesoftware.dbunit.android.database.SchemaApplier;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares the fixtures declared by test classes' {@link Prefetch} annotations on a background
+ * thread, so that a test's setup can take them over rather than waiting on them. A data set being
+ * parsed when the test asks for it is handed over once parsed, and a template database being built
+ * is likewise waited for rather than built again.
+ * <p>
+ * {@link AndroidDbTestCase} prefetches the fixtures of its own class and the classes it names as
+ * next when its first test is set up. Test suites that know their classes up front can call
+ * {@link #prefetch(Instrumentation, Class[])} for them all.
+ * <p>
+ * Prefetching is best effort. Only a few fixtures are queued at a time and the rest are dropped,
+ * and data sets are only prefetched while the cache is less than half full, and only kept if the
+ * cache is still at most half full once they're loaded and measured, so that they can't evict the
+ * data sets of running tests. Fixtures that couldn't be prefetched are loaded by the test
+ * as usual. Data sets are cached as they would be otherwise, and templates hold only the schema,
+ * so tests are isolated from one another as before.
+ */
+public class Prefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Prefetcher.class);
+
+    private static final int MAX_QUEUED_FIXTURES = 8;
+
+    private static final Set<Class<?>> prefetchedClasses = new HashSet<Class<?>>();
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    private Prefetcher() { }
+
+    /**
+     * Starts preparing the fixtures declared by the given classes' {@link Prefetch} annotations, and
+     * by those of the classes they name as next. Each class's fixtures are only prefetched once.
+     */
+    public static void prefetch(Instrumentation instrumentation, Class<?>... testClasses) {
+        for(Class<?> testClass : testClasses) {
+            prefetchClass(instrumentation, testClass);
+
+            Prefetch prefetch = testClass.getAnnotation(Prefetch.class);
+            if(prefetch != null) {
+                for(Class<?> nextClass : prefetch.next()) {
+                    prefetchClass(instrumentation, nextClass);
+                }
+            }
+        }
+    }
+
+    private static void prefetchClass(Instrumentation instrumentation, Class<?> testClass) {
+        Prefetch prefetch = testClass.getAnnotation(Prefetch.class);
+        if(prefetch == null) {
+            return;
+        }
+
+        synchronized(prefetchedClasses) {
+            if(!prefetchedClasses.add(testClass)) {
+                return;
+            }
+        }
+
+        final Context context = instrumentation.getContext();
+
+        // The template is queued first since, unlike a data set, it's needed before a test's setup
+        // operation can begin.
+        if(prefetch.schema() != 0 && prefetch.databaseName().length() == 0) {
+            LOGGER.warn("Not prefetching the schema template of {}, since its @Prefetch names no database.",
+                    testClass.getName());
+        } else if(prefetch.schema() != 0) {
+            final Context targetContext = instrumentation.getTargetContext();
+            final String databaseName = prefetch.databaseName();
+            final int schemaResourceId = prefetch.schema();
+            final int schemaRevision = prefetch.schemaRevision();
+
+            submit("schema " + schemaResourceId, new PrefetchTask() {
+                @Override
+                public void run() throws Exception {
+                    // Incomplete templates are named through the context, so namespace them as a
+                    // test's files would be.
+                    Context namespacedContext = new RenamingDelegatingContext(targetContext,
+                            TestFileNamespace.getFilenamePrefix());
+
+                    DatabaseTemplates.getTemplate(namespacedContext,
+                            targetContext.getCacheDir(),
+                            databaseName,
+                            schemaRevision,
+                            SchemaApplier.readRawResource(context, schemaResourceId));
+                }
+            });
+        }
+
+        for(final int rawResourceId : prefetch.flatXmlDataSets()) {
+            submit("flat XML data set " + rawResourceId, new DataSetPrefetchTask() {
+                @Override
+                protected void load() throws Exception {
+                    AndroidDataSetCache.prefetchFlatXmlDataSet(context, rawResourceId);
+                }
+            });
+        }
+
+        for(final int rawResourceId : prefetch.xmlDataSets()) {
+            submit("XML data set " + rawResourceId, new DataSetPrefetchTask() {
+                @Override
+                protected void load() throws Exception {
+                    AndroidDataSetCache.prefetchXmlDataSet(context, rawResourceId);
+                }
+            });
+        }
+    }
+
+    private static void submit(final String fixtureDescription, final PrefetchTask task) {
+        if(executor.getQueue().remainingCapacity() == 0) {
+            LOGGER.debug("Not prefetching {}, since too many fixtures are already queued.", fixtureDescription);
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch(Exception e) {
+                    // The test that needs the fixture will fail the same way when it loads it.
+                    LOGGER.warn("Unable to prefetch " + fixtureDescription + ".", e);
+                }
+            }
+        });
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        // Fixtures that don't fit in the queue are dropped, to be loaded by their tests instead.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_FIXTURES),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "dbunit-prefetcher");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private interface PrefetchTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Task that skips loading its data set if the cache has little room left. Whether the loaded
+     * data set fits is checked again by the cache once it's measured.
+     */
+    private static abstract class DataSetPrefetchTask implements PrefetchTask {
+        @Override
+        public void run() throws Exception {
+            if(AndroidDataSetCache.getSize() > AndroidDataSetCache.getMaxSize() / 2) {
+                LOGGER.debug("Not prefetching data set, since the data set cache is over half full.");
+                return;
+            }
+
+            load();
+        }
+
+        protected abstract void load() throws Exception;
+    }
+}
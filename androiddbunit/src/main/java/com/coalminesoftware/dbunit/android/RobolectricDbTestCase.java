@@ -0,0 +1,186 @@
+package com.coalminesoftware.dbunit.android;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.assertion.DatabaseAssertion;
+import com.coalminesoftware.dbunit.android.database.AndroidSQLiteDatabaseConnection;
+import com.coalminesoftware.dbunit.android.database.SQLiteConnectionDataSet;
+import com.coalminesoftware.dbunit.android.database.SchemaApplier;
+import com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet;
+
+import org.dbunit.IDatabaseTester;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.operation.DatabaseOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Counterpart to {@link AndroidDbTestCase} that runs as a local unit test on the JVM, under
+ * Robolectric, rather than as an instrumentation test on a device or emulator. Subclasses provide
+ * the same {@link #getDataSet()} and {@link #onCreateDatabase(Context)} implementations, and have
+ * the same {@link #getDatabaseContext()}, {@link #getDatabase()} and {@link #getConnection()}
+ * available, but write JUnit 4 tests annotated with {@link org.junit.Test}.
+ * <p>
+ * Robolectric's SQLite implementation is used through a native connection, as JDBC2z isn't
+ * available off-device. Robolectric gives each test a new application whose databases are kept in
+ * a temporary directory, so every test starts with a newly created and populated database.
+ * <p>
+ * Robolectric is not a dependency of this library, so a project using this class must add it, and
+ * JUnit 4, to its test dependencies. The Robolectric configuration can be changed by annotating
+ * subclasses with {@link Config}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public abstract class RobolectricDbTestCase {
+    private final String databaseName;
+    private Context databaseContext;
+    private IDatabaseTester databaseTester;
+    private IDatabaseConnection connection;
+
+    /**
+     * Creates a test case that will use the given filename for the test database.
+     */
+    public RobolectricDbTestCase(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * @see AndroidDbTestCase#getDataSet()
+     */
+    protected abstract IDataSet getDataSet() throws Exception;
+
+    /**
+     * @see AndroidDbTestCase#onCreateDatabase(Context)
+     */
+    protected abstract void onCreateDatabase(Context context);
+
+    /**
+     * @return The filename to be used for the test database. The value is set during construction.
+     */
+    protected String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * @return The test database, which is the same database instance used by
+     * {@link #getConnection()}.
+     */
+    protected SQLiteDatabase getDatabase() {
+        SQLiteDatabase database;
+        try {
+            database = ((AndroidSQLiteDatabaseConnection)getConnection()).getDatabase();
+        } catch(Exception e) {
+            throw new IllegalStateException("Unable to retrieve database connection.", e);
+        }
+
+        // Keep the shared instance open even if the caller closes the returned database.
+        database.acquireReference();
+        return database;
+    }
+
+    /**
+     * Convenience method for creating the schema in the database that will be used for testing.
+     *
+     * @see AndroidDbTestCase#createDatabase(int, String)
+     * @see SchemaApplier
+     */
+    protected void createDatabase(int schemaRevision, String schemaCreationSql) {
+        SchemaApplier.apply(getDatabaseContext(),
+                getDatabaseName(),
+                schemaRevision,
+                schemaCreationSql);
+    }
+
+    /**
+     * @return The operation used to populate the database with the data set. Returns
+     * {@link DatabaseOperation#CLEAN_INSERT} by default.
+     */
+    protected DatabaseOperation getSetUpOperation() throws Exception {
+        return DatabaseOperation.CLEAN_INSERT;
+    }
+
+    /**
+     * @return The operation executed on the database after each test. Returns
+     * {@link DatabaseOperation#NONE} by default.
+     */
+    protected DatabaseOperation getTearDownOperation() throws Exception {
+        return DatabaseOperation.NONE;
+    }
+
+    /**
+     * @see AndroidDbTestCase#createFilteredConnectionDataSet()
+     */
+    protected IDataSet createFilteredConnectionDataSet() throws Exception {
+        return createFilteredConnectionDataSet(true);
+    }
+
+    /**
+     * @see AndroidDbTestCase#createFilteredConnectionDataSet(boolean)
+     */
+    protected IDataSet createFilteredConnectionDataSet(boolean sorted) throws Exception {
+        return new SQLiteConnectionDataSet(getConnection(),
+                new ExcludeTableFilter(AndroidFilteredDataSet.EXCLUDED_TABLE_NAMES),
+                sorted);
+    }
+
+    /**
+     * @see AndroidDbTestCase#assertDatabaseEquals(IDataSet)
+     */
+    protected void assertDatabaseEquals(IDataSet expectedDataSet) throws Exception {
+        DatabaseAssertion.assertEquals(expectedDataSet, getConnection());
+    }
+
+    /**
+     * @see AndroidDbTestCase#replaceDatabaseDataSet(IDataSet)
+     */
+    protected void replaceDatabaseDataSet(IDataSet dataSet) throws Exception {
+        getSetUpOperation().execute(getConnection(), dataSet);
+    }
+
+    @Before
+    public void setUpDatabase() throws Exception {
+        databaseContext = RuntimeEnvironment.application;
+        onCreateDatabase(databaseContext);
+
+        databaseTester = new AndroidSQLiteNativeDatabaseTester(databaseContext, databaseName);
+        databaseTester.setSetUpOperation(getSetUpOperation());
+        databaseTester.setTearDownOperation(getTearDownOperation());
+        databaseTester.setDataSet(getDataSet());
+        databaseTester.onSetup();
+    }
+
+    @After
+    public void tearDownDatabase() throws Exception {
+        try {
+            databaseTester.onTearDown();
+        } finally {
+            if(connection != null) {
+                connection.close();
+                connection = null;
+            }
+        }
+    }
+
+    public IDatabaseConnection getConnection() throws Exception {
+        if(connection == null) {
+            connection = databaseTester.getConnection();
+        }
+
+        return connection;
+    }
+
+    /**
+     * @return The context used to create and open the test database: the application Robolectric
+     * provides for the current test.
+     */
+    public Context getDatabaseContext() {
+        return databaseContext;
+    }
+}
@@ -0,0 +1,149 @@
+package com.coalminesoftware.dbunit.android;
+
+import android.content.Context;
+import android.os.Process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the files of tests running in the current process and thread apart from those of tests
+ * running concurrently elsewhere, such as in another shard's process on the same device, by
+ * prefixing their names with the process ID, the process's start time and an index for the
+ * thread. The start time keeps a process from taking over the files of an earlier one that had the
+ * same, since reused, process ID. Files left behind by processes that have since died are deleted
+ * the first time tests in a process set up their files.
+ * <p>
+ * {@link AndroidDbTestCase} namespaces its files itself. Other tests that create files, such as
+ * through a {@link android.test.RenamingDelegatingContext}, should prefix their names with
+ * {@link #getFilenamePrefix()} so that they're namespaced and cleaned up in the same way.
+ */
+public final class TestFileNamespace {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestFileNamespace.class);
+
+    private static final String PREFIX = "dbunit_";
+
+    /**
+     * Matches namespaced file names, capturing the process ID and start time. Directories created
+     * through {@link Context#getDir(String, int)} are given an additional "app_" prefix.
+     */
+    private static final Pattern NAMESPACED_NAME = Pattern.compile("(?:app_)?" + PREFIX + "(\\d{1,9})_(\\d{1,18})_\\d+_.*");
+
+    /**
+     * The index, among the fields of /proc/[pid]/stat that follow the parenthesized command name,
+     * of the time the process started after boot.
+     */
+    private static final int STAT_START_TIME_INDEX = 19;
+
+    /**
+     * The current process's start time, as given by /proc, or the time this class was loaded if
+     * that can't be read. Either distinguishes the process from earlier ones with the same ID.
+     */
+    private static final long PROCESS_START_TIME = readProcessStartTime(Process.myPid(), System.currentTimeMillis());
+
+    private static final AtomicInteger nextThreadIndex = new AtomicInteger();
+    private static final ThreadLocal<Integer> threadIndex = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return nextThreadIndex.getAndIncrement();
+        }
+    };
+
+    private static boolean staleFilesDeleted;
+
+    private TestFileNamespace() { }
+
+    /** @return The prefix for the names of files created by tests on the current thread. */
+    public static String getFilenamePrefix() {
+        return PREFIX + Process.myPid() + "_" + PROCESS_START_TIME + "_" + threadIndex.get() + "_";
+    }
+
+    /**
+     * Deletes the namespaced databases, files and directories of processes that are no longer
+     * running, the first time it's called in a process.
+     */
+    public static synchronized void deleteStaleFiles(Context targetContext) {
+        if(staleFilesDeleted) {
+            return;
+        }
+        staleFilesDeleted = true;
+
+        File filesDirectory = targetContext.getFilesDir();
+        deleteStaleFiles(targetContext.getDatabasePath(PREFIX).getParentFile());
+        deleteStaleFiles(filesDirectory);
+        deleteStaleFiles(filesDirectory == null ? null : filesDirectory.getParentFile());
+    }
+
+    private static void deleteStaleFiles(File directory) {
+        File[] files = directory == null ? null : directory.listFiles();
+        if(files == null) {
+            return;
+        }
+
+        for(File file : files) {
+            Matcher matcher = NAMESPACED_NAME.matcher(file.getName());
+            if(matcher.matches() && !isProcessRunning(Integer.parseInt(matcher.group(1)), Long.parseLong(matcher.group(2)))) {
+                LOGGER.debug("Deleting {}, left behind by a test process that's no longer running.", file);
+                delete(file);
+            }
+        }
+    }
+
+    /** @return Whether the process with the given ID and start time is still running. */
+    private static boolean isProcessRunning(int pid, long startTime) {
+        if(pid == Process.myPid()) {
+            return startTime == PROCESS_START_TIME;
+        }
+
+        // Other processes' entries may be hidden, such as where /proc is mounted with hidepid, in
+        // which case only the ID can be checked.
+        long actualStartTime = readProcessStartTime(pid, -1);
+        return actualStartTime == -1
+                ? new File("/proc/" + pid).exists()
+                : actualStartTime == startTime;
+    }
+
+    /**
+     * @return The time the process with the given ID started, in clock ticks after boot, or the
+     * given default if it isn't running or its start time can't be read.
+     */
+    private static long readProcessStartTime(int pid, long defaultStartTime) {
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader("/proc/" + pid + "/stat"));
+            try {
+                String stat = reader.readLine();
+                // The command name may itself contain spaces and parentheses.
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                return Long.parseLong(fields[STAT_START_TIME_INDEX]);
+            } finally {
+                reader.close();
+            }
+        } catch(IOException e) {
+            return defaultStartTime;
+        } catch(RuntimeException e) {
+            LOGGER.debug("Unable to parse the start time of process " + pid + ".", e);
+            return defaultStartTime;
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if(children != null) {
+            for(File child : children) {
+                delete(child);
+            }
+        }
+
+        if(!file.delete()) {
+            LOGGER.warn("Unable to delete {}.", file);
+        }
+    }
+}
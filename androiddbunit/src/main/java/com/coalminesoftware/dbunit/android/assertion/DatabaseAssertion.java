@@ -0,0 +1,748 @@
+package com.coalminesoftware.dbunit.android.assertion;
+
+import android.database.Cursor;
+
+import com.coalminesoftware.dbunit.android.database.AndroidSQLiteDatabaseConnection;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.database.SQLiteConnectionDataSet;
+import com.coalminesoftware.dbunit.android.database.SQLiteSql;
+import com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet;
+
+import junit.framework.Assert;
+import junit.framework.AssertionFailedError;
+
+import org.dbunit.Assertion;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.SortedTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.dbunit.dataset.stream.StreamingDataSet;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assertions comparing expected data sets with a database's contents without loading the
+ * database's tables into memory and sorting them, as asserting against
+ * {@link com.coalminesoftware.dbunit.android.AndroidDbTestCase#createFilteredConnectionDataSet()}
+ * does.
+ * <p>
+ * Each table's rows are read in primary key order, or ordered by every column if the table has no
+ * primary key, and the expected table is sorted to match by comparing its values as SQLite does,
+ * regardless of the columns' declared collations. Both are hashed a chunk of rows at a time, with
+ * values first converted to the column's data type as {@link Assertion} does. Only if a chunk's
+ * hashes differ is the table loaded, sorted by DBUnit alongside the expected table, and compared
+ * with {@link Assertion}, producing its usual description of the differences.
+ * <p>
+ * As with {@link Assertion}, a table's expected and actual columns must match. Expected data sets
+ * must be held in memory, as their tables are counted and sorted, so a {@link StreamingDataSet}
+ * can't be compared.
+ * <p>
+ * Tables can also be compared in parallel, each thread reading through its own connection, with
+ * {@link #assertEquals(IDataSet, IDatabaseConnection, ConnectionFactory, int)}.
+ */
+public class DatabaseAssertion {
+    private static final int ROWS_PER_CHUNK = 1000;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte INTEGER_VALUE = 1;
+    private static final byte REAL_VALUE = 2;
+    private static final byte DECIMAL_VALUE = 3;
+    private static final byte BLOB_VALUE = 4;
+    private static final byte TEXT_VALUE = 5;
+
+    private DatabaseAssertion() { }
+
+    /**
+     * Asserts that the connection's database contains exactly the tables of the given data set,
+     * excluding the tables excluded by {@link AndroidFilteredDataSet}, and that each contains the
+     * expected rows.
+     *
+     * @throws IllegalArgumentException If the data set is a {@link StreamingDataSet}, whose tables
+     * can't be counted or sorted.
+     */
+    public static void assertEquals(IDataSet expectedDataSet, IDatabaseConnection connection) throws Exception {
+        checkNotStreaming(expectedDataSet);
+        assertTableNamesEqual(expectedDataSet, connection);
+
+        ITableIterator iterator = expectedDataSet.iterator();
+        while(iterator.next()) {
+            assertEquals(iterator.getTable(), connection);
+        }
+    }
+
+    /**
+     * Asserts as {@link #assertEquals(IDataSet, IDatabaseConnection)} does, but compares tables on
+     * up to the given number of threads. Each thread reads through its own connection from the
+     * factory, which is made read-only for the purpose, so the database's changes must have been
+     * committed to be seen. The given connection is only used to compare the database's table names.
+     * <p>
+     * Every table is compared even if some differ, and the differences are reported together in
+     * the data set's table order, regardless of the order in which the tables were compared.
+     *
+     * @throws IllegalArgumentException If the data set is a {@link StreamingDataSet}, whose tables
+     * can't be counted or sorted.
+     */
+    public static void assertEquals(IDataSet expectedDataSet, IDatabaseConnection connection,
+            final ConnectionFactory connectionFactory, int threadCount) throws Exception {
+        checkNotStreaming(expectedDataSet);
+        if(threadCount <= 1) {
+            assertEquals(expectedDataSet, connection);
+            return;
+        }
+
+        assertTableNamesEqual(expectedDataSet, connection);
+
+        final List<ITable> expectedTables = new ArrayList<ITable>();
+        ITableIterator iterator = expectedDataSet.iterator();
+        while(iterator.next()) {
+            expectedTables.add(iterator.getTable());
+        }
+
+        // Compare the largest tables first, so that threads aren't left idle while another compares
+        // a large table that was started last.
+        final Integer[] comparisonOrder = new Integer[expectedTables.size()];
+        for(int i = 0; i < comparisonOrder.length; i++) {
+            comparisonOrder[i] = i;
+        }
+        Arrays.sort(comparisonOrder, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer index1, Integer index2) {
+                return expectedTables.get(index2).getRowCount() - expectedTables.get(index1).getRowCount();
+            }
+        });
+
+        final Error[] failures = new Error[expectedTables.size()];
+        final AtomicInteger nextComparison = new AtomicInteger();
+
+        int workerCount = Math.min(threadCount, expectedTables.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<Void>> workers = new ArrayList<Future<Void>>();
+            for(int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        IDatabaseConnection workerConnection = connectionFactory.openConnection();
+                        try {
+                            DatabaseConnectionUtils.execute(workerConnection, "PRAGMA query_only = 1");
+
+                            for(int comparison; (comparison = nextComparison.getAndIncrement()) < comparisonOrder.length; ) {
+                                int tableIndex = comparisonOrder[comparison];
+                                try {
+                                    assertEquals(expectedTables.get(tableIndex), workerConnection);
+                                } catch(AssertionFailedError e) {
+                                    failures[tableIndex] = e;
+                                } catch(AssertionError e) {
+                                    failures[tableIndex] = e;
+                                }
+                            }
+                        } finally {
+                            workerConnection.close();
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            for(Future<Void> worker : workers) {
+                awaitWorker(worker);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        reportFailures(expectedTables, failures);
+    }
+
+    private static void checkNotStreaming(IDataSet dataSet) {
+        if(dataSet instanceof StreamingDataSet) {
+            throw new IllegalArgumentException("Streaming data sets can't be compared, as their tables can only be read"
+                    + " once, in order. Load the expected data set into memory instead.");
+        }
+    }
+
+    private static void assertTableNamesEqual(IDataSet expectedDataSet, IDatabaseConnection connection)
+            throws DataSetException {
+        String[] expectedTableNames = getSortedTableNames(expectedDataSet);
+        String[] actualTableNames = getSortedTableNames(new SQLiteConnectionDataSet(connection,
+                new ExcludeTableFilter(AndroidFilteredDataSet.EXCLUDED_TABLE_NAMES),
+                false));
+        if(!Arrays.equals(expectedTableNames, actualTableNames)) {
+            Assert.assertEquals("table names",
+                    Arrays.toString(expectedTableNames),
+                    Arrays.toString(actualTableNames));
+        }
+    }
+
+    private static void awaitWorker(Future<Void> worker) throws Exception {
+        try {
+            worker.get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception) {
+                throw (Exception)cause;
+            } else if(cause instanceof Error) {
+                throw (Error)cause;
+            }
+
+            throw e;
+        }
+    }
+
+    /** Fails with the tables' failures, if any, described in the order of the tables. */
+    private static void reportFailures(List<ITable> tables, Error[] failures) {
+        List<Integer> failedTableIndexes = new ArrayList<Integer>();
+        for(int i = 0; i < failures.length; i++) {
+            if(failures[i] != null) {
+                failedTableIndexes.add(i);
+            }
+        }
+
+        if(failedTableIndexes.size() == 1) {
+            // A lone failure is rethrown as is, so that tools can still show its comparison.
+            throw failures[failedTableIndexes.get(0)];
+        } else if(failedTableIndexes.size() > 1) {
+            StringBuilder report = new StringBuilder()
+                    .append(failedTableIndexes.size())
+                    .append(" tables differ:");
+            for(int index : failedTableIndexes) {
+                report.append("\n\n")
+                        .append(tables.get(index).getTableMetaData().getTableName())
+                        .append(": ")
+                        .append(failures[index].getMessage());
+            }
+
+            Assert.fail(report.toString());
+        }
+    }
+
+    /** Asserts that the database table with the given table's name contains the expected rows. */
+    public static void assertEquals(ITable expectedTable, IDatabaseConnection connection) throws Exception {
+        String tableName = expectedTable.getTableMetaData().getTableName();
+        ITableMetaData actualMetaData = new SQLiteConnectionDataSet(connection).getTableMetaData(tableName);
+
+        Column[] columns = getComparedColumns(expectedTable.getTableMetaData(), actualMetaData);
+        boolean hasPrimaryKey = actualMetaData.getPrimaryKeys().length > 0;
+        Column[] orderColumns = getOrderColumns(actualMetaData, columns);
+
+        Assert.assertEquals("row count (table=" + tableName + ")",
+                expectedTable.getRowCount(),
+                connection.getRowCount(actualMetaData.getTableName()));
+
+        String query = buildQuery(actualMetaData.getTableName(), columns, orderColumns);
+        int[] expectedRowOrder = getRowOrder(expectedTable, orderColumns);
+        if(expectedRowOrder == null || !isEqualByHash(expectedTable, expectedRowOrder,
+                RowReader.open(connection, actualMetaData.getTableName(), columns, orderColumns, hasPrimaryKey),
+                columns)) {
+            // Load the table to describe the differences, sorting both tables with DBUnit so that
+            // they're in the same order even where it orders values differently than SQLite. If the
+            // hashes only differed because values DBUnit considers equal were hashed differently,
+            // this passes.
+            Assertion.assertEquals(sort(expectedTable, orderColumns),
+                    sort(connection.createQueryTable(tableName, query), orderColumns));
+        }
+    }
+
+    private static ITable sort(ITable table, Column[] orderColumns) throws DataSetException {
+        SortedTable sortedTable = new SortedTable(table, orderColumns);
+        sortedTable.setUseComparable(true);
+
+        return sortedTable;
+    }
+
+    private static String[] getSortedTableNames(IDataSet dataSet) throws DataSetException {
+        String[] tableNames = dataSet.getTableNames();
+        for(int i = 0; i < tableNames.length; i++) {
+            tableNames[i] = tableNames[i].toUpperCase(Locale.US);
+        }
+        Arrays.sort(tableNames);
+
+        return tableNames;
+    }
+
+    /**
+     * @return The database's columns, in the expected table's column order, with the data type
+     * that {@link Assertion} would compare each column's values as.
+     */
+    private static Column[] getComparedColumns(ITableMetaData expectedMetaData, ITableMetaData actualMetaData)
+            throws DataSetException {
+        Column[] expectedColumns = expectedMetaData.getColumns();
+        Column[] actualColumns = actualMetaData.getColumns();
+
+        Column[] columns = new Column[expectedColumns.length];
+        for(int i = 0; i < expectedColumns.length; i++) {
+            Column actualColumn = Columns.getColumn(expectedColumns[i].getColumnName(), actualColumns);
+            if(actualColumn == null) {
+                break;
+            }
+
+            DataType dataType = expectedColumns[i].getDataType() == DataType.UNKNOWN
+                    ? actualColumn.getDataType()
+                    : expectedColumns[i].getDataType();
+            columns[i] = new Column(actualColumn.getColumnName(), dataType);
+        }
+
+        if(expectedColumns.length != actualColumns.length || Arrays.asList(columns).contains(null)) {
+            Assert.assertEquals("column names (table=" + expectedMetaData.getTableName() + ")",
+                    Arrays.toString(Columns.getColumnNames(expectedColumns)),
+                    Arrays.toString(Columns.getColumnNames(actualColumns)));
+        }
+
+        return columns;
+    }
+
+    /** @return The columns by which to order the table's rows so that the order is deterministic. */
+    private static Column[] getOrderColumns(ITableMetaData actualMetaData, Column[] columns) throws DataSetException {
+        Column[] primaryKeys = actualMetaData.getPrimaryKeys();
+        if(primaryKeys.length == 0) {
+            return columns;
+        }
+
+        Column[] orderColumns = new Column[primaryKeys.length];
+        for(int i = 0; i < primaryKeys.length; i++) {
+            orderColumns[i] = Columns.getColumn(primaryKeys[i].getColumnName(), columns);
+        }
+
+        return orderColumns;
+    }
+
+    private static String buildQuery(String tableName, Column[] columns, Column[] orderColumns) {
+        return buildSelectClause(tableName, columns) + buildOrderByClause(orderColumns);
+    }
+
+    private static String buildSelectClause(String tableName, Column[] columns) {
+        StringBuilder builder = new StringBuilder("SELECT ");
+        for(int i = 0; i < columns.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(SQLiteSql.quoteIdentifier(columns[i].getColumnName()));
+        }
+
+        return builder.append(" FROM ").append(SQLiteSql.quoteIdentifier(tableName)).toString();
+    }
+
+    private static String buildOrderByClause(Column[] orderColumns) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < orderColumns.length; i++) {
+            builder.append(i == 0 ? " ORDER BY " : ", ").append(buildOrderExpression(orderColumns[i].getColumnName()));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @return An expression ordering and comparing the column's values by their bytes, regardless
+     * of the column's declared collation, as {@link #compareAsSQLite(Object, Object)} does.
+     */
+    private static String buildOrderExpression(String columnName) {
+        return SQLiteSql.quoteIdentifier(columnName) + " COLLATE BINARY";
+    }
+
+    /**
+     * @return The expected table's row indexes in the order the database's query returns its rows,
+     * or null if a value can't be converted to its column's data type to be ordered.
+     */
+    private static int[] getRowOrder(ITable table, Column[] orderColumns) throws DataSetException {
+        final Object[][] keys = new Object[table.getRowCount()][orderColumns.length];
+        Integer[] rows = new Integer[keys.length];
+        try {
+            for(int row = 0; row < keys.length; row++) {
+                for(int i = 0; i < orderColumns.length; i++) {
+                    keys[row][i] = orderColumns[i].getDataType().typeCast(
+                            table.getValue(row, orderColumns[i].getColumnName()));
+                }
+                rows[row] = row;
+            }
+        } catch(TypeCastException e) {
+            return null;
+        }
+
+        Arrays.sort(rows, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer row1, Integer row2) {
+                for(int i = 0; i < keys[row1].length; i++) {
+                    int comparison = compareAsSQLite(keys[row1][i], keys[row2][i]);
+                    if(comparison != 0) {
+                        return comparison;
+                    }
+                }
+
+                return 0;
+            }
+        });
+
+        int[] rowOrder = new int[rows.length];
+        for(int i = 0; i < rows.length; i++) {
+            rowOrder[i] = rows[i];
+        }
+
+        return rowOrder;
+    }
+
+    /**
+     * Compares values as SQLite orders them with the BINARY collation: nulls first, then numbers by
+     * value, then text by its UTF-8 bytes, then blobs by their bytes. Java orders strings by their
+     * UTF-16 code units instead, which differs for characters outside the Basic Multilingual Plane.
+     */
+    private static int compareAsSQLite(Object value1, Object value2) {
+        int storageClass1 = getStorageClassOrder(value1);
+        int storageClass2 = getStorageClassOrder(value2);
+        if(storageClass1 != storageClass2) {
+            return storageClass1 < storageClass2 ? -1 : 1;
+        }
+
+        if(value1 == null) {
+            return 0;
+        } else if(storageClass1 == 1) {
+            return compareNumbers(toNumber(value1), toNumber(value2));
+        } else if(value1 instanceof byte[]) {
+            return compareBytes((byte[])value1, (byte[])value2);
+        } else {
+            return compareBytes(value1.toString().getBytes(CHARSET), value2.toString().getBytes(CHARSET));
+        }
+    }
+
+    private static int getStorageClassOrder(Object value) {
+        if(value == null) {
+            return 0;
+        } else if(value instanceof Number || value instanceof Boolean) {
+            return 1;
+        } else if(value instanceof byte[]) {
+            return 3;
+        } else {
+            return 2;
+        }
+    }
+
+    private static Number toNumber(Object value) {
+        // SQLite stores booleans as integers.
+        return value instanceof Boolean ? (Boolean)value ? 1L : 0L : (Number)value;
+    }
+
+    private static int compareNumbers(Number number1, Number number2) {
+        try {
+            return new BigDecimal(number1.toString()).compareTo(new BigDecimal(number2.toString()));
+        } catch(NumberFormatException e) {
+            // Infinite and NaN values have no decimal representation.
+            return Double.compare(number1.doubleValue(), number2.doubleValue());
+        }
+    }
+
+    private static int compareBytes(byte[] bytes1, byte[] bytes2) {
+        for(int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+            int comparison = (bytes1[i] & 0xff) - (bytes2[i] & 0xff);
+            if(comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return bytes1.length - bytes2.length;
+    }
+
+    /**
+     * @return Whether the expected table's rows, in the given order, hash the same as the reader's,
+     * a chunk at a time. False positives aren't possible, short of a SHA-1 collision, but false
+     * negatives are.
+     */
+    private static boolean isEqualByHash(ITable expectedTable, int[] expectedRowOrder, RowReader reader,
+            Column[] columns) throws Exception {
+        MessageDigest expectedDigest = newDigest();
+        MessageDigest actualDigest = newDigest();
+
+        try {
+            int rowCount = expectedTable.getRowCount();
+            for(int row = 0; row < rowCount; row++) {
+                if(!reader.next()) {
+                    return false;
+                }
+
+                for(int i = 0; i < columns.length; i++) {
+                    Object expectedValue = expectedTable.getValue(expectedRowOrder[row], columns[i].getColumnName());
+                    if(expectedValue == ITable.NO_VALUE) {
+                        return false;
+                    }
+
+                    DataType dataType = columns[i].getDataType();
+                    update(expectedDigest, dataType.typeCast(expectedValue));
+                    update(actualDigest, dataType.typeCast(reader.getValue(i)));
+                }
+
+                if((row + 1) % ROWS_PER_CHUNK == 0 || row + 1 == rowCount) {
+                    if(!MessageDigest.isEqual(expectedDigest.digest(), actualDigest.digest())) {
+                        return false;
+                    }
+                }
+            }
+
+            return !reader.next();
+        } catch(TypeCastException e) {
+            return false;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is unavailable.", e);
+        }
+    }
+
+    /** Adds a value to the digest, tagged with its type so that values of different types differ. */
+    private static void update(MessageDigest digest, Object value) {
+        if(value == null) {
+            digest.update(NULL_VALUE);
+        } else if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            digest.update(INTEGER_VALUE);
+            digest.update(ByteBuffer.allocate(8).putLong(((Number)value).longValue()).array());
+        } else if(value instanceof Double || value instanceof Float) {
+            digest.update(REAL_VALUE);
+            digest.update(ByteBuffer.allocate(8).putLong(Double.doubleToLongBits(((Number)value).doubleValue())).array());
+        } else if(value instanceof BigDecimal || value instanceof BigInteger) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal)value : new BigDecimal((BigInteger)value);
+            // Decimals that compare as equal, like 1.0 and 1.00, must hash identically.
+            update(digest, DECIMAL_VALUE, (decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros())
+                    .toPlainString().getBytes(CHARSET));
+        } else if(value instanceof byte[]) {
+            update(digest, BLOB_VALUE, (byte[])value);
+        } else {
+            update(digest, TEXT_VALUE, value.toString().getBytes(CHARSET));
+        }
+    }
+
+    private static void update(MessageDigest digest, byte type, byte[] bytes) {
+        digest.update(type);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /** Opens the connections used by the threads of a parallel assertion. */
+    public interface ConnectionFactory {
+        /** @return A new connection to the database, which the caller closes. */
+        IDatabaseConnection openConnection() throws Exception;
+    }
+
+    /** Reads the rows of a query one at a time. */
+    private static abstract class RowReader {
+        /**
+         * @return A reader of the table's columns, ordered by the given columns. Unless they're the
+         * table's primary key, rows whose order columns are all equal are read in any order.
+         */
+        static RowReader open(IDatabaseConnection connection, String tableName, Column[] columns,
+                Column[] orderColumns, boolean orderColumnsAreUnique) throws SQLException {
+            if(connection instanceof AndroidSQLiteDatabaseConnection) {
+                return new CursorRowReader(((AndroidSQLiteDatabaseConnection)connection).getDatabase()
+                        .rawQuery(buildQuery(tableName, columns, orderColumns), null));
+            }
+
+            return new PagedResultSetRowReader(connection.getConnection(), tableName, columns, orderColumns,
+                    orderColumnsAreUnique);
+        }
+
+        abstract boolean next() throws SQLException;
+        abstract Object getValue(int columnIndex) throws SQLException;
+        abstract void close() throws SQLException;
+    }
+
+    /** Reads rows through a {@link Cursor}, which only holds a window of rows in memory at a time. */
+    private static class CursorRowReader extends RowReader {
+        private final Cursor cursor;
+
+        private CursorRowReader(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        boolean next() {
+            return cursor.moveToNext();
+        }
+
+        @Override
+        Object getValue(int columnIndex) {
+            return SQLiteSql.getValue(cursor, columnIndex);
+        }
+
+        @Override
+        void close() {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads rows through JDBC a page at a time, since the SQLite JDBC driver reads a query's entire
+     * result into memory. Each page continues from the last row of the one before, by its order
+     * columns, so that reading a page doesn't mean stepping over every row before it as an OFFSET
+     * would. Unless the order columns are unique, the table's rowid is added to them to give every
+     * row a distinct position.
+     */
+    private static class PagedResultSetRowReader extends RowReader {
+        private static final int ROWS_PER_PAGE = 5000;
+        private static final String ROWID_COLUMN_NAME = "rowid";
+
+        private final Connection connection;
+        private final String selectClause;
+        private final String[] keyColumnNames;
+        private final String orderByClause;
+        /** The index of each key column among the query's result columns. */
+        private final int[] keyColumnIndexes;
+
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private int pageRowCount;
+        private Object[] lastKey;
+
+        private PagedResultSetRowReader(Connection connection, String tableName, Column[] columns,
+                Column[] orderColumns, boolean orderColumnsAreUnique) {
+            this.connection = connection;
+
+            List<String> columnNames = new ArrayList<String>(Arrays.asList(Columns.getColumnNames(columns)));
+            List<String> keyColumnNames = new ArrayList<String>(Arrays.asList(Columns.getColumnNames(orderColumns)));
+            if(!orderColumnsAreUnique) {
+                columnNames.add(ROWID_COLUMN_NAME);
+                keyColumnNames.add(ROWID_COLUMN_NAME);
+            }
+
+            Column[] selectedColumns = new Column[columnNames.size()];
+            for(int i = 0; i < selectedColumns.length; i++) {
+                selectedColumns[i] = new Column(columnNames.get(i), DataType.UNKNOWN);
+            }
+            this.keyColumnNames = keyColumnNames.toArray(new String[keyColumnNames.size()]);
+
+            keyColumnIndexes = new int[this.keyColumnNames.length];
+            Column[] keyColumns = new Column[this.keyColumnNames.length];
+            for(int i = 0; i < keyColumnIndexes.length; i++) {
+                keyColumnIndexes[i] = columnNames.indexOf(this.keyColumnNames[i]);
+                keyColumns[i] = selectedColumns[keyColumnIndexes[i]];
+            }
+
+            selectClause = buildSelectClause(tableName, selectedColumns);
+            orderByClause = buildOrderByClause(keyColumns);
+        }
+
+        @Override
+        boolean next() throws SQLException {
+            if(resultSet != null) {
+                if(resultSet.next()) {
+                    if(++pageRowCount == ROWS_PER_PAGE) {
+                        lastKey = readKey();
+                    }
+                    return true;
+                } else if(pageRowCount < ROWS_PER_PAGE) {
+                    return false;
+                }
+
+                closePage();
+            }
+
+            statement = connection.prepareStatement(buildPageQuery());
+            bindLastKey();
+            resultSet = statement.executeQuery();
+            pageRowCount = 0;
+
+            return next();
+        }
+
+        private Object[] readKey() throws SQLException {
+            Object[] key = new Object[keyColumnIndexes.length];
+            for(int i = 0; i < key.length; i++) {
+                key[i] = resultSet.getObject(keyColumnIndexes[i] + 1);
+            }
+
+            return key;
+        }
+
+        /**
+         * @return A query for the page after the last key, if any. Rows after the last key are
+         * those greater in its first column, or equal in it and after the rest of the key. Nulls
+         * are the lowest of values, so anything that isn't null is greater than a null.
+         */
+        private String buildPageQuery() {
+            StringBuilder builder = new StringBuilder(selectClause);
+
+            if(lastKey != null) {
+                builder.append(" WHERE ");
+                for(int i = 0; i < keyColumnNames.length; i++) {
+                    String expression = buildOrderExpression(keyColumnNames[i]);
+
+                    builder.append(expression).append(lastKey[i] == null ? " IS NOT NULL" : " > ?");
+                    if(i < keyColumnNames.length - 1) {
+                        builder.append(" OR (").append(expression)
+                                .append(lastKey[i] == null ? " IS NULL" : " = ?")
+                                .append(" AND (");
+                    }
+                }
+                for(int i = 0; i < keyColumnNames.length - 1; i++) {
+                    builder.append("))");
+                }
+            }
+
+            return builder.append(orderByClause).append(" LIMIT ").append(ROWS_PER_PAGE).toString();
+        }
+
+        /** Binds the last key's values to the parameters of {@link #buildPageQuery()}. */
+        private void bindLastKey() throws SQLException {
+            if(lastKey == null) {
+                return;
+            }
+
+            int parameterIndex = 1;
+            for(int i = 0; i < lastKey.length; i++) {
+                if(lastKey[i] != null) {
+                    statement.setObject(parameterIndex++, lastKey[i]);
+                    if(i < lastKey.length - 1) {
+                        statement.setObject(parameterIndex++, lastKey[i]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        Object getValue(int columnIndex) throws SQLException {
+            return resultSet.getObject(columnIndex + 1);
+        }
+
+        private void closePage() throws SQLException {
+            if(resultSet != null) {
+                resultSet.close();
+            }
+            if(statement != null) {
+                statement.close();
+            }
+        }
+
+        @Override
+        void close() throws SQLException {
+            closePage();
+        }
+    }
+}
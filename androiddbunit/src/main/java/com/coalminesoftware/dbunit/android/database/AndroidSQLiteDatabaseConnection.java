@@ -0,0 +1,208 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.dataset.CursorTable;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.FilteredDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IDatabaseConnection} that works directly with an Android {@link SQLiteDatabase} rather
+ * than through a JDBC driver. Data is read through {@link Cursor}s and written through compiled
+ * {@link android.database.sqlite.SQLiteStatement}s, which DBUnit's operations use by way of the
+ * {@link AndroidSQLiteStatementFactory} configured for the connection.
+ * <p>
+ * Tables are read through the {@link AndroidSQLiteResultSetTableFactory} configured for the
+ * connection. The rows of database tables are read from their cursors as they're retrieved, and
+ * the cursors are closed along with the connection. Since there is no underlying JDBC connection,
+ * {@link #getConnection()} throws an exception.
+ */
+public class AndroidSQLiteDatabaseConnection implements IDatabaseConnection {
+    private final SQLiteDatabase database;
+    private final DatabaseConfig config = new DatabaseConfig();
+    private final List<CursorTable> openTables = new ArrayList<CursorTable>();
+
+    /**
+     * Creates a connection to the given database, which is closed when the connection is closed.
+     * To share a database instance, call {@link SQLiteDatabase#acquireReference()} before creating
+     * the connection.
+     */
+    public AndroidSQLiteDatabaseConnection(SQLiteDatabase database) {
+        this.database = database;
+
+        config.setProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY,
+                new AndroidSQLiteStatementFactory());
+        config.setProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY,
+                new AndroidSQLiteResultSetTableFactory());
+    }
+
+    /** @return The database this connection works with. */
+    public SQLiteDatabase getDatabase() {
+        return database;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw new SQLException(getClass().getSimpleName() + " is not backed by a JDBC connection.");
+    }
+
+    @Override
+    public String getSchema() {
+        return null;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized(openTables) {
+            for(CursorTable table : openTables) {
+                table.close();
+            }
+            openTables.clear();
+        }
+
+        database.close();
+    }
+
+    @Override
+    public IDataSet createDataSet() throws SQLException {
+        return new SQLiteConnectionDataSet(this);
+    }
+
+    @Override
+    public IDataSet createDataSet(String[] tableNames) throws SQLException, DataSetException {
+        return new FilteredDataSet(tableNames, createDataSet());
+    }
+
+    @Override
+    public ITable createQueryTable(String resultName, String sql) throws DataSetException, SQLException {
+        return getResultSetTableFactory().createTable(resultName, sql, this);
+    }
+
+    @Override
+    public ITable createTable(String tableName, PreparedStatement preparedStatement) throws DataSetException, SQLException {
+        return getResultSetTableFactory().createTable(tableName, preparedStatement, this);
+    }
+
+    @Override
+    public ITable createTable(String tableName) throws DataSetException, SQLException {
+        return createDataSet().getTable(tableName);
+    }
+
+    /**
+     * Creates a table containing the rows returned by the given query. The rows are copied, since
+     * callers are free to change the database while using the results of their own queries.
+     */
+    ITable queryTable(String resultName, String sql) throws DataSetException {
+        Cursor cursor = database.rawQuery(sql, null);
+        try {
+            return createTable(resultName, cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Creates a table of all of the rows of the table described by the given metadata, ordered by
+     * its primary key. Rows are read from a cursor as they're retrieved, a window at a time, rather
+     * than copied up front. The cursor stays open until the connection is closed.
+     */
+    ITable createTable(ITableMetaData metaData) throws DataSetException {
+        Cursor cursor = database.rawQuery(SQLiteSql.buildSelectStatement(metaData), null);
+
+        CursorTable table;
+        try {
+            table = new CursorTable(metaData, cursor);
+        } catch(DataSetException e) {
+            cursor.close();
+            throw e;
+        }
+
+        synchronized(openTables) {
+            openTables.add(table);
+        }
+
+        return table;
+    }
+
+    @Override
+    public int getRowCount(String tableName) throws SQLException {
+        return getRowCount(tableName, null);
+    }
+
+    @Override
+    public int getRowCount(String tableName, String whereClause) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + SQLiteSql.quoteIdentifier(tableName);
+        if(whereClause != null) {
+            sql += " " + whereClause;
+        }
+
+        return (int)DatabaseUtils.longForQuery(database, sql, null);
+    }
+
+    @Override
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    private IResultSetTableFactory getResultSetTableFactory() {
+        return (IResultSetTableFactory)config.getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+    }
+
+    @Override
+    @Deprecated
+    public IStatementFactory getStatementFactory() {
+        return (IStatementFactory)config.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+    }
+
+    private static ITable createTable(String tableName, Cursor cursor) throws DataSetException {
+        // Query results carry no declared types, so derive them from the values in the first row.
+        cursor.moveToFirst();
+
+        Column[] columns = new Column[cursor.getColumnCount()];
+        for(int i = 0; i < columns.length; i++) {
+            DataType dataType = cursor.isAfterLast()
+                    ? DataType.UNKNOWN
+                    : SQLiteSql.getDataType(cursor.getType(i));
+
+            columns[i] = new Column(cursor.getColumnName(i), dataType);
+        }
+
+        return createTable(new DefaultTableMetaData(tableName, columns), cursor);
+    }
+
+    private static ITable createTable(ITableMetaData metaData, Cursor cursor) throws DataSetException {
+        DefaultTable table = new DefaultTable(metaData);
+
+        int columnCount = cursor.getColumnCount();
+        for(cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+            Object[] row = new Object[columnCount];
+            for(int i = 0; i < columnCount; i++) {
+                row[i] = SQLiteSql.getValue(cursor, i);
+            }
+
+            table.addRow(row);
+        }
+
+        return table;
+    }
+}
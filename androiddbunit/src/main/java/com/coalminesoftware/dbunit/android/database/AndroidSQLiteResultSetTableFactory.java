@@ -0,0 +1,83 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.DataTypeException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * {@link IResultSetTableFactory} that reads tables through the {@link android.database.Cursor}s of
+ * an {@link AndroidSQLiteDatabaseConnection}. An {@link AndroidSQLiteDatabaseConnection} has no
+ * JDBC connection through which to prepare statements, so a table created from a JDBC prepared
+ * statement is read by executing the statement on the connection that prepared it.
+ */
+public class AndroidSQLiteResultSetTableFactory implements IResultSetTableFactory {
+    @Override
+    public ITable createTable(String tableName, String selectStatement, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        return getConnection(connection).queryTable(tableName, selectStatement);
+    }
+
+    @Override
+    public ITable createTable(String tableName, PreparedStatement preparedStatement, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        ResultSet resultSet = preparedStatement.executeQuery();
+        try {
+            ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+
+            Column[] columns = new Column[resultSetMetaData.getColumnCount()];
+            for(int i = 0; i < columns.length; i++) {
+                columns[i] = new Column(resultSetMetaData.getColumnLabel(i + 1),
+                        getDataType(resultSetMetaData.getColumnType(i + 1)));
+            }
+
+            DefaultTable table = new DefaultTable(new DefaultTableMetaData(tableName, columns));
+            while(resultSet.next()) {
+                Object[] row = new Object[columns.length];
+                for(int i = 0; i < columns.length; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+
+                table.addRow(row);
+            }
+
+            return table;
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    @Override
+    public ITable createTable(ITableMetaData metaData, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        return getConnection(connection).createTable(metaData);
+    }
+
+    private static DataType getDataType(int sqlType) {
+        try {
+            return DataType.forSqlType(sqlType);
+        } catch(DataTypeException e) {
+            return DataType.UNKNOWN;
+        }
+    }
+
+    private static AndroidSQLiteDatabaseConnection getConnection(IDatabaseConnection connection) throws SQLException {
+        if(!(connection instanceof AndroidSQLiteDatabaseConnection)) {
+            throw new SQLException(AndroidSQLiteResultSetTableFactory.class.getSimpleName()
+                    + " requires an " + AndroidSQLiteDatabaseConnection.class.getSimpleName() + ".");
+        }
+
+        return (AndroidSQLiteDatabaseConnection)connection;
+    }
+}
@@ -0,0 +1,128 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchStatement;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IStatementFactory} that creates statements which execute directly against the
+ * {@link SQLiteDatabase} of an {@link AndroidSQLiteDatabaseConnection}. Prepared statements are
+ * compiled once and reused for every row added to them.
+ */
+public class AndroidSQLiteStatementFactory implements IStatementFactory {
+    @Override
+    public IBatchStatement createBatchStatement(IDatabaseConnection connection) throws SQLException {
+        return new BatchStatement(getDatabase(connection));
+    }
+
+    @Override
+    public IPreparedBatchStatement createPreparedBatchStatement(String sql,
+            IDatabaseConnection connection) throws SQLException {
+        return new PreparedBatchStatement(getDatabase(connection).compileStatement(sql));
+    }
+
+    private static SQLiteDatabase getDatabase(IDatabaseConnection connection) throws SQLException {
+        if(!(connection instanceof AndroidSQLiteDatabaseConnection)) {
+            throw new SQLException(AndroidSQLiteStatementFactory.class.getSimpleName()
+                    + " requires an " + AndroidSQLiteDatabaseConnection.class.getSimpleName() + ".");
+        }
+
+        return ((AndroidSQLiteDatabaseConnection)connection).getDatabase();
+    }
+
+    private static class BatchStatement implements IBatchStatement {
+        private final SQLiteDatabase database;
+        private final List<String> statements = new ArrayList<String>();
+
+        private BatchStatement(SQLiteDatabase database) {
+            this.database = database;
+        }
+
+        @Override
+        public void addBatch(String sql) throws SQLException {
+            statements.add(sql);
+        }
+
+        @Override
+        public int executeBatch() throws SQLException {
+            int changedRowCount = 0;
+            for(String sql : statements) {
+                SQLiteStatement statement = database.compileStatement(sql);
+                try {
+                    changedRowCount += statement.executeUpdateDelete();
+                } finally {
+                    statement.close();
+                }
+            }
+
+            return changedRowCount;
+        }
+
+        @Override
+        public void clearBatch() throws SQLException {
+            statements.clear();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statements.clear();
+        }
+    }
+
+    /**
+     * Prepared statement that executes each row as it's added. A compiled SQLiteStatement executes
+     * in native code without any per-row parsing, so there's nothing to be gained by deferring
+     * execution until {@link #executeBatch()}.
+     */
+    private static class PreparedBatchStatement implements IPreparedBatchStatement {
+        private final SQLiteStatement statement;
+        private int index = 0;
+        private int changedRowCount = 0;
+
+        private PreparedBatchStatement(SQLiteStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public void addValue(Object value, DataType dataType) throws TypeCastException, SQLException {
+            SQLiteSql.bind(statement, ++index, dataType.typeCast(value));
+        }
+
+        @Override
+        public void addBatch() throws SQLException {
+            changedRowCount += statement.executeUpdateDelete();
+
+            statement.clearBindings();
+            index = 0;
+        }
+
+        @Override
+        public int executeBatch() throws SQLException {
+            int result = changedRowCount;
+            changedRowCount = 0;
+
+            return result;
+        }
+
+        @Override
+        public void clearBatch() throws SQLException {
+            statement.clearBindings();
+            index = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.ITable;
+
+import java.sql.SQLException;
+
+/**
+ * Helper methods for executing SQL through an {@link IDatabaseConnection}, whether it's backed by
+ * JDBC or by an {@link AndroidSQLiteDatabaseConnection}.
+ */
+public class DatabaseConnectionUtils {
+    private DatabaseConnectionUtils() { }
+
+    /**
+     * Executes the given statements, in order, using the statement factory configured for the
+     * connection.
+     *
+     * @return The total number of rows changed by the statements.
+     */
+    public static int execute(IDatabaseConnection connection, String... statements) throws SQLException {
+        IBatchStatement batchStatement = getStatementFactory(connection).createBatchStatement(connection);
+        try {
+            for(String statement : statements) {
+                batchStatement.addBatch(statement);
+            }
+
+            return batchStatement.executeBatch();
+        } finally {
+            batchStatement.close();
+        }
+    }
+
+    /**
+     * @return The value of the first column of the first row returned by the given query, or null
+     * if the query returns no rows.
+     */
+    public static Object queryForValue(IDatabaseConnection connection, String query)
+            throws SQLException, DatabaseUnitException {
+        ITable table = connection.createQueryTable("result", query);
+        if(table.getRowCount() == 0) {
+            return null;
+        }
+
+        return table.getValue(0, table.getTableMetaData().getColumns()[0].getColumnName());
+    }
+
+    /**
+     * @return The value of the first column of the first row returned by the given query, as a
+     * long. Drivers differ in the types they return for the same query, so the value may be any
+     * {@link Number} or a string of one.
+     *
+     * @throws SQLException If the query returns no rows, or a value that isn't an integer.
+     */
+    public static long queryForLong(IDatabaseConnection connection, String query)
+            throws SQLException, DatabaseUnitException {
+        Object value = queryForValue(connection, query);
+        if(value instanceof Number) {
+            return ((Number)value).longValue();
+        }
+
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch(NumberFormatException e) {
+            throw new SQLException("Query returned " + value + " rather than an integer: " + query, e);
+        }
+    }
+
+    /** @return The statement factory configured for the given connection. */
+    public static IStatementFactory getStatementFactory(IDatabaseConnection connection) {
+        return (IStatementFactory)connection.getConfig()
+                .getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+    }
+}
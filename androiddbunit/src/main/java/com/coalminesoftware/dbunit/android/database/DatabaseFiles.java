@@ -0,0 +1,82 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import com.coalminesoftware.dbunit.android.closeable.CloseableTemplate;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/** Helper methods for working with SQLite database files and the auxiliary files SQLite creates. */
+public class DatabaseFiles {
+    private static final String[] AUXILIARY_FILE_SUFFIXES = new String[] {
+            "-journal",
+            "-wal",
+            "-shm"};
+
+    private DatabaseFiles() { }
+
+    /**
+     * Copies the given database file, replacing the destination and removing any journal or WAL
+     * files left behind for it. The source database is expected to be closed.
+     */
+    public static void copy(final File source, final File destination) throws IOException {
+        delete(destination);
+
+        File parent = destination.getParentFile();
+        if(parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent + ".");
+        }
+
+        try {
+            new CloseableTemplate<Void, FileChannel>() {
+                @Override
+                protected FileChannel openCloseable() throws IOException {
+                    return new FileInputStream(source).getChannel();
+                }
+
+                @Override
+                protected Void useCloseable(final FileChannel sourceChannel) throws Exception {
+                    return new CloseableTemplate<Void, FileChannel>() {
+                        @Override
+                        protected FileChannel openCloseable() throws IOException {
+                            return new FileOutputStream(destination).getChannel();
+                        }
+
+                        @Override
+                        protected Void useCloseable(FileChannel destinationChannel) throws IOException {
+                            long size = sourceChannel.size();
+                            long position = 0;
+                            while(position < size) {
+                                position += sourceChannel.transferTo(position, size - position, destinationChannel);
+                            }
+
+                            return null;
+                        }
+                    }.execute();
+                }
+            }.execute();
+        } catch(IOException e) {
+            throw e;
+        } catch(Exception e) {
+            throw new IOException("Unable to copy " + source + " to " + destination + ".", e);
+        }
+    }
+
+    /**
+     * Deletes the given database file along with its journal and WAL files, if they exist.
+     *
+     * @return Whether the database file itself existed and was deleted.
+     */
+    public static boolean delete(File databaseFile) {
+        for(String suffix : AUXILIARY_FILE_SUFFIXES) {
+            File auxiliaryFile = new File(databaseFile.getPath() + suffix);
+            if(auxiliaryFile.exists()) {
+                auxiliaryFile.delete();
+            }
+        }
+
+        return databaseFile.delete();
+    }
+}
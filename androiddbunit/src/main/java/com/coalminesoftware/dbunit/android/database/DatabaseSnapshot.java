@@ -0,0 +1,231 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A copy of the rows of every table in a database, taken so that the database can be returned to
+ * the same state any number of times, such as to try several branches of a scenario from the same
+ * intermediate step.
+ * <p>
+ * The copy is made within SQLite, into a database attached to the connection, so no rows pass
+ * through Java. Restoring a snapshot deletes each table's rows and copies them back in a single
+ * transaction, which is far cheaper than re-executing a data set's inserts. Only rows are
+ * restored: the schema must be unchanged since the snapshot was taken. Triggers fire as rows are
+ * restored, as they would for any other insert or delete.
+ * <p>
+ * Tables used internally by SQLite and this library are not copied, with the exception of
+ * sqlite_sequence, so that AUTOINCREMENT keys are restored as well. Virtual tables are skipped in
+ * favor of the tables backing them.
+ */
+public class DatabaseSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseSnapshot.class);
+
+    /** Name under which a snapshot is attached to a connection, followed by a unique number. */
+    private static final String SCHEMA_NAME_PREFIX = "dbunit_snapshot_";
+    private static final String SAVEPOINT_NAME = "dbunit_restore";
+    private static final String SEQUENCE_TABLE_NAME = "sqlite_sequence";
+    /** The snapshot's copy of sqlite_sequence, since tables with sqlite_ names can't be created. */
+    private static final String SEQUENCE_COPY_TABLE_NAME = "dbunit_sequence";
+
+    private static int nextSchemaNumber;
+
+    private final File file;
+    private final String schemaName;
+    private final String schemaFingerprint;
+    private final List<String> tableNames;
+    private final boolean sequenceCopied;
+    private final long size;
+    private final long creationNanos;
+
+    private DatabaseSnapshot(File file, String schemaName, String schemaFingerprint,
+            List<String> tableNames, boolean sequenceCopied, long size, long creationNanos) {
+        this.file = file;
+        this.schemaName = schemaName;
+        this.schemaFingerprint = schemaFingerprint;
+        this.tableNames = tableNames;
+        this.sequenceCopied = sequenceCopied;
+        this.size = size;
+        this.creationNanos = creationNanos;
+    }
+
+    /**
+     * Copies the rows of the connection's database into a database attached to the connection.
+     * Must not be called while the connection has a transaction in progress, since SQLite can't
+     * attach databases within a transaction.
+     *
+     * @param file The file to copy the rows into, which is overwritten if it exists, or null to
+     * keep the copy in memory.
+     */
+    public static DatabaseSnapshot create(IDatabaseConnection connection, File file)
+            throws SQLException, DatabaseUnitException {
+        long startTime = System.nanoTime();
+
+        if(file != null && file.exists() && !file.delete()) {
+            throw new SQLException("Unable to delete existing snapshot file " + file + ".");
+        }
+
+        String schemaName = SCHEMA_NAME_PREFIX + getNextSchemaNumber();
+        String quotedSchemaName = SQLiteSql.quoteIdentifier(schemaName);
+        execute(connection, "ATTACH DATABASE " + quoteString(file == null ? ":memory:" : file.getAbsolutePath())
+                + " AS " + quotedSchemaName);
+
+        // The copy can be thrown away if the process dies, so it isn't worth journaling or syncing.
+        DatabaseConnectionUtils.queryForValue(connection, "PRAGMA " + quotedSchemaName + ".journal_mode = OFF");
+        execute(connection, "PRAGMA " + quotedSchemaName + ".synchronous = OFF");
+
+        ITable tables = connection.createQueryTable("tables",
+                "SELECT name FROM main.sqlite_master WHERE type = 'table'"
+                        + " AND name NOT LIKE 'sqlite\\_%' ESCAPE '\\'"
+                        + " AND name NOT LIKE 'dbunit\\_%' ESCAPE '\\'"
+                        + " AND sql NOT LIKE 'CREATE VIRTUAL TABLE%'"
+                        + " ORDER BY rowid");
+
+        List<String> tableNames = new ArrayList<String>();
+        List<String> statements = new ArrayList<String>();
+        for(int row = 0; row < tables.getRowCount(); row++) {
+            String tableName = (String)tables.getValue(row, "name");
+            tableNames.add(tableName);
+            statements.add("CREATE TABLE " + quotedSchemaName + "." + SQLiteSql.quoteIdentifier(tableName)
+                    + " AS SELECT * FROM main." + SQLiteSql.quoteIdentifier(tableName));
+        }
+
+        boolean sequenceCopied = DatabaseConnectionUtils.queryForLong(connection,
+                "SELECT COUNT(*) FROM main.sqlite_master WHERE type = 'table' AND name = '" + SEQUENCE_TABLE_NAME + "'") > 0;
+        if(sequenceCopied) {
+            statements.add("CREATE TABLE " + quotedSchemaName + "." + SEQUENCE_COPY_TABLE_NAME
+                    + " AS SELECT * FROM main." + SEQUENCE_TABLE_NAME);
+        }
+
+        executeInTransaction(connection, statements);
+
+        long size = DatabaseConnectionUtils.queryForLong(connection, "PRAGMA " + quotedSchemaName + ".page_count")
+                * DatabaseConnectionUtils.queryForLong(connection, "PRAGMA " + quotedSchemaName + ".page_size");
+
+        return new DatabaseSnapshot(file, schemaName, SchemaFingerprint.of(connection), tableNames,
+                sequenceCopied, size, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Replaces the rows of the connection's database with those in the snapshot. The connection
+     * must be the one the snapshot was taken through.
+     *
+     * @throws IllegalStateException If the database's schema has changed since the snapshot was
+     * taken.
+     */
+    public void restore(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        if(!schemaFingerprint.equals(SchemaFingerprint.of(connection))) {
+            throw new IllegalStateException("The database's schema has changed since the snapshot was taken.");
+        }
+
+        String quotedSchemaName = SQLiteSql.quoteIdentifier(schemaName);
+        List<String> statements = new ArrayList<String>();
+
+        // Delete every table's rows before restoring any, so rows added by triggers as other
+        // tables are restored aren't deleted.
+        for(int i = tableNames.size() - 1; i >= 0; i--) {
+            statements.add("DELETE FROM main." + SQLiteSql.quoteIdentifier(tableNames.get(i)));
+        }
+
+        for(String tableName : tableNames) {
+            statements.add("INSERT INTO main." + SQLiteSql.quoteIdentifier(tableName)
+                    + " SELECT * FROM " + quotedSchemaName + "." + SQLiteSql.quoteIdentifier(tableName));
+        }
+
+        if(sequenceCopied) {
+            statements.add("DELETE FROM main." + SEQUENCE_TABLE_NAME);
+            statements.add("INSERT INTO main." + SEQUENCE_TABLE_NAME
+                    + " SELECT * FROM " + quotedSchemaName + "." + SEQUENCE_COPY_TABLE_NAME);
+        }
+
+        executeInTransaction(connection, statements);
+    }
+
+    /**
+     * Detaches the snapshot from the connection it was taken through and deletes its file. The
+     * snapshot can't be restored afterward.
+     */
+    public void release(IDatabaseConnection connection) throws SQLException {
+        try {
+            execute(connection, "DETACH DATABASE " + SQLiteSql.quoteIdentifier(schemaName));
+        } finally {
+            deleteFile();
+        }
+    }
+
+    /** Deletes the snapshot's file, as when the connection it was attached to is already closed. */
+    public void deleteFile() {
+        // There's no journal to delete along with the file, since journaling is turned off.
+        if(file != null && file.exists() && !file.delete()) {
+            LOGGER.warn("Unable to delete snapshot file {}.", file);
+        }
+    }
+
+    /** @return The size of the snapshot's copy of the database, in bytes. */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return The time taken to create the snapshot, in nanoseconds. */
+    public long getCreationNanos() {
+        return creationNanos;
+    }
+
+    private static synchronized int getNextSchemaNumber() {
+        return nextSchemaNumber++;
+    }
+
+    private static void execute(IDatabaseConnection connection, String sql) throws SQLException {
+        if(connection instanceof AndroidSQLiteDatabaseConnection) {
+            // SQLiteDatabase keeps track of attached databases, but only when they're attached
+            // through execSQL().
+            ((AndroidSQLiteDatabaseConnection)connection).getDatabase().execSQL(sql);
+        } else {
+            DatabaseConnectionUtils.execute(connection, sql);
+        }
+    }
+
+    /**
+     * Executes the given statements in a transaction, nested within any the connection already has
+     * in progress, as {@link RollbackTransaction} does.
+     */
+    private static void executeInTransaction(IDatabaseConnection connection, List<String> statements)
+            throws SQLException {
+        String[] statementArray = statements.toArray(new String[statements.size()]);
+
+        if(connection instanceof AndroidSQLiteDatabaseConnection) {
+            SQLiteDatabase database = ((AndroidSQLiteDatabaseConnection)connection).getDatabase();
+            database.beginTransactionNonExclusive();
+            try {
+                DatabaseConnectionUtils.execute(connection, statementArray);
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } else {
+            DatabaseConnectionUtils.execute(connection, "SAVEPOINT " + SAVEPOINT_NAME);
+            try {
+                DatabaseConnectionUtils.execute(connection, statementArray);
+            } catch(SQLException e) {
+                DatabaseConnectionUtils.execute(connection, "ROLLBACK TO " + SAVEPOINT_NAME);
+                throw e;
+            } finally {
+                DatabaseConnectionUtils.execute(connection, "RELEASE " + SAVEPOINT_NAME);
+            }
+        }
+    }
+
+    private static String quoteString(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
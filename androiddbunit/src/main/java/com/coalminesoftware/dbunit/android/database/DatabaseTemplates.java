@@ -0,0 +1,124 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains "golden" template databases. Each template is created once, from a schema revision and
+ * the SQL used to create the schema, and is then copied whenever a database with that schema is
+ * needed. Copying a file is far cheaper than replaying a large schema's DDL for every test.
+ * <p>
+ * Templates are stored in the given template directory, normally the target application's cache
+ * directory, under a "dbunit_template_" prefix that keeps them apart from the application's own
+ * files. Each is named after the database it's a template for and a fingerprint of the schema
+ * revision and creation SQL, so they survive across test runs until the schema changes, and are
+ * shared by tests whose contexts are namespaced apart. The first time a process asks for a
+ * database's template, that database's templates with any other fingerprint are deleted, since
+ * they were built for a schema that has since changed.
+ */
+public class DatabaseTemplates {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseTemplates.class);
+
+    private static final String TEMPLATE_NAME_PREFIX = "dbunit_template_";
+    private static final String TEMPLATE_NAME_FORMAT = TEMPLATE_NAME_PREFIX + "%s_%s.sqlite";
+    /** Matches template names, capturing the database name and the schema fingerprint. */
+    private static final Pattern TEMPLATE_NAME = Pattern.compile(
+            Pattern.quote(TEMPLATE_NAME_PREFIX) + "(.+)_([0-9a-f]{40})\\.sqlite");
+    private static final String INCOMPLETE_TEMPLATE_SUFFIX = ".incomplete";
+
+    /** Databases whose stale templates have been deleted by this process. */
+    private static final Set<String> cleanedDatabaseNames = new HashSet<String>();
+
+    private DatabaseTemplates() { }
+
+    /**
+     * Creates the named database by copying the template for the given schema, creating the
+     * template first if necessary.
+     *
+     * @param templateDirectory The directory in which templates are kept, such as the target
+     * application's {@link Context#getCacheDir() cache directory}.
+     * @param schemaRevision The schema version number to initialize the database with.
+     * @param schemaCreationSql SQL commands, separated by line breaks, to create tables, views,
+     * indexes, etc.
+     *
+     * @see DatabaseUtils#createDbFromSqlStatements(Context, String, int, String)
+     */
+    public static void createDatabase(Context context, File templateDirectory, String databaseName,
+            int schemaRevision, String schemaCreationSql) throws IOException {
+        File template = getTemplate(context, templateDirectory, databaseName, schemaRevision, schemaCreationSql);
+
+        DatabaseFiles.copy(template, context.getDatabasePath(databaseName));
+    }
+
+    /**
+     * @return The template for the named database with the given schema, which is created if it
+     * doesn't already exist.
+     */
+    public static synchronized File getTemplate(Context context, File templateDirectory, String databaseName,
+            int schemaRevision, String schemaCreationSql) {
+        String fingerprint = Digests.sha1(schemaRevision + "\n" + schemaCreationSql);
+        File template = new File(templateDirectory, String.format(TEMPLATE_NAME_FORMAT, databaseName, fingerprint));
+
+        if(cleanedDatabaseNames.add(databaseName)) {
+            deleteStaleTemplates(templateDirectory, databaseName, fingerprint);
+        }
+
+        // Templates are checked for every time, since the cache directory may be cleared at any time.
+        if(!template.exists()) {
+            createTemplate(context, template, schemaRevision, schemaCreationSql);
+        }
+
+        return template;
+    }
+
+    private static void createTemplate(Context context, File template, int schemaRevision,
+            String schemaCreationSql) {
+        File templateDirectory = template.getParentFile();
+        if(!templateDirectory.isDirectory() && !templateDirectory.mkdirs()) {
+            throw new IllegalStateException("Unable to create template directory " + templateDirectory + ".");
+        }
+
+        // Build the template under a temporary name and rename it once complete, so that a run
+        // that dies part way through can never leave behind a template that looks usable. The
+        // temporary database is named through the context, keeping it apart from any being built
+        // concurrently by tests in other namespaces.
+        String incompleteTemplateName = template.getName() + INCOMPLETE_TEMPLATE_SUFFIX;
+        File incompleteTemplate = context.getDatabasePath(incompleteTemplateName);
+        DatabaseFiles.delete(incompleteTemplate);
+
+        SchemaApplier.apply(context, incompleteTemplateName, schemaRevision, schemaCreationSql);
+
+        if(!incompleteTemplate.renameTo(template)) {
+            throw new IllegalStateException("Unable to finalize template database " + template.getName() + ".");
+        }
+
+        // Remove any journal left behind under the temporary name.
+        DatabaseFiles.delete(incompleteTemplate);
+    }
+
+    /** Deletes the named database's templates whose fingerprint differs from the given one. */
+    private static void deleteStaleTemplates(File templateDirectory, String databaseName, String fingerprint) {
+        File[] files = templateDirectory.listFiles();
+        if(files == null) {
+            return;
+        }
+
+        for(File file : files) {
+            Matcher matcher = TEMPLATE_NAME.matcher(file.getName());
+            if(matcher.matches() && matcher.group(1).equals(databaseName) && !matcher.group(2).equals(fingerprint)) {
+                LOGGER.debug("Deleting template {}, built for an earlier schema of {}.", file, databaseName);
+                DatabaseFiles.delete(file);
+            }
+        }
+    }
+}
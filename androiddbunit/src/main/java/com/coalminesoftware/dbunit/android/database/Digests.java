@@ -0,0 +1,47 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** Helpers for producing hex-encoded SHA-1 digests of strings. */
+class Digests {
+    private Digests() { }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void update(MessageDigest digest, String value) {
+        try {
+            digest.update(String.valueOf(value).getBytes("UTF-8"));
+        } catch(UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // Separate values so that, for example, "ab" + "c" and "a" + "bc" produce different digests.
+        digest.update((byte)0);
+    }
+
+    static String toHex(MessageDigest digest) {
+        byte[] hash = digest.digest();
+
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+        for(byte b : hash) {
+            builder.append(String.format("%02x", b));
+        }
+
+        return builder.toString();
+    }
+
+    static String sha1(String value) {
+        MessageDigest digest = newDigest();
+        update(digest, value);
+
+        return toHex(digest);
+    }
+}
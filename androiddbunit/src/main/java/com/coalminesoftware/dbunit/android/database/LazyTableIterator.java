@@ -0,0 +1,45 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+
+/** Table iterator that only retrieves a table from its data set when it's requested. */
+class LazyTableIterator implements ITableIterator {
+    private final IDataSet dataSet;
+    private final String[] tableNames;
+    private final boolean reversed;
+    private int position = -1;
+
+    LazyTableIterator(IDataSet dataSet, String[] tableNames, boolean reversed) {
+        this.dataSet = dataSet;
+        this.tableNames = tableNames;
+        this.reversed = reversed;
+    }
+
+    @Override
+    public boolean next() throws DataSetException {
+        return ++position < tableNames.length;
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData() throws DataSetException {
+        return dataSet.getTableMetaData(getCurrentTableName());
+    }
+
+    @Override
+    public ITable getTable() throws DataSetException {
+        return dataSet.getTable(getCurrentTableName());
+    }
+
+    private String getCurrentTableName() throws DataSetException {
+        if(position < 0 || position >= tableNames.length) {
+            throw new NoSuchTableException("Table iterator is not positioned on a table.");
+        }
+
+        return tableNames[reversed ? tableNames.length - 1 - position : position];
+    }
+}
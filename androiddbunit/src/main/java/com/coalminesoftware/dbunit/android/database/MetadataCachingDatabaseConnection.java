@@ -0,0 +1,162 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.DatabaseDataSet;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * JDBC connection whose data sets take table names and metadata from the process-wide
+ * {@link SchemaMetadataCache}, only falling back to the comparatively slow
+ * {@link java.sql.DatabaseMetaData} calls DBUnit otherwise makes for every new connection when the
+ * schema's metadata isn't cached yet.
+ * <p>
+ * The schema is fingerprinted each time a data set is created, so metadata is never reused after
+ * the schema changes, as it does when a database is upgraded. Metadata is also only shared between
+ * connections whose {@link DatabaseConfig} reads it the same way, such as with the same data type
+ * factory.
+ */
+public class MetadataCachingDatabaseConnection extends DatabaseConnection {
+    public MetadataCachingDatabaseConnection(Connection connection, String schema) throws DatabaseUnitException {
+        super(connection, schema);
+    }
+
+    @Override
+    public IDataSet createDataSet() throws SQLException {
+        String schemaFingerprint;
+        try {
+            schemaFingerprint = SchemaFingerprint.of(this);
+        } catch(DatabaseUnitException e) {
+            throw new SQLException("Unable to fingerprint the database's schema.", e);
+        }
+
+        return new CachedMetadataDataSet(schemaFingerprint + "\n" + describeMetadataConfig());
+    }
+
+    /**
+     * @return A description of the configuration that affects how metadata is read. Factories,
+     * handlers and filters are described by their class, since instances are commonly created anew
+     * for each test.
+     */
+    private String describeMetadataConfig() {
+        DatabaseConfig config = getConfig();
+
+        return getSchema()
+                + "\n" + describe(config.getProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY))
+                + "\n" + describe(config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER))
+                + "\n" + describe(config.getProperty(DatabaseConfig.PROPERTY_PRIMARY_KEY_FILTER))
+                + "\n" + describe(config.getProperty(DatabaseConfig.PROPERTY_TABLE_TYPE))
+                + "\n" + describe(config.getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN))
+                + "\n" + describe(config.getProperty(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES))
+                + "\n" + describe(config.getProperty(DatabaseConfig.FEATURE_QUALIFIED_TABLE_NAMES));
+    }
+
+    private static String describe(Object property) {
+        if(property == null || property instanceof String || property instanceof Boolean) {
+            return String.valueOf(property);
+        } else if(property instanceof Object[]) {
+            return Arrays.toString((Object[])property);
+        }
+
+        return property.getClass().getName();
+    }
+
+    /**
+     * Data set that reads table names and metadata from the cache, or from the connection's own
+     * data set when they aren't cached, and reads tables using that metadata.
+     */
+    private class CachedMetadataDataSet implements IDataSet {
+        private final String cacheKey;
+        private IDataSet databaseDataSet;
+
+        private CachedMetadataDataSet(String cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+
+        /** @return The connection's own data set, which is only created when metadata isn't cached. */
+        private IDataSet getDatabaseDataSet() throws DataSetException {
+            if(databaseDataSet == null) {
+                try {
+                    databaseDataSet = new DatabaseDataSet(MetadataCachingDatabaseConnection.this);
+                } catch(SQLException e) {
+                    throw new DataSetException("Unable to read the database's metadata.", e);
+                }
+            }
+
+            return databaseDataSet;
+        }
+
+        @Override
+        public String[] getTableNames() throws DataSetException {
+            String[] tableNames = SchemaMetadataCache.getTableNames(cacheKey);
+            if(tableNames == null) {
+                tableNames = getDatabaseDataSet().getTableNames();
+                SchemaMetadataCache.putTableNames(cacheKey, tableNames);
+            }
+
+            return tableNames;
+        }
+
+        @Override
+        public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+            String key = isCaseSensitiveTableNames() ? tableName : tableName.toUpperCase(Locale.US);
+
+            ITableMetaData metaData = SchemaMetadataCache.getTableMetaData(cacheKey, key);
+            if(metaData == null) {
+                metaData = SchemaMetadataCache.putTableMetaData(cacheKey, key,
+                        getDatabaseDataSet().getTableMetaData(tableName));
+            }
+
+            return metaData;
+        }
+
+        @Override
+        public ITable getTable(String tableName) throws DataSetException {
+            IResultSetTableFactory tableFactory = (IResultSetTableFactory)getConfig()
+                    .getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+            try {
+                return tableFactory.createTable(getTableMetaData(tableName), MetadataCachingDatabaseConnection.this);
+            } catch(SQLException e) {
+                throw new DataSetException("Unable to read table " + tableName + ".", e);
+            }
+        }
+
+        @Override
+        public ITable[] getTables() throws DataSetException {
+            String[] names = getTableNames();
+
+            ITable[] tables = new ITable[names.length];
+            for(int i = 0; i < names.length; i++) {
+                tables[i] = getTable(names[i]);
+            }
+
+            return tables;
+        }
+
+        @Override
+        public ITableIterator iterator() throws DataSetException {
+            return new LazyTableIterator(this, getTableNames(), false);
+        }
+
+        @Override
+        public ITableIterator reverseIterator() throws DataSetException {
+            return new LazyTableIterator(this, getTableNames(), true);
+        }
+
+        @Override
+        public boolean isCaseSensitiveTableNames() {
+            return Boolean.TRUE.equals(getConfig().getProperty(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records which tables have had rows inserted, updated or deleted, using triggers that add each
+ * modified table's name to a tracking table. Because the triggers are part of the database's
+ * schema, changes are tracked regardless of which connection makes them.
+ */
+public class ModifiedTableTracker {
+    public static final String TRACKING_TABLE_NAME = "dbunit_modified_tables";
+    private static final String TRIGGER_NAME_PREFIX = "dbunit_track_";
+    private static final String[] TRACKED_OPERATIONS = new String[] {
+            "INSERT",
+            "UPDATE",
+            "DELETE"};
+
+    private ModifiedTableTracker() { }
+
+    /**
+     * Creates the tracking table, if necessary, and a trigger for each operation on each table not
+     * used internally by SQLite, Android or this library. Previously recorded modifications are
+     * cleared.
+     */
+    public static void install(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        List<String> statements = new ArrayList<String>();
+        statements.add("CREATE TABLE IF NOT EXISTS " + TRACKING_TABLE_NAME + "(name TEXT PRIMARY KEY)");
+        statements.add("DELETE FROM " + TRACKING_TABLE_NAME);
+
+        ITable tables = connection.createQueryTable("tables",
+                "SELECT name FROM sqlite_master WHERE type = 'table'"
+                        + " AND name NOT LIKE 'sqlite\\_%' ESCAPE '\\'"
+                        + " AND name NOT LIKE 'dbunit\\_%' ESCAPE '\\'"
+                        + " AND name <> 'android_metadata'");
+        for(int row = 0; row < tables.getRowCount(); row++) {
+            String tableName = (String)tables.getValue(row, "name");
+
+            for(String operation : TRACKED_OPERATIONS) {
+                statements.add("CREATE TRIGGER IF NOT EXISTS "
+                        + SQLiteSql.quoteIdentifier(TRIGGER_NAME_PREFIX + tableName + "_" + operation.toLowerCase(Locale.US))
+                        + " AFTER " + operation + " ON " + SQLiteSql.quoteIdentifier(tableName)
+                        + " BEGIN INSERT OR IGNORE INTO " + TRACKING_TABLE_NAME
+                        + "(name) VALUES (" + quoteString(tableName) + "); END");
+            }
+        }
+
+        DatabaseConnectionUtils.execute(connection, statements.toArray(new String[statements.size()]));
+    }
+
+    /**
+     * Drops the triggers and tracking table created by {@link #install(IDatabaseConnection)}, so
+     * that they don't outlive the tests the database was populated for. Does nothing if tracking
+     * isn't installed.
+     */
+    public static void uninstall(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        List<String> statements = new ArrayList<String>();
+
+        ITable triggers = connection.createQueryTable("triggers",
+                "SELECT name FROM sqlite_master WHERE type = 'trigger'"
+                        + " AND name LIKE 'dbunit\\_track\\_%' ESCAPE '\\'");
+        for(int row = 0; row < triggers.getRowCount(); row++) {
+            statements.add("DROP TRIGGER IF EXISTS " + SQLiteSql.quoteIdentifier((String)triggers.getValue(row, "name")));
+        }
+        statements.add("DROP TABLE IF EXISTS " + TRACKING_TABLE_NAME);
+
+        DatabaseConnectionUtils.execute(connection, statements.toArray(new String[statements.size()]));
+    }
+
+    /** @return The names of the tables modified since tracking was installed or last cleared. */
+    public static String[] getModifiedTableNames(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        ITable table = connection.createQueryTable(TRACKING_TABLE_NAME,
+                "SELECT name FROM " + TRACKING_TABLE_NAME);
+
+        String[] tableNames = new String[table.getRowCount()];
+        for(int row = 0; row < tableNames.length; row++) {
+            tableNames[row] = (String)table.getValue(row, "name");
+        }
+
+        return tableNames;
+    }
+
+    /** Forgets all recorded modifications. */
+    public static void clear(IDatabaseConnection connection) throws SQLException {
+        DatabaseConnectionUtils.execute(connection, "DELETE FROM " + TRACKING_TABLE_NAME);
+    }
+
+    private static String quoteString(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
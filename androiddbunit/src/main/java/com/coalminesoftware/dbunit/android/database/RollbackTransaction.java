@@ -0,0 +1,212 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.sql.SQLException;
+
+/**
+ * A transaction opened on a test's database connection for the sole purpose of being rolled back,
+ * undoing whatever the test did through that connection.
+ * <p>
+ * On an {@link AndroidSQLiteDatabaseConnection}, the transaction is opened with
+ * {@link SQLiteDatabase#beginTransactionNonExclusive()}, so transactions the test itself begins on
+ * the same database are nested within it. On a JDBC connection, a SAVEPOINT is used.
+ * <p>
+ * Only changes made through the same connection are undone. Once the transaction has written to
+ * the database, it holds a lock that keeps other connections from writing, so code under test must
+ * share the test's connection. Changes that other connections commit anyway are detected with
+ * PRAGMA data_version where SQLite supports it, and otherwise through the file change counter in
+ * the database's header. In WAL mode, commits don't update the header, so without data_version no
+ * transaction is begun.
+ */
+public abstract class RollbackTransaction {
+    private static final String SAVEPOINT_NAME = "dbunit_rollback";
+    private static final int FILE_CHANGE_COUNTER_OFFSET = 24;
+
+    private final IDatabaseConnection connection;
+    private final File databaseFile;
+    private final Long initialDataVersion;
+    private final int initialFileChangeCounter;
+
+    private RollbackTransaction(IDatabaseConnection connection, File databaseFile, Long initialDataVersion)
+            throws SQLException {
+        this.connection = connection;
+        this.databaseFile = databaseFile;
+        this.initialDataVersion = initialDataVersion;
+        initialFileChangeCounter = readFileChangeCounter(databaseFile);
+    }
+
+    /**
+     * Begins a transaction on the given connection.
+     *
+     * @param databaseFile The connection's database file, used to detect changes committed by other
+     * connections. May be null if the database isn't backed by a file.
+     * @return The transaction, or null if changes committed by other connections couldn't be
+     * detected, as in WAL mode on versions of SQLite without PRAGMA data_version.
+     */
+    public static RollbackTransaction begin(IDatabaseConnection connection, File databaseFile)
+            throws SQLException, DatabaseUnitException {
+        Long dataVersion = readDataVersion(connection);
+        if(dataVersion == null && databaseFile != null && isWriteAheadLogging(connection)) {
+            return null;
+        }
+
+        return connection instanceof AndroidSQLiteDatabaseConnection
+                ? new NativeRollbackTransaction(connection, databaseFile, dataVersion)
+                : new SavepointRollbackTransaction(connection, databaseFile, dataVersion);
+    }
+
+    /**
+     * Rolls back the transaction.
+     *
+     * @return Whether the database was restored to its state from when the transaction began.
+     * False if the transaction was committed or ended before being rolled back, or if another
+     * connection committed changes to the database in the meantime.
+     */
+    public boolean rollback() throws SQLException, DatabaseUnitException {
+        return rollbackTransaction() && !isChangedByOtherConnections();
+    }
+
+    /**
+     * Commits the transaction, keeping the changes made within it and releasing its lock, so that
+     * other connections can write to the database.
+     *
+     * @return Whether the transaction was still active and was committed.
+     */
+    public abstract boolean commit() throws SQLException;
+
+    /** @return Whether the transaction was still active and was rolled back. */
+    protected abstract boolean rollbackTransaction() throws SQLException;
+
+    protected IDatabaseConnection getConnection() {
+        return connection;
+    }
+
+    private boolean isChangedByOtherConnections() throws SQLException, DatabaseUnitException {
+        // The data version only changes when another connection commits, in any journal mode.
+        return initialDataVersion != null
+                ? !initialDataVersion.equals(readDataVersion(connection))
+                : readFileChangeCounter(databaseFile) != initialFileChangeCounter;
+    }
+
+    /**
+     * @return The connection's PRAGMA data_version, or null if SQLite is too old to support it, in
+     * which case the pragma returns nothing.
+     */
+    private static Long readDataVersion(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        return DatabaseConnectionUtils.queryForValue(connection, "PRAGMA data_version") == null
+                ? null
+                : DatabaseConnectionUtils.queryForLong(connection, "PRAGMA data_version");
+    }
+
+    private static boolean isWriteAheadLogging(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        return "wal".equalsIgnoreCase(String.valueOf(
+                DatabaseConnectionUtils.queryForValue(connection, "PRAGMA journal_mode")));
+    }
+
+    /**
+     * @return The file change counter from the database's header, which SQLite increments every time
+     * a transaction modifying the file is committed, or 0 if there is no file.
+     * @see <a href="https://www.sqlite.org/fileformat2.html#file_change_counter">File change counter</a>
+     */
+    private static int readFileChangeCounter(File databaseFile) throws SQLException {
+        if(databaseFile == null || !databaseFile.exists()) {
+            return 0;
+        }
+
+        try {
+            RandomAccessFile file = new RandomAccessFile(databaseFile, "r");
+            try {
+                if(file.length() < FILE_CHANGE_COUNTER_OFFSET + 4) {
+                    return 0;
+                }
+
+                file.seek(FILE_CHANGE_COUNTER_OFFSET);
+                return file.readInt();
+            } finally {
+                file.close();
+            }
+        } catch(IOException e) {
+            throw new SQLException("Unable to read header of database file " + databaseFile + ".", e);
+        }
+    }
+
+    private static class NativeRollbackTransaction extends RollbackTransaction {
+        private final SQLiteDatabase database;
+
+        private NativeRollbackTransaction(IDatabaseConnection connection, File databaseFile, Long initialDataVersion)
+                throws SQLException {
+            super(connection, databaseFile, initialDataVersion);
+
+            database = ((AndroidSQLiteDatabaseConnection)connection).getDatabase();
+            database.beginTransactionNonExclusive();
+        }
+
+        @Override
+        public boolean commit() {
+            // Only the thread that began the transaction can end it.
+            if(!database.inTransaction()) {
+                return false;
+            }
+
+            database.setTransactionSuccessful();
+            database.endTransaction();
+            return true;
+        }
+
+        @Override
+        protected boolean rollbackTransaction() {
+            // Transactions belong to the thread that began them, so if the test ended this one, no
+            // transaction will be in progress. Any left open by the test are nested within this one.
+            if(!database.inTransaction()) {
+                return false;
+            }
+
+            while(database.inTransaction()) {
+                database.endTransaction();
+            }
+
+            return true;
+        }
+    }
+
+    private static class SavepointRollbackTransaction extends RollbackTransaction {
+        private SavepointRollbackTransaction(IDatabaseConnection connection, File databaseFile, Long initialDataVersion)
+                throws SQLException {
+            super(connection, databaseFile, initialDataVersion);
+
+            DatabaseConnectionUtils.execute(connection, "SAVEPOINT " + SAVEPOINT_NAME);
+        }
+
+        @Override
+        public boolean commit() {
+            try {
+                // Releasing the outermost savepoint commits the transaction it began.
+                DatabaseConnectionUtils.execute(getConnection(), "RELEASE " + SAVEPOINT_NAME);
+                return true;
+            } catch(SQLException e) {
+                return false;
+            }
+        }
+
+        @Override
+        protected boolean rollbackTransaction() {
+            try {
+                // Rolling back to the savepoint fails if the test committed or released it.
+                DatabaseConnectionUtils.execute(getConnection(),
+                        "ROLLBACK TO " + SAVEPOINT_NAME,
+                        "RELEASE " + SAVEPOINT_NAME);
+
+                return true;
+            } catch(SQLException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.dataset.SortedTable;
+import org.dbunit.dataset.filter.ITableFilterSimple;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Data set representing the tables of a SQLite database, through either a JDBC connection or an
+ * {@link AndroidSQLiteDatabaseConnection}. Rather than reading every table's metadata up front, as
+ * DBUnit's JDBC data set does through {@link java.sql.DatabaseMetaData}, table names are read with
+ * a single sqlite_master query when first needed and filtered immediately. Each table's metadata
+ * is read with PRAGMA table_info the first time the table is referenced, and a table's rows are
+ * queried each time it's retrieved.
+ */
+public class SQLiteConnectionDataSet implements IDataSet {
+    private final IDatabaseConnection connection;
+    private final ITableFilterSimple tableFilter;
+    private final boolean sorted;
+    private String[] tableNames;
+    private final Map<String, ITableMetaData> tableMetaData = new HashMap<String, ITableMetaData>();
+
+    /** Creates a data set of all of the connection's tables, ordered by their primary keys. */
+    public SQLiteConnectionDataSet(IDatabaseConnection connection) {
+        this(connection, null, false);
+    }
+
+    /**
+     * @param tableFilter Filter that tables must be accepted by to be included, or null to include
+     * every table.
+     * @param sorted Whether to sort each table's rows by all of its columns, as a
+     * {@link org.dbunit.dataset.SortedDataSet} would, rather than by its primary key. Tables are
+     * only sorted once they're retrieved.
+     */
+    public SQLiteConnectionDataSet(IDatabaseConnection connection, ITableFilterSimple tableFilter, boolean sorted) {
+        this.connection = connection;
+        this.tableFilter = tableFilter;
+        this.sorted = sorted;
+    }
+
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        if(tableNames == null) {
+            tableNames = readTableNames();
+        }
+
+        return tableNames.clone();
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        String canonicalName = getCanonicalTableName(tableName);
+        String key = canonicalName.toUpperCase(Locale.US);
+
+        ITableMetaData metaData = tableMetaData.get(key);
+        if(metaData == null) {
+            metaData = readTableMetaData(canonicalName);
+            tableMetaData.put(key, metaData);
+        }
+
+        return metaData;
+    }
+
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        ITable table = createTable(getTableMetaData(tableName));
+
+        return sorted ? new SortedTable(table) : table;
+    }
+
+    @Override
+    public ITable[] getTables() throws DataSetException {
+        String[] names = getTableNames();
+
+        ITable[] tables = new ITable[names.length];
+        for(int i = 0; i < names.length; i++) {
+            tables[i] = getTable(names[i]);
+        }
+
+        return tables;
+    }
+
+    @Override
+    public ITableIterator iterator() throws DataSetException {
+        return new LazyTableIterator(this, getTableNames(), false);
+    }
+
+    @Override
+    public ITableIterator reverseIterator() throws DataSetException {
+        return new LazyTableIterator(this, getTableNames(), true);
+    }
+
+    @Override
+    public boolean isCaseSensitiveTableNames() {
+        return false;
+    }
+
+    /** @return The table's name as it's declared in the database. */
+    private String getCanonicalTableName(String tableName) throws DataSetException {
+        for(String name : getTableNames()) {
+            if(name.equalsIgnoreCase(tableName)) {
+                return name;
+            }
+        }
+
+        throw new NoSuchTableException(tableName);
+    }
+
+    private String[] readTableNames() throws DataSetException {
+        ITable result = query("sqlite_master",
+                "SELECT name FROM sqlite_master WHERE type = 'table' ORDER BY name");
+
+        List<String> names = new ArrayList<String>();
+        for(int row = 0; row < result.getRowCount(); row++) {
+            String name = (String)result.getValue(row, "name");
+            if(tableFilter == null || tableFilter.accept(name)) {
+                names.add(name);
+            }
+        }
+
+        return names.toArray(new String[names.size()]);
+    }
+
+    private ITableMetaData readTableMetaData(String tableName) throws DataSetException {
+        ITable result = query(tableName, "PRAGMA table_info(" + SQLiteSql.quoteIdentifier(tableName) + ")");
+
+        List<Column> columns = new ArrayList<Column>();
+        final Map<String, Integer> primaryKeyPositions = new HashMap<String, Integer>();
+        List<String> primaryKeys = new ArrayList<String>();
+        for(int row = 0; row < result.getRowCount(); row++) {
+            String name = (String)result.getValue(row, "name");
+            String type = (String)result.getValue(row, "type");
+
+            columns.add(new Column(name,
+                    SQLiteSql.getDataType(type),
+                    type,
+                    getInt(result, row, "notnull") == 0 ? Column.NULLABLE : Column.NO_NULLS));
+
+            // The pk column holds each primary key column's 1-based position within the key,
+            // though older SQLite versions simply use 1 for every primary key column.
+            int primaryKeyPosition = getInt(result, row, "pk");
+            if(primaryKeyPosition > 0) {
+                primaryKeyPositions.put(name, primaryKeyPosition);
+                primaryKeys.add(name);
+            }
+        }
+
+        // The sort is stable, so key columns with the same position remain in declared order.
+        Collections.sort(primaryKeys, new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return primaryKeyPositions.get(lhs) - primaryKeyPositions.get(rhs);
+            }
+        });
+
+        return new DefaultTableMetaData(tableName,
+                columns.toArray(new Column[columns.size()]),
+                primaryKeys.toArray(new String[primaryKeys.size()]));
+    }
+
+    /** @return A table containing all of the described table's rows, ordered by its primary key. */
+    private ITable createTable(ITableMetaData metaData) throws DataSetException {
+        IResultSetTableFactory tableFactory = (IResultSetTableFactory)connection.getConfig()
+                .getProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY);
+        try {
+            return tableFactory.createTable(metaData, connection);
+        } catch(SQLException e) {
+            throw new DataSetException("Unable to read table " + metaData.getTableName() + ".", e);
+        }
+    }
+
+    private ITable query(String resultName, String sql) throws DataSetException {
+        try {
+            return connection.createQueryTable(resultName, sql);
+        } catch(SQLException e) {
+            throw new DataSetException("Unable to execute query: " + sql, e);
+        }
+    }
+
+    /** @return The given integer value, which JDBC drivers may return as a string. */
+    private static int getInt(ITable table, int row, String columnName) throws DataSetException {
+        Object value = table.getValue(row, columnName);
+
+        return value instanceof Number
+                ? ((Number)value).intValue()
+                : Integer.parseInt(String.valueOf(value));
+    }
+}
@@ -0,0 +1,125 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteProgram;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/** Helpers for building SQLite statements and converting values to and from SQLite's types. */
+public class SQLiteSql {
+    private SQLiteSql() { }
+
+    public static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * @return A statement selecting every column of the described table, ordered by the table's
+     * primary key if it has one.
+     */
+    public static String buildSelectStatement(ITableMetaData metaData) throws DataSetException {
+        StringBuilder builder = new StringBuilder("SELECT ");
+
+        Column[] columns = metaData.getColumns();
+        for(int i = 0; i < columns.length; i++) {
+            if(i > 0) {
+                builder.append(", ");
+            }
+            builder.append(quoteIdentifier(columns[i].getColumnName()));
+        }
+
+        builder.append(" FROM ").append(quoteIdentifier(metaData.getTableName()));
+
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+        for(int i = 0; i < primaryKeys.length; i++) {
+            builder.append(i == 0 ? " ORDER BY " : ", ")
+                    .append(quoteIdentifier(primaryKeys[i].getColumnName()));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @return The DBUnit data type for a column declared with the given type, based on the rules
+     * SQLite uses to determine a column's type affinity.
+     * @see <a href="https://www.sqlite.org/datatype3.html#determination_of_column_affinity">Determination of Column Affinity</a>
+     */
+    public static DataType getDataType(String declaredType) {
+        String type = declaredType == null ? "" : declaredType.toUpperCase(Locale.US);
+
+        if(type.contains("INT")) {
+            return DataType.BIGINT;
+        } else if(type.contains("CHAR") || type.contains("CLOB") || type.contains("TEXT")) {
+            return DataType.VARCHAR;
+        } else if(type.contains("BLOB")) {
+            return DataType.BLOB;
+        } else if(type.contains("REAL") || type.contains("FLOA") || type.contains("DOUB")) {
+            return DataType.DOUBLE;
+        } else {
+            // Columns without a declared type, or with NUMERIC affinity, can hold values of any type.
+            return DataType.UNKNOWN;
+        }
+    }
+
+    /** @return The DBUnit data type for the given {@link Cursor} field type. */
+    public static DataType getDataType(int cursorFieldType) {
+        switch(cursorFieldType) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return DataType.BIGINT;
+            case Cursor.FIELD_TYPE_FLOAT:
+                return DataType.DOUBLE;
+            case Cursor.FIELD_TYPE_STRING:
+                return DataType.VARCHAR;
+            case Cursor.FIELD_TYPE_BLOB:
+                return DataType.BLOB;
+            default:
+                return DataType.UNKNOWN;
+        }
+    }
+
+    /** @return The value of the given column in the cursor's current row, in its native type. */
+    public static Object getValue(Cursor cursor, int columnIndex) {
+        switch(cursor.getType(columnIndex)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(columnIndex);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(columnIndex);
+            case Cursor.FIELD_TYPE_STRING:
+                return cursor.getString(columnIndex);
+            case Cursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(columnIndex);
+            default:
+                return null;
+        }
+    }
+
+    /** Binds the given value to a program using the SQLite type most appropriate for it. */
+    public static void bind(SQLiteProgram program, int index, Object value) {
+        if(value == null) {
+            program.bindNull(index);
+        } else if(value instanceof Double || value instanceof Float) {
+            program.bindDouble(index, ((Number)value).doubleValue());
+        } else if(value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal)value;
+            try {
+                program.bindLong(index, decimal.longValueExact());
+            } catch(ArithmeticException e) {
+                program.bindDouble(index, decimal.doubleValue());
+            }
+        } else if(value instanceof Number) {
+            program.bindLong(index, ((Number)value).longValue());
+        } else if(value instanceof Boolean) {
+            program.bindLong(index, (Boolean)value ? 1 : 0);
+        } else if(value instanceof byte[]) {
+            program.bindBlob(index, (byte[])value);
+        } else {
+            program.bindString(index, value.toString());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.RawRes;
+
+import com.coalminesoftware.dbunit.android.closeable.CloseableTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Creates a database's schema from SQL, as
+ * {@link DatabaseUtils#createDbFromSqlStatements(Context, String, int, String)} does, but executes
+ * every statement in a single transaction and skips them altogether when the database already has
+ * the schema.
+ * <p>
+ * A hash of the schema revision and creation SQL is recorded in the database, along with a hash of
+ * the schema it produced. When both still match, and the database's version is the schema
+ * revision, the database's rows are deleted instead of its schema being recreated. Any change to
+ * the schema, like a test upgrading the database, causes the schema to be recreated by the next
+ * test.
+ * <p>
+ * Statements that SQLite doesn't allow within a transaction, or that have no effect within one,
+ * are executed outside of it, in their place among the other statements: VACUUM, ATTACH, DETACH
+ * and the journal_mode, locking_mode, foreign_keys, page_size and auto_vacuum pragmas. Creating a
+ * schema containing any of them is then no longer atomic, but the hashes are only recorded once
+ * every statement has been executed, so an interrupted schema creation is repeated in full.
+ */
+public class SchemaApplier {
+    /** Table in which the hashes are recorded, excluded from data sets as one of this library's own. */
+    public static final String SCHEMA_TABLE_NAME = "dbunit_schema";
+
+    private static final String STATEMENT_SEPARATOR = ";\n";
+    private static final Pattern NON_TRANSACTIONAL_STATEMENT = Pattern.compile(
+            "\\s*(?:VACUUM|ATTACH|DETACH"
+                    + "|PRAGMA\\s+(?:\\w+\\s*\\.\\s*)?(?:journal_mode|locking_mode|foreign_keys|page_size|auto_vacuum))\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final String NON_SCHEMA_TABLE_CLAUSE = "name NOT LIKE 'sqlite\\_%' ESCAPE '\\'"
+            + " AND name NOT LIKE 'dbunit\\_%' ESCAPE '\\'";
+
+    private SchemaApplier() { }
+
+    /**
+     * Gives the named database the schema created by the given SQL, with no rows in any of its
+     * tables.
+     *
+     * @param schemaRevision The schema version number to initialize the database with.
+     * @param schemaCreationSql SQL commands, separated by line breaks, to create tables, views,
+     * indexes, etc.
+     */
+    public static void apply(Context context, String databaseName, int schemaRevision, String schemaCreationSql) {
+        String creationSqlHash = Digests.sha1(schemaRevision + "\n" + schemaCreationSql);
+
+        SQLiteDatabase database = context.openOrCreateDatabase(databaseName, 0, null);
+        try {
+            boolean schemaCurrent;
+            database.beginTransaction();
+            try {
+                schemaCurrent = isSchemaCurrent(database, schemaRevision, creationSqlHash);
+                if(schemaCurrent) {
+                    deleteAllRows(database);
+                    database.setTransactionSuccessful();
+                }
+            } finally {
+                database.endTransaction();
+            }
+
+            if(!schemaCurrent) {
+                createSchema(database, schemaRevision, schemaCreationSql, creationSqlHash);
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    /** @return The schema creation SQL in the raw resource with the given ID. */
+    public static String readRawResource(final Context context, @RawRes final int rawResourceId) throws IOException {
+        return read(new CloseableTemplate<String, InputStream>() {
+            @Override
+            protected InputStream openCloseable() throws IOException {
+                return context.getResources().openRawResource(rawResourceId);
+            }
+
+            @Override
+            protected String useCloseable(InputStream inputStream) throws IOException {
+                return readUtf8(inputStream);
+            }
+        });
+    }
+
+    /** @return The schema creation SQL in the asset with the given name. */
+    public static String readAsset(final Context context, final String assetName) throws IOException {
+        return read(new CloseableTemplate<String, InputStream>() {
+            @Override
+            protected InputStream openCloseable() throws IOException {
+                return context.getAssets().open(assetName);
+            }
+
+            @Override
+            protected String useCloseable(InputStream inputStream) throws IOException {
+                return readUtf8(inputStream);
+            }
+        });
+    }
+
+    private static boolean isSchemaCurrent(SQLiteDatabase database, int schemaRevision, String creationSqlHash) {
+        if(database.getVersion() != schemaRevision || DatabaseUtils.longForQuery(database,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?",
+                new String[] { SCHEMA_TABLE_NAME }) == 0) {
+            return false;
+        }
+
+        Cursor cursor = database.rawQuery("SELECT creation_sql_hash, schema_hash FROM " + SCHEMA_TABLE_NAME, null);
+        try {
+            return cursor.moveToFirst()
+                    && creationSqlHash.equals(cursor.getString(0))
+                    && hashSchema(database).equals(cursor.getString(1));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Executes the creation SQL, grouping each run of statements that can be executed within a
+     * transaction into one, then records the version and hashes in a final transaction.
+     */
+    private static void createSchema(SQLiteDatabase database, int schemaRevision, String schemaCreationSql,
+            String creationSqlHash) {
+        List<String> transactionStatements = new ArrayList<String>();
+        for(String statement : schemaCreationSql.split(STATEMENT_SEPARATOR)) {
+            if(statement.trim().length() == 0) {
+                continue;
+            }
+
+            if(NON_TRANSACTIONAL_STATEMENT.matcher(statement).matches()) {
+                executeInTransaction(database, transactionStatements);
+                transactionStatements.clear();
+
+                executeOutsideTransaction(database, statement);
+            } else {
+                transactionStatements.add(statement);
+            }
+        }
+
+        database.beginTransaction();
+        try {
+            for(String statement : transactionStatements) {
+                database.execSQL(statement);
+            }
+            recordSchema(database, schemaRevision, creationSqlHash);
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    private static void executeInTransaction(SQLiteDatabase database, List<String> statements) {
+        if(statements.isEmpty()) {
+            return;
+        }
+
+        database.beginTransaction();
+        try {
+            for(String statement : statements) {
+                database.execSQL(statement);
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    /**
+     * Executes a statement as a query, since some, like PRAGMA journal_mode, return a row, which
+     * {@link SQLiteDatabase#execSQL(String)} doesn't allow.
+     */
+    private static void executeOutsideTransaction(SQLiteDatabase database, String statement) {
+        Cursor cursor = database.rawQuery(statement, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void recordSchema(SQLiteDatabase database, int schemaRevision, String creationSqlHash) {
+        database.setVersion(schemaRevision);
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS " + SCHEMA_TABLE_NAME
+                + "(creation_sql_hash TEXT NOT NULL, schema_hash TEXT NOT NULL)");
+        database.execSQL("DELETE FROM " + SCHEMA_TABLE_NAME);
+        database.execSQL("INSERT INTO " + SCHEMA_TABLE_NAME + "(creation_sql_hash, schema_hash) VALUES (?, ?)",
+                new Object[] { creationSqlHash, hashSchema(database) });
+    }
+
+    /**
+     * @return A hash of the definitions of the database's objects, other than those used internally
+     * by SQLite and this library.
+     */
+    private static String hashSchema(SQLiteDatabase database) {
+        MessageDigest digest = Digests.newDigest();
+
+        Cursor cursor = database.rawQuery("SELECT type, name, sql FROM sqlite_master"
+                + " WHERE " + NON_SCHEMA_TABLE_CLAUSE
+                + " ORDER BY type, name", null);
+        try {
+            while(cursor.moveToNext()) {
+                Digests.update(digest, cursor.getString(0));
+                Digests.update(digest, cursor.getString(1));
+                Digests.update(digest, cursor.getString(2));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return Digests.toHex(digest);
+    }
+
+    /** Deletes the rows of every table, and resets AUTOINCREMENT sequences, as recreating them would. */
+    private static void deleteAllRows(SQLiteDatabase database) {
+        List<String> tableNames = new ArrayList<String>();
+        Cursor cursor = database.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table'"
+                + " AND " + NON_SCHEMA_TABLE_CLAUSE
+                + " AND name <> 'android_metadata'", null);
+        try {
+            while(cursor.moveToNext()) {
+                tableNames.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for(String tableName : tableNames) {
+            database.execSQL("DELETE FROM " + SQLiteSql.quoteIdentifier(tableName));
+        }
+
+        if(DatabaseUtils.longForQuery(database,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_sequence'", null) > 0) {
+            database.execSQL("DELETE FROM sqlite_sequence");
+        }
+    }
+
+    private static String read(CloseableTemplate<String, InputStream> template) throws IOException {
+        try {
+            return template.execute();
+        } catch(IOException e) {
+            throw e;
+        } catch(Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String readUtf8(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int count; (count = inputStream.read(buffer)) != -1; ) {
+            outputStream.write(buffer, 0, count);
+        }
+
+        return outputStream.toString("UTF-8");
+    }
+}
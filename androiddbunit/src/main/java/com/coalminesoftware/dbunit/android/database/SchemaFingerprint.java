@@ -0,0 +1,35 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ITable;
+
+import java.security.MessageDigest;
+import java.sql.SQLException;
+
+/**
+ * Produces a fingerprint of a database's schema, from the definitions of every object in
+ * sqlite_master along with the database's user_version. Any change to the schema, like those made
+ * when a SQLiteOpenHelper upgrades a database, results in a different fingerprint.
+ */
+public class SchemaFingerprint {
+    private SchemaFingerprint() { }
+
+    /** @return A fingerprint of the schema of the given connection's database. */
+    public static String of(IDatabaseConnection connection) throws SQLException, DatabaseUnitException {
+        MessageDigest digest = Digests.newDigest();
+
+        Digests.update(digest, String.valueOf(
+                DatabaseConnectionUtils.queryForValue(connection, "PRAGMA user_version")));
+
+        ITable schema = connection.createQueryTable("sqlite_master",
+                "SELECT type, name, sql FROM sqlite_master ORDER BY type, name");
+        for(int row = 0; row < schema.getRowCount(); row++) {
+            Digests.update(digest, (String)schema.getValue(row, "type"));
+            Digests.update(digest, (String)schema.getValue(row, "name"));
+            Digests.update(digest, (String)schema.getValue(row, "sql"));
+        }
+
+        return Digests.toHex(digest);
+    }
+}
@@ -0,0 +1,96 @@
+package com.coalminesoftware.dbunit.android.database;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of table names and table metadata, keyed by the fingerprint of the schema
+ * they were read from and the configuration they were read with, so that metadata read through one
+ * connection can be reused by connections opened for later tests. Since any change to a schema
+ * changes its fingerprint, a changed schema's metadata is read anew rather than retrieved from the
+ * cache.
+ *
+ * @see SchemaFingerprint
+ * @see MetadataCachingDatabaseConnection
+ */
+public class SchemaMetadataCache {
+    /** The number of schemas, such as those before and after an upgrade, whose metadata is kept. */
+    private static final int MAX_SCHEMA_COUNT = 8;
+
+    private static final Map<String, SchemaMetadata> cache = new LinkedHashMap<String, SchemaMetadata>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SchemaMetadata> eldest) {
+            return size() > MAX_SCHEMA_COUNT;
+        }
+    };
+
+    private SchemaMetadataCache() { }
+
+    /** Removes all metadata from the cache. */
+    public static synchronized void clear() {
+        cache.clear();
+    }
+
+    /** @return The cached table names under the given cache key, or null. */
+    static synchronized String[] getTableNames(String cacheKey) {
+        SchemaMetadata metadata = cache.get(cacheKey);
+        return metadata == null || metadata.tableNames == null ? null : metadata.tableNames.clone();
+    }
+
+    static synchronized void putTableNames(String cacheKey, String[] tableNames) {
+        getSchemaMetadata(cacheKey).tableNames = tableNames.clone();
+    }
+
+    /**
+     * @return The cached metadata of the table with the given key, under the given cache key, or
+     * null.
+     */
+    static synchronized ITableMetaData getTableMetaData(String cacheKey, String tableKey) {
+        SchemaMetadata metadata = cache.get(cacheKey);
+        return metadata == null ? null : metadata.tableMetaData.get(tableKey);
+    }
+
+    /**
+     * Caches a copy of the given table metadata. The copy is fully read, so that it doesn't refer
+     * back to the connection it was read through.
+     *
+     * @return The cached copy.
+     */
+    static ITableMetaData putTableMetaData(String cacheKey, String tableKey, ITableMetaData metaData)
+            throws DataSetException {
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+        String[] primaryKeyNames = new String[primaryKeys.length];
+        for(int i = 0; i < primaryKeys.length; i++) {
+            primaryKeyNames[i] = primaryKeys[i].getColumnName();
+        }
+
+        ITableMetaData copy = new DefaultTableMetaData(metaData.getTableName(), metaData.getColumns(), primaryKeyNames);
+
+        synchronized(SchemaMetadataCache.class) {
+            getSchemaMetadata(cacheKey).tableMetaData.put(tableKey, copy);
+        }
+
+        return copy;
+    }
+
+    private static SchemaMetadata getSchemaMetadata(String cacheKey) {
+        SchemaMetadata metadata = cache.get(cacheKey);
+        if(metadata == null) {
+            metadata = new SchemaMetadata();
+            cache.put(cacheKey, metadata);
+        }
+
+        return metadata;
+    }
+
+    private static class SchemaMetadata {
+        private String[] tableNames;
+        private final Map<String, ITableMetaData> tableMetaData = new HashMap<String, ITableMetaData>();
+    }
+}
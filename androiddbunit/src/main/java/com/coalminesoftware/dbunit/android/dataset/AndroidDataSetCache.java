@@ -0,0 +1,351 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import android.content.Context;
+import android.support.annotation.RawRes;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process-wide cache of data sets parsed from local resources, so that a fixture used by many tests
+ * is only parsed once. Data sets are keyed by their format and the raw resource ID or filename
+ * they were loaded from, and the least recently used data sets are evicted once the estimated
+ * memory used by the cache exceeds its maximum size. Each data set is measured once it's loaded,
+ * and one that alone would exceed the maximum size isn't cached at all.
+ * <p>
+ * A data set requested while another thread is loading it, such as the
+ * {@link com.coalminesoftware.dbunit.android.Prefetcher}, is taken from that thread once loaded
+ * rather than being loaded again.
+ * <p>
+ * Cached data sets are shared, so their tables are wrapped so that they can only be read. Values
+ * like byte arrays are shared as they are, and must not be modified.
+ *
+ * @see AndroidDataSetUtils
+ */
+public class AndroidDataSetCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AndroidDataSetCache.class);
+
+    private static final long DEFAULT_MAX_SIZE_BYTES = Runtime.getRuntime().maxMemory() / 8;
+
+    /** Cached data sets, iterated from least to most recently used. */
+    private static final LinkedHashMap<String, CachedDataSet> cache = new LinkedHashMap<String, CachedDataSet>(16, 0.75f, true);
+    /** Data sets being loaded, keyed as in the cache, which are moved to the cache once loaded. */
+    private static final Map<String, FutureTask<CachedDataSet>> loadingDataSets = new HashMap<String, FutureTask<CachedDataSet>>();
+    private static long size;
+    private static long maxSize = DEFAULT_MAX_SIZE_BYTES;
+    private static int hitCount;
+    private static int missCount;
+
+    private AndroidDataSetCache() { }
+
+    /**
+     * @return A cached data set equivalent to the one created by
+     * {@link AndroidDataSetUtils#createFlatXmlDataSet(Context, int)}.
+     */
+    public static IDataSet getFlatXmlDataSet(final Context instrumentationContext, @RawRes final int rawResourceId) throws Exception {
+        return get(buildKey("flatXml", instrumentationContext, rawResourceId), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createFlatXmlDataSet(instrumentationContext, rawResourceId);
+            }
+        });
+    }
+
+    /**
+     * @return A cached data set equivalent to the one created by
+     * {@link AndroidDataSetUtils#createFlatXmlDataSet(Context, String)}.
+     */
+    public static IDataSet getFlatXmlDataSet(final Context context, final String resourcesFilename) throws Exception {
+        return get(buildKey("flatXml", resourcesFilename), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createFlatXmlDataSet(context, resourcesFilename);
+            }
+        });
+    }
+
+    /**
+     * @return A cached data set equivalent to the one created by
+     * {@link AndroidDataSetUtils#createXmlDataSet(Context, int)}.
+     */
+    public static IDataSet getXmlDataSet(final Context instrumentationContext, @RawRes final int rawResourceId) throws Exception {
+        return get(buildKey("xml", instrumentationContext, rawResourceId), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createXmlDataSet(instrumentationContext, rawResourceId);
+            }
+        });
+    }
+
+    /**
+     * @return A cached data set equivalent to the one created by
+     * {@link AndroidDataSetUtils#createXmlDataSet(Context, String)}.
+     */
+    public static IDataSet getXmlDataSet(final Context context, final String resourceFilename) throws Exception {
+        return get(buildKey("xml", resourceFilename), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createXmlDataSet(context, resourceFilename);
+            }
+        });
+    }
+
+    /**
+     * Loads the data set {@link #getFlatXmlDataSet(Context, int)} returns, if it isn't already
+     * cached or being loaded, but only caches it if it fits in the half of the cache that's left
+     * for prefetched data sets, so that it doesn't evict the data sets of running tests.
+     *
+     * @see com.coalminesoftware.dbunit.android.Prefetcher
+     */
+    public static void prefetchFlatXmlDataSet(final Context instrumentationContext, @RawRes final int rawResourceId) throws Exception {
+        get(buildKey("flatXml", instrumentationContext, rawResourceId), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createFlatXmlDataSet(instrumentationContext, rawResourceId);
+            }
+        }, true);
+    }
+
+    /**
+     * Loads the data set {@link #getXmlDataSet(Context, int)} returns, caching it as
+     * {@link #prefetchFlatXmlDataSet(Context, int)} does.
+     */
+    public static void prefetchXmlDataSet(final Context instrumentationContext, @RawRes final int rawResourceId) throws Exception {
+        get(buildKey("xml", instrumentationContext, rawResourceId), new DataSetLoader() {
+            @Override
+            public IDataSet load() throws Exception {
+                return AndroidDataSetUtils.createXmlDataSet(instrumentationContext, rawResourceId);
+            }
+        }, true);
+    }
+
+    /** @return The number of requests for a data set that was already cached or being loaded. */
+    public static synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /** @return The number of requests for a data set that had to be loaded. */
+    public static synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /** @return The estimated number of bytes used by the cached data sets. */
+    public static synchronized long getSize() {
+        return size;
+    }
+
+    /** @return The estimated number of bytes the cached data sets may use. */
+    public static synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the estimated number of bytes the cached data sets may use before the least recently
+     * used are evicted. Defaults to one eighth of the maximum heap size.
+     */
+    public static synchronized void setMaxSize(long maxSizeBytes) {
+        maxSize = maxSizeBytes;
+        trimToMaxSize();
+    }
+
+    /** Removes all data sets from the cache and resets its hit and miss counts. */
+    public static synchronized void clear() {
+        cache.clear();
+        size = 0;
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * @return The data set cached under the given key, loaded with the given loader if it isn't
+     * already cached or being loaded.
+     */
+    static IDataSet get(String key, DataSetLoader loader) throws Exception {
+        return get(key, loader, false);
+    }
+
+    /**
+     * @param prefetch Whether the data set is being prefetched, in which case it's only cached if
+     * the cache would then be at most half full.
+     */
+    static IDataSet get(String key, final DataSetLoader loader, boolean prefetch) throws Exception {
+        FutureTask<CachedDataSet> loadingDataSet;
+        boolean loadedByThisThread = false;
+
+        synchronized(AndroidDataSetCache.class) {
+            CachedDataSet cachedDataSet = cache.get(key);
+            if(cachedDataSet != null) {
+                hitCount++;
+                return cachedDataSet.dataSet;
+            }
+
+            loadingDataSet = loadingDataSets.get(key);
+            if(loadingDataSet == null) {
+                missCount++;
+
+                loadingDataSet = new FutureTask<CachedDataSet>(new Callable<CachedDataSet>() {
+                    @Override
+                    public CachedDataSet call() throws Exception {
+                        return createCachedDataSet(loader.load());
+                    }
+                });
+                loadingDataSets.put(key, loadingDataSet);
+                loadedByThisThread = true;
+            } else {
+                hitCount++;
+            }
+        }
+
+        if(loadedByThisThread) {
+            // Load outside of the lock so that other data sets can be retrieved in the meantime.
+            loadingDataSet.run();
+            try {
+                put(key, getLoadedDataSet(loadingDataSet), prefetch);
+            } finally {
+                synchronized(AndroidDataSetCache.class) {
+                    loadingDataSets.remove(key);
+                }
+            }
+        }
+
+        return getLoadedDataSet(loadingDataSet).dataSet;
+    }
+
+    /** @return The data set once loaded, waiting for the thread loading it if necessary. */
+    private static CachedDataSet getLoadedDataSet(FutureTask<CachedDataSet> loadingDataSet) throws Exception {
+        try {
+            return loadingDataSet.get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception) {
+                throw (Exception)cause;
+            } else if(cause instanceof Error) {
+                throw (Error)cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private static CachedDataSet createCachedDataSet(IDataSet dataSet) throws DataSetException {
+        // The size is estimated from the tables themselves, some of which know their own size.
+        return new CachedDataSet(new ReadOnlyDataSet(dataSet), estimateSize(dataSet));
+    }
+
+    /**
+     * Caches the loaded data set, now that its actual size is known, unless it wouldn't fit. A
+     * data set that doesn't fit is still returned to the threads waiting for it.
+     */
+    private static void put(String key, CachedDataSet cachedDataSet, boolean prefetch) {
+        synchronized(AndroidDataSetCache.class) {
+            if(cachedDataSet.size > maxSize) {
+                LOGGER.debug("Not caching data set {}, since its estimated {} bytes exceed the cache's maximum size.",
+                        key, cachedDataSet.size);
+                return;
+            }
+
+            // Prefetched data sets may only use the half of the cache that running tests don't need.
+            if(prefetch && size + cachedDataSet.size > maxSize / 2) {
+                LOGGER.debug("Not caching prefetched data set {}, since it would fill over half of the cache.", key);
+                return;
+            }
+
+            CachedDataSet previous = cache.put(key, cachedDataSet);
+            if(previous != null) {
+                size -= previous.size;
+            }
+            size += cachedDataSet.size;
+
+            trimToMaxSize();
+        }
+    }
+
+    private static void trimToMaxSize() {
+        Iterator<CachedDataSet> iterator = cache.values().iterator();
+        while(size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    static String buildKey(String format, Context context, @RawRes int rawResourceId) {
+        // Resource IDs are only unique within a package, and instrumentation and target packages
+        // commonly reuse IDs.
+        return format + ":raw:" + context.getPackageName() + ":" + rawResourceId;
+    }
+
+    static String buildKey(String format, String filename) {
+        return format + ":file:" + filename;
+    }
+
+    /** @return A rough estimate of the heap used by the given data set's values. */
+    private static long estimateSize(IDataSet dataSet) throws DataSetException {
+        long estimate = 0;
+
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            ITable table = iterator.getTable();
+            if(table instanceof ColumnarTable) {
+                estimate += ((ColumnarTable)table).estimateSize();
+                continue;
+            } else if(table instanceof BinaryDataSet.BinaryTable) {
+                // Estimated without decoding columns that may never be used.
+                estimate += ((BinaryDataSet.BinaryTable)table).estimateSize();
+                continue;
+            }
+
+            Column[] columns = table.getTableMetaData().getColumns();
+
+            for(int row = 0; row < table.getRowCount(); row++) {
+                // Account for the row's array and a reference to each value.
+                estimate += 16 + 4 * columns.length;
+
+                for(Column column : columns) {
+                    estimate += estimateSize(table.getValue(row, column.getColumnName()));
+                }
+            }
+        }
+
+        return estimate;
+    }
+
+    private static long estimateSize(Object value) {
+        if(value == null) {
+            return 0;
+        } else if(value instanceof String) {
+            return 40 + 2 * ((String)value).length();
+        } else if(value instanceof byte[]) {
+            return 16 + ((byte[])value).length;
+        } else {
+            return 24;
+        }
+    }
+
+    private static class CachedDataSet {
+        private final IDataSet dataSet;
+        private final long size;
+
+        private CachedDataSet(IDataSet dataSet, long size) {
+            this.dataSet = dataSet;
+            this.size = size;
+        }
+    }
+
+    /** Loads a data set that isn't already cached. */
+    interface DataSetLoader {
+        IDataSet load() throws Exception;
+    }
+}
@@ -0,0 +1,167 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Data set read from a buffer containing the binary format written by {@link BinaryDataSetWriter},
+ * whose columns are each decoded the first time one of their values is read. Only the table
+ * directory and string table are decoded up front, so a memory-mapped data set's values are only
+ * copied onto the heap for the columns that are actually used.
+ * <p>
+ * As in XML data sets, columns are given {@link DataType#UNKNOWN}, leaving values to be converted
+ * to the database's column types when they're used.
+ *
+ * @see BinaryDataSetFormat
+ * @see AndroidDataSetUtils#createBinaryDataSet(android.content.Context, int)
+ */
+public class BinaryDataSet extends AbstractDataSet {
+    private final ITable[] tables;
+
+    /**
+     * @param buffer The data set, from the buffer's position to its limit. The buffer is read from
+     * as columns are used, so its contents must not be changed.
+     */
+    public BinaryDataSet(ByteBuffer buffer) throws DataSetException {
+        buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+        try {
+            BinaryDataSetProducer.readHeader(buffer);
+            String[] strings = BinaryDataSetProducer.readStrings(buffer);
+
+            tables = new ITable[buffer.getInt()];
+            for(int i = 0; i < tables.length; i++) {
+                tables[i] = readTable(buffer, strings);
+            }
+        } catch(BufferUnderflowException e) {
+            throw new DataSetException("Binary data set is truncated.", e);
+        } catch(IllegalArgumentException e) {
+            throw new DataSetException("Binary data set is truncated.", e);
+        } catch(IndexOutOfBoundsException e) {
+            throw new DataSetException("Binary data set refers to a string that doesn't exist.", e);
+        }
+    }
+
+    private static BinaryTable readTable(ByteBuffer buffer, String[] strings) {
+        String tableName = strings[buffer.getInt()];
+
+        Column[] columns = new Column[buffer.getInt()];
+        for(int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(strings[buffer.getInt()], DataType.UNKNOWN);
+        }
+
+        int rowCount = buffer.getInt();
+
+        // Each column is prefixed with its length, so it can be skipped over until it's used.
+        int[] columnOffsets = new int[columns.length];
+        int[] columnLengths = new int[columns.length];
+        for(int i = 0; i < columns.length; i++) {
+            columnLengths[i] = buffer.getInt();
+            columnOffsets[i] = buffer.position();
+            buffer.position(columnOffsets[i] + columnLengths[i]);
+        }
+
+        return new BinaryTable(new DefaultTableMetaData(tableName, columns), rowCount, buffer, strings,
+                columnOffsets, columnLengths);
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        return new DefaultTableIterator(tables, reversed);
+    }
+
+    /** Table whose columns are decoded from the data set's buffer when they're first read. */
+    static class BinaryTable extends AbstractTable {
+        private final ITableMetaData metaData;
+        private final int rowCount;
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private final int[] columnOffsets;
+        private final int[] columnLengths;
+        private final Object[][] columns;
+
+        private BinaryTable(ITableMetaData metaData, int rowCount, ByteBuffer buffer, String[] strings,
+                int[] columnOffsets, int[] columnLengths) {
+            this.metaData = metaData;
+            this.rowCount = rowCount;
+            this.buffer = buffer;
+            this.strings = strings;
+            this.columnOffsets = columnOffsets;
+            this.columnLengths = columnLengths;
+            columns = new Object[columnOffsets.length][];
+        }
+
+        @Override
+        public ITableMetaData getTableMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public Object getValue(int row, String columnName) throws DataSetException {
+            assertValidRowIndex(row);
+
+            return getColumn(getColumnIndex(columnName))[row];
+        }
+
+        private synchronized Object[] getColumn(int columnIndex) throws DataSetException {
+            if(columns[columnIndex] == null) {
+                columns[columnIndex] = decodeColumn(columnIndex);
+            }
+
+            return columns[columnIndex];
+        }
+
+        private Object[] decodeColumn(int columnIndex) throws DataSetException {
+            ByteBuffer column = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            column.position(columnOffsets[columnIndex]);
+
+            Object[] values = new Object[rowCount];
+            try {
+                for(int row = 0; row < rowCount; row++) {
+                    values[row] = BinaryDataSetProducer.readCell(column, strings);
+                }
+            } catch(BufferUnderflowException e) {
+                throw new DataSetException("Binary data set is truncated.", e);
+            } catch(IndexOutOfBoundsException e) {
+                throw new DataSetException("Binary data set refers to a string that doesn't exist.", e);
+            }
+
+            if(column.position() != columnOffsets[columnIndex] + columnLengths[columnIndex]) {
+                throw new DataSetException("Column " + metaData.getColumns()[columnIndex].getColumnName()
+                        + " of table " + metaData.getTableName() + " does not match its declared length.");
+            }
+
+            return values;
+        }
+
+        /**
+         * @return A rough estimate of the heap the table uses once all of its columns are decoded.
+         * Strings are shared with the data set's string table, so only their references are counted.
+         */
+        long estimateSize() {
+            long estimate = 0;
+            for(int columnLength : columnLengths) {
+                estimate += 16 + 4 * rowCount + columnLength;
+            }
+
+            return estimate;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.dbunit.dataset.xml.XmlDataSet;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Converts XML and flat XML data set files to the binary format written by
+ * {@link BinaryDataSetWriter}. Run on the JVM by binary-datasets.gradle when a project's tests are
+ * built, so that the build and the library share the same writer; it uses nothing from the Android
+ * framework.
+ */
+public class BinaryDataSetConverter {
+    private static final String BINARY_DATA_SET_SUFFIX = "_binary.dbub";
+
+    private BinaryDataSetConverter() { }
+
+    /**
+     * Converts each XML file given after the output directory. A data set in foo.xml is written to
+     * foo_binary.dbub in the output directory; XML files that aren't data sets are skipped.
+     *
+     * @param args The output directory, followed by the XML files to convert.
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length < 1) {
+            throw new IllegalArgumentException("Usage: BinaryDataSetConverter <output directory> <XML file>...");
+        }
+
+        File outputDirectory = new File(args[0]);
+        if(!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Unable to create output directory " + outputDirectory + ".");
+        }
+
+        for(int i = 1; i < args.length; i++) {
+            File xmlFile = new File(args[i]);
+            String name = xmlFile.getName().replaceFirst("\\.xml$", "");
+
+            convert(xmlFile, new File(outputDirectory, name + BINARY_DATA_SET_SUFFIX));
+        }
+    }
+
+    /**
+     * Converts the given XML or flat XML data set file to a binary data set file.
+     *
+     * @return Whether the file was converted, which it isn't if it isn't a data set.
+     */
+    public static boolean convert(File xmlFile, File binaryFile) throws Exception {
+        IDataSet dataSet = readDataSet(xmlFile);
+        if(dataSet == null) {
+            return false;
+        }
+
+        OutputStream outputStream = new FileOutputStream(binaryFile);
+        try {
+            BinaryDataSetWriter.write(dataSet, outputStream);
+        } finally {
+            outputStream.close();
+        }
+
+        return true;
+    }
+
+    /** @return The data set in the given file, or null if the file isn't a data set. */
+    private static IDataSet readDataSet(File xmlFile) throws Exception {
+        Boolean isXmlFormat = isXmlFormat(xmlFile);
+        if(isXmlFormat == null) {
+            return null;
+        }
+
+        InputStream inputStream = new FileInputStream(xmlFile);
+        try {
+            // Flat XML data sets are read as AndroidDataSetUtils reads them.
+            return isXmlFormat
+                    ? new XmlDataSet(inputStream)
+                    : new FlatXmlDataSet(new FlatXmlProducer(new InputSource(inputStream), false));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @return Whether the file is in the format read by {@link XmlDataSet}, rather than that read
+     * by {@link FlatXmlDataSet}, or null if it isn't a data set.
+     */
+    private static Boolean isXmlFormat(File xmlFile) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+        Element root = factory.newDocumentBuilder().parse(xmlFile).getDocumentElement();
+        if(!root.getTagName().equals("dataset")) {
+            return null;
+        }
+
+        NodeList children = root.getChildNodes();
+        for(int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if(child instanceof Element && ((Element)child).getTagName().equals("table")
+                    && ((Element)child).hasAttribute("name")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants describing the binary data set format read by {@link BinaryDataSetProducer} and
+ * written by {@link BinaryDataSetWriter}. All numbers are big-endian.
+ * <pre>
+ * file    := MAGIC version:int stringCount:int string* tableCount:int table*
+ * string  := byteCount:int utf8Bytes
+ * table   := nameIndex:int columnCount:int columnNameIndex:int* rowCount:int column*
+ * column  := byteCount:int cell{rowCount}
+ * cell    := TYPE_NULL | TYPE_NO_VALUE | TYPE_STRING index:int | TYPE_LONG long
+ *          | TYPE_DOUBLE double | TYPE_BLOB byteCount:int bytes
+ * </pre>
+ * Table and column names and string values are stored once in the string table and referred to by
+ * index. Each column's cells are prefixed with their length in bytes so that a column can be
+ * located without decoding the ones before it.
+ */
+final class BinaryDataSetFormat {
+    static final byte[] MAGIC = { 'D', 'B', 'U', 'B' };
+    static final int VERSION = 1;
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_NO_VALUE = 1;
+    static final byte TYPE_STRING = 2;
+    static final byte TYPE_LONG = 3;
+    static final byte TYPE_DOUBLE = 4;
+    static final byte TYPE_BLOB = 5;
+
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private BinaryDataSetFormat() { }
+}
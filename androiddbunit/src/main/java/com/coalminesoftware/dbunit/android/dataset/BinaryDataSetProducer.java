@@ -0,0 +1,149 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.DefaultConsumer;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Produces a data set from a buffer containing the binary format written by
+ * {@link BinaryDataSetWriter}. Decoding a binary data set avoids the cost of XML parsing, which
+ * dominates the time taken to load XML data sets. Every value is decoded as it's produced; a
+ * {@link BinaryDataSet} only decodes the columns that are used.
+ * <p>
+ * As in XML data sets, columns are given {@link DataType#UNKNOWN}, leaving values to be converted
+ * to the database's column types when they're used.
+ *
+ * @see BinaryDataSetFormat
+ */
+public class BinaryDataSetProducer implements IDataSetProducer {
+    private final ByteBuffer buffer;
+    private IDataSetConsumer consumer = new DefaultConsumer();
+
+    /**
+     * @param buffer The data set, from the buffer's position to its limit. The buffer's position is
+     * not changed, so it can be produced repeatedly.
+     */
+    public BinaryDataSetProducer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void setConsumer(IDataSetConsumer consumer) throws DataSetException {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void produce() throws DataSetException {
+        ByteBuffer buffer = this.buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+        try {
+            readHeader(buffer);
+            String[] strings = readStrings(buffer);
+
+            consumer.startDataSet();
+
+            int tableCount = buffer.getInt();
+            for(int i = 0; i < tableCount; i++) {
+                produceTable(buffer, strings);
+            }
+
+            consumer.endDataSet();
+        } catch(BufferUnderflowException e) {
+            throw new DataSetException("Binary data set is truncated.", e);
+        } catch(IndexOutOfBoundsException e) {
+            throw new DataSetException("Binary data set refers to a string that doesn't exist.", e);
+        }
+    }
+
+    static void readHeader(ByteBuffer buffer) throws DataSetException {
+        byte[] magic = new byte[BinaryDataSetFormat.MAGIC.length];
+        buffer.get(magic);
+        if(!Arrays.equals(magic, BinaryDataSetFormat.MAGIC)) {
+            throw new DataSetException("Data is not in the binary data set format.");
+        }
+
+        int version = buffer.getInt();
+        if(version != BinaryDataSetFormat.VERSION) {
+            throw new DataSetException("Unsupported binary data set version " + version + ".");
+        }
+    }
+
+    static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for(int i = 0; i < strings.length; i++) {
+            strings[i] = new String(readBytes(buffer), BinaryDataSetFormat.CHARSET);
+        }
+
+        return strings;
+    }
+
+    private void produceTable(ByteBuffer buffer, String[] strings) throws DataSetException {
+        String tableName = strings[buffer.getInt()];
+
+        Column[] columns = new Column[buffer.getInt()];
+        for(int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(strings[buffer.getInt()], DataType.UNKNOWN);
+        }
+
+        int rowCount = buffer.getInt();
+
+        // Cells are stored by column but consumed by row, so the table's columns are decoded first.
+        Object[][] rows = new Object[rowCount][columns.length];
+        for(int column = 0; column < columns.length; column++) {
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+
+            for(int row = 0; row < rowCount; row++) {
+                rows[row][column] = readCell(buffer, strings);
+            }
+
+            if(buffer.position() != end) {
+                throw new DataSetException("Column " + columns[column].getColumnName() + " of table "
+                        + tableName + " does not match its declared length.");
+            }
+        }
+
+        consumer.startTable(new DefaultTableMetaData(tableName, columns));
+        for(Object[] row : rows) {
+            consumer.row(row);
+        }
+        consumer.endTable();
+    }
+
+    static Object readCell(ByteBuffer buffer, String[] strings) throws DataSetException {
+        byte type = buffer.get();
+        switch(type) {
+            case BinaryDataSetFormat.TYPE_NULL:
+                return null;
+            case BinaryDataSetFormat.TYPE_NO_VALUE:
+                return ITable.NO_VALUE;
+            case BinaryDataSetFormat.TYPE_STRING:
+                return strings[buffer.getInt()];
+            case BinaryDataSetFormat.TYPE_LONG:
+                return buffer.getLong();
+            case BinaryDataSetFormat.TYPE_DOUBLE:
+                return buffer.getDouble();
+            case BinaryDataSetFormat.TYPE_BLOB:
+                return readBytes(buffer);
+            default:
+                throw new DataSetException("Unknown binary data set value type " + type + ".");
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes data sets in the binary format read by {@link BinaryDataSetProducer}. Integral and
+ * floating point numbers and byte arrays are written in their native types, and any other values
+ * are written as strings. No column types are written, and values aren't converted to the types of
+ * the columns they'll be inserted into, so every value of an XML data set, which holds them as
+ * strings, is written as a string.
+ *
+ * @see BinaryDataSetFormat
+ * @see AndroidDataSetUtils#createBinaryDataSet(android.content.Context, int)
+ */
+public class BinaryDataSetWriter {
+    private BinaryDataSetWriter() { }
+
+    /** Writes the given data set to the stream, without closing it. */
+    public static void write(IDataSet dataSet, OutputStream outputStream) throws DataSetException, IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream tables = new ByteArrayOutputStream();
+        DataOutputStream tablesOutput = new DataOutputStream(tables);
+
+        // Tables are written first so that the string table they refer to is complete.
+        int tableCount = 0;
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            writeTable(iterator.getTable(), strings, tablesOutput);
+            tableCount++;
+        }
+        tablesOutput.flush();
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.write(BinaryDataSetFormat.MAGIC);
+        output.writeInt(BinaryDataSetFormat.VERSION);
+
+        output.writeInt(strings.values.size());
+        for(String value : strings.values) {
+            writeBytes(value.getBytes(BinaryDataSetFormat.CHARSET), output);
+        }
+
+        output.writeInt(tableCount);
+        tables.writeTo(output);
+        output.flush();
+    }
+
+    private static void writeTable(ITable table, StringTable strings, DataOutputStream output)
+            throws DataSetException, IOException {
+        Column[] columns = table.getTableMetaData().getColumns();
+
+        output.writeInt(strings.indexOf(table.getTableMetaData().getTableName()));
+        output.writeInt(columns.length);
+        for(Column column : columns) {
+            output.writeInt(strings.indexOf(column.getColumnName()));
+        }
+
+        int rowCount = table.getRowCount();
+        output.writeInt(rowCount);
+
+        ByteArrayOutputStream cells = new ByteArrayOutputStream();
+        DataOutputStream cellsOutput = new DataOutputStream(cells);
+        for(Column column : columns) {
+            cells.reset();
+            for(int row = 0; row < rowCount; row++) {
+                writeCell(table.getValue(row, column.getColumnName()), strings, cellsOutput);
+            }
+            cellsOutput.flush();
+
+            output.writeInt(cells.size());
+            cells.writeTo(output);
+        }
+    }
+
+    private static void writeCell(Object value, StringTable strings, DataOutputStream output) throws IOException {
+        if(value == null) {
+            output.writeByte(BinaryDataSetFormat.TYPE_NULL);
+        } else if(value == ITable.NO_VALUE) {
+            output.writeByte(BinaryDataSetFormat.TYPE_NO_VALUE);
+        } else if(value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger && ((BigInteger)value).bitLength() < 64) {
+            output.writeByte(BinaryDataSetFormat.TYPE_LONG);
+            output.writeLong(((Number)value).longValue());
+        } else if(value instanceof Double || value instanceof Float) {
+            output.writeByte(BinaryDataSetFormat.TYPE_DOUBLE);
+            output.writeDouble(((Number)value).doubleValue());
+        } else if(value instanceof byte[]) {
+            output.writeByte(BinaryDataSetFormat.TYPE_BLOB);
+            writeBytes((byte[])value, output);
+        } else {
+            // Decimals are written as strings to preserve their precision.
+            output.writeByte(BinaryDataSetFormat.TYPE_STRING);
+            output.writeInt(strings.indexOf(value instanceof BigDecimal
+                    ? ((BigDecimal)value).toPlainString()
+                    : value.toString()));
+        }
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream output) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /** Strings written to a data set, each assigned an index in the order first written. */
+    private static class StringTable {
+        private final List<String> values = new ArrayList<String>();
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        private int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if(index == null) {
+                index = values.size();
+                values.add(value);
+                indexes.put(value, index);
+            }
+
+            return index;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data set whose tables are {@link ColumnarTable}s, which hold large data sets in a fraction of the
+ * memory used by {@link org.dbunit.dataset.CachedDataSet}'s tables.
+ *
+ * @see AndroidDataSetUtils#createColumnarFlatXmlDataSet(android.content.Context, int)
+ */
+public class ColumnarDataSet extends AbstractDataSet {
+    private final List<ITable> tables = new ArrayList<ITable>();
+
+    /** Creates a data set from the tables the given producer produces, as they're produced. */
+    public ColumnarDataSet(IDataSetProducer producer) throws DataSetException {
+        producer.setConsumer(new TableConsumer());
+        producer.produce();
+    }
+
+    /**
+     * Creates a data set containing columnar copies of the given data set's tables. The data set
+     * is iterated over once, so a {@link org.dbunit.dataset.stream.StreamingDataSet} can be copied
+     * without its rows first being loaded into memory.
+     */
+    public ColumnarDataSet(IDataSet dataSet) throws DataSetException {
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            tables.add(ColumnarTable.copyOf(iterator.getTable()));
+        }
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        return new DefaultTableIterator(tables.toArray(new ITable[tables.size()]), reversed);
+    }
+
+    private class TableConsumer implements IDataSetConsumer {
+        private ColumnarTable.Builder builder;
+
+        @Override
+        public void startDataSet() { }
+
+        @Override
+        public void endDataSet() { }
+
+        @Override
+        public void startTable(ITableMetaData metaData) throws DataSetException {
+            builder = new ColumnarTable.Builder(metaData);
+        }
+
+        @Override
+        public void endTable() {
+            tables.add(builder.build());
+            builder = null;
+        }
+
+        @Override
+        public void row(Object[] values) {
+            builder.addRow(values);
+        }
+    }
+}
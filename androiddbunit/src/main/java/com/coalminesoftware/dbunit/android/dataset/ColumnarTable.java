@@ -0,0 +1,509 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+
+import java.util.Arrays;
+
+/**
+ * Table that stores its values by column, in primitive arrays where possible, rather than as a
+ * boxed object per cell. Integer and floating point columns are stored as {@code long[]} and
+ * {@code double[]}, and text and blob columns as a single buffer indexed by offset, each with a
+ * bitmap of null values. Values are only boxed when {@link #getValue(int, String)} is called.
+ * <p>
+ * XML data sets hold their values as strings, so a text column whose values are all integers
+ * written in canonical form is stored as a {@code long[]} and its values returned as strings.
+ * Columns that mix types are stored as objects.
+ *
+ * @see ColumnarDataSet
+ */
+public class ColumnarTable extends AbstractTable {
+    private final ITableMetaData metaData;
+    private final int rowCount;
+    private final ColumnValues[] columnValues;
+
+    private ColumnarTable(ITableMetaData metaData, int rowCount, ColumnValues[] columnValues) {
+        this.metaData = metaData;
+        this.rowCount = rowCount;
+        this.columnValues = columnValues;
+    }
+
+    /**
+     * @return A columnar copy of the given table. Rows are read in order until the table runs out,
+     * so tables that can only be read sequentially, like those of a
+     * {@link org.dbunit.dataset.stream.StreamingDataSet}, are supported.
+     */
+    public static ColumnarTable copyOf(ITable table) throws DataSetException {
+        ITableMetaData metaData = table.getTableMetaData();
+        Column[] columns = metaData.getColumns();
+
+        Builder builder = new Builder(metaData);
+        Object[] row = new Object[columns.length];
+        for(int rowIndex = 0; columns.length > 0; rowIndex++) {
+            try {
+                for(int i = 0; i < columns.length; i++) {
+                    row[i] = table.getValue(rowIndex, columns[i].getColumnName());
+                }
+            } catch(RowOutOfBoundsException e) {
+                break;
+            }
+
+            builder.addRow(row);
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Object getValue(int row, String columnName) throws DataSetException {
+        assertValidRowIndex(row);
+
+        return columnValues[metaData.getColumnIndex(columnName)].get(row);
+    }
+
+    /** @return A rough estimate of the heap used by the table's values. */
+    long estimateSize() {
+        long size = 0;
+        for(ColumnValues values : columnValues) {
+            size += values.estimateSize();
+        }
+
+        return size;
+    }
+
+    /** Builds a table from rows, choosing each column's storage from the values added to it. */
+    static class Builder {
+        private final ITableMetaData metaData;
+        private final ColumnValues[] columnValues;
+        private int rowCount;
+
+        Builder(ITableMetaData metaData) throws DataSetException {
+            this.metaData = metaData;
+
+            columnValues = new ColumnValues[metaData.getColumns().length];
+            for(int i = 0; i < columnValues.length; i++) {
+                columnValues[i] = new NullValues();
+            }
+        }
+
+        void addRow(Object[] row) {
+            for(int i = 0; i < columnValues.length; i++) {
+                Object value = row[i];
+                if(!columnValues[i].add(value)) {
+                    columnValues[i] = convert(columnValues[i], rowCount, value);
+                    columnValues[i].add(value);
+                }
+            }
+
+            rowCount++;
+        }
+
+        ColumnarTable build() {
+            for(ColumnValues values : columnValues) {
+                values.trim(rowCount);
+            }
+
+            return new ColumnarTable(metaData, rowCount, columnValues);
+        }
+
+        /**
+         * @return Storage for a column that can hold the given value in addition to those already
+         * stored.
+         */
+        private static ColumnValues convert(ColumnValues values, int rowCount, Object value) {
+            ColumnValues converted;
+            if(values instanceof NullValues) {
+                converted = createValues(value);
+            } else if(values instanceof LongValues && ((LongValues)values).text && value instanceof String) {
+                converted = new TextValues();
+            } else {
+                converted = new ObjectValues();
+            }
+
+            for(int row = 0; row < rowCount; row++) {
+                converted.add(values.get(row));
+            }
+
+            return converted;
+        }
+
+        private static ColumnValues createValues(Object value) {
+            if(value instanceof Long) {
+                return new LongValues(false);
+            } else if(value instanceof String) {
+                return isCanonicalLong((String)value) ? new LongValues(true) : new TextValues();
+            } else if(value instanceof Double) {
+                return new DoubleValues();
+            } else if(value instanceof byte[]) {
+                return new BlobValues();
+            } else {
+                return new ObjectValues();
+            }
+        }
+    }
+
+    /**
+     * @return Whether the given string is an integer that {@link Long#toString(long)} would write
+     * identically, so that it can be stored as a long without changing the string returned.
+     */
+    static boolean isCanonicalLong(String value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if(length == start || length > 20) {
+            return false;
+        } else if(value.charAt(start) == '0') {
+            return length == 1;
+        }
+
+        for(int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if(c < '0' || c > '9') {
+                return false;
+            }
+        }
+
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch(NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Storage for the values of a single column. */
+    private static abstract class ColumnValues {
+        /** @return Whether the value could be stored, or false if different storage is needed. */
+        abstract boolean add(Object value);
+        abstract Object get(int row);
+        /** Releases capacity beyond the given number of rows. */
+        abstract void trim(int rowCount);
+        abstract long estimateSize();
+    }
+
+    /** Storage for a column in which only nulls have been added. */
+    private static class NullValues extends ColumnValues {
+        @Override
+        boolean add(Object value) {
+            return value == null;
+        }
+
+        @Override
+        Object get(int row) {
+            return null;
+        }
+
+        @Override
+        void trim(int rowCount) { }
+
+        @Override
+        long estimateSize() {
+            return 0;
+        }
+    }
+
+    /** Storage that tracks which rows are null, leaving the values of other rows to subclasses. */
+    private static abstract class NullableValues extends ColumnValues {
+        private long[] nulls = new long[1];
+        int size;
+
+        @Override
+        final boolean add(Object value) {
+            if(value != null && !accepts(value)) {
+                return false;
+            }
+
+            ensureCapacity(size + 1);
+            if(value == null) {
+                nulls[size >> 6] |= 1L << size;
+                setNull(size);
+            } else {
+                set(size, value);
+            }
+            size++;
+
+            return true;
+        }
+
+        @Override
+        final Object get(int row) {
+            return (nulls[row >> 6] & 1L << row) != 0 ? null : getNonNull(row);
+        }
+
+        @Override
+        void trim(int rowCount) {
+            nulls = Arrays.copyOf(nulls, (rowCount >> 6) + 1);
+        }
+
+        @Override
+        long estimateSize() {
+            return 16 + 8 * nulls.length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if(capacity > nulls.length << 6) {
+                nulls = Arrays.copyOf(nulls, nulls.length * 2);
+            }
+            ensureValueCapacity(capacity);
+        }
+
+        abstract boolean accepts(Object value);
+        abstract void ensureValueCapacity(int capacity);
+        abstract void set(int row, Object value);
+        abstract Object getNonNull(int row);
+
+        /** Called when a null value is added, in place of {@link #set(int, Object)}. */
+        void setNull(int row) { }
+    }
+
+    private static class LongValues extends NullableValues {
+        /** Whether values were added, and are returned, as strings. */
+        private final boolean text;
+        private long[] values = new long[16];
+
+        private LongValues(boolean text) {
+            this.text = text;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return text
+                    ? value instanceof String && isCanonicalLong((String)value)
+                    : value instanceof Long;
+        }
+
+        @Override
+        void ensureValueCapacity(int capacity) {
+            if(capacity > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = text ? Long.parseLong((String)value) : (Long)value;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return text ? Long.toString(values[row]) : Long.valueOf(values[row]);
+        }
+
+        @Override
+        void trim(int rowCount) {
+            super.trim(rowCount);
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 16 + 8 * values.length;
+        }
+    }
+
+    private static class DoubleValues extends NullableValues {
+        private double[] values = new double[16];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void ensureValueCapacity(int capacity) {
+            if(capacity > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = (Double)value;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void trim(int rowCount) {
+            super.trim(rowCount);
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 16 + 8 * values.length;
+        }
+    }
+
+    /** Strings stored end to end in a single buffer, with the offset at which each row's ends. */
+    private static class TextValues extends NullableValues {
+        private char[] buffer = new char[256];
+        private int[] endOffsets = new int[16];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void ensureValueCapacity(int capacity) {
+            if(capacity > endOffsets.length) {
+                endOffsets = Arrays.copyOf(endOffsets, endOffsets.length * 2);
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            String string = (String)value;
+            int start = startOffset(row);
+            int end = start + string.length();
+
+            if(end > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(end, buffer.length * 2));
+            }
+            string.getChars(0, string.length(), buffer, start);
+            endOffsets[row] = end;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            int start = startOffset(row);
+            return new String(buffer, start, endOffsets[row] - start);
+        }
+
+        @Override
+        void setNull(int row) {
+            // Null rows take no space in the buffer.
+            endOffsets[row] = startOffset(row);
+        }
+
+        private int startOffset(int row) {
+            return row == 0 ? 0 : endOffsets[row - 1];
+        }
+
+        @Override
+        void trim(int rowCount) {
+            super.trim(rowCount);
+            buffer = Arrays.copyOf(buffer, rowCount == 0 ? 0 : endOffsets[rowCount - 1]);
+            endOffsets = Arrays.copyOf(endOffsets, rowCount);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 32 + 2 * buffer.length + 4 * endOffsets.length;
+        }
+    }
+
+    /** Byte arrays stored end to end in a single buffer, with the offset at which each row's ends. */
+    private static class BlobValues extends NullableValues {
+        private byte[] buffer = new byte[256];
+        private int[] endOffsets = new int[16];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof byte[];
+        }
+
+        @Override
+        void ensureValueCapacity(int capacity) {
+            if(capacity > endOffsets.length) {
+                endOffsets = Arrays.copyOf(endOffsets, endOffsets.length * 2);
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            byte[] bytes = (byte[])value;
+            int start = startOffset(row);
+            int end = start + bytes.length;
+
+            if(end > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(end, buffer.length * 2));
+            }
+            System.arraycopy(bytes, 0, buffer, start, bytes.length);
+            endOffsets[row] = end;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return Arrays.copyOfRange(buffer, startOffset(row), endOffsets[row]);
+        }
+
+        @Override
+        void setNull(int row) {
+            endOffsets[row] = startOffset(row);
+        }
+
+        private int startOffset(int row) {
+            return row == 0 ? 0 : endOffsets[row - 1];
+        }
+
+        @Override
+        void trim(int rowCount) {
+            super.trim(rowCount);
+            buffer = Arrays.copyOf(buffer, rowCount == 0 ? 0 : endOffsets[rowCount - 1]);
+            endOffsets = Arrays.copyOf(endOffsets, rowCount);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 32 + buffer.length + 4 * endOffsets.length;
+        }
+    }
+
+    /** Storage for columns whose values don't share a type that can be stored more compactly. */
+    private static class ObjectValues extends ColumnValues {
+        private Object[] values = new Object[16];
+        private int size;
+
+        @Override
+        boolean add(Object value) {
+            if(size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = value;
+
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+        }
+
+        @Override
+        long estimateSize() {
+            long estimate = 16 + 4 * values.length;
+            for(Object value : values) {
+                if(value instanceof String) {
+                    estimate += 40 + 2 * ((String)value).length();
+                } else if(value != null) {
+                    estimate += 24;
+                }
+            }
+
+            return estimate;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Producer of a data set from a zip archive containing the files of a {@link CsvFilesProducer}
+ * data set. Files are matched by name regardless of the directory they're in within the archive.
+ * <p>
+ * The archive is decompressed as it's read, but a zip stream can only be read in the order its
+ * entries were written, so each file's contents are held until the archive has been read.
+ */
+class CsvArchiveProducer extends CsvFilesProducer {
+    private final InputStream inputStream;
+    private Map<String, byte[]> files;
+
+    /** @param inputStream Stream of the archive, which the caller remains responsible for closing. */
+    CsvArchiveProducer(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    protected InputStream openFile(String filename) throws IOException {
+        if(files == null) {
+            files = readFiles();
+        }
+
+        byte[] contents = files.get(filename);
+        if(contents == null) {
+            throw new FileNotFoundException(filename + " is not in the archive.");
+        }
+
+        return new ByteArrayInputStream(contents);
+    }
+
+    private Map<String, byte[]> readFiles() throws IOException {
+        Map<String, byte[]> files = new HashMap<String, byte[]>();
+
+        // The archive stream isn't closed here, as it belongs to the caller.
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        byte[] buffer = new byte[8192];
+        for(ZipEntry entry; (entry = zipInputStream.getNextEntry()) != null; ) {
+            if(entry.isDirectory()) {
+                continue;
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            for(int count; (count = zipInputStream.read(buffer)) != -1; ) {
+                outputStream.write(buffer, 0, count);
+            }
+
+            String name = entry.getName();
+            files.put(name.substring(name.lastIndexOf('/') + 1), outputStream.toByteArray());
+        }
+
+        return files;
+    }
+}
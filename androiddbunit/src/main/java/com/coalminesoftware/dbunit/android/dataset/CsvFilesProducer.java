@@ -0,0 +1,184 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import com.coalminesoftware.dbunit.android.closeable.CloseableTemplate;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.csv.CsvDataSet;
+import org.dbunit.dataset.csv.CsvDataSetWriter;
+import org.dbunit.dataset.csv.CsvParserImpl;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Producer of data sets laid out as DBUnit's {@link CsvDataSet} expects: a table-ordering.txt file
+ * listing the tables in order, one per line, and a CSV file named after each table whose first row
+ * names its columns. Files are opened by name by subclasses, so that they can be read from places
+ * other than a directory, such as the classpath or an archive.
+ * <p>
+ * Each table's file is parsed independently of the others, so tables are parsed in parallel, on up
+ * to one thread per processor, while the consumer is given tables in order as they're parsed.
+ * Subclasses' {@link #openFile(String)} may therefore be called from several threads at once, though
+ * only after table-ordering.txt has been opened.
+ */
+abstract class CsvFilesProducer implements IDataSetProducer {
+    private static final String CSV_EXTENSION = ".csv";
+    private static final int MAX_PARSE_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private IDataSetConsumer consumer;
+
+    @Override
+    public void setConsumer(IDataSetConsumer consumer) throws DataSetException {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void produce() throws DataSetException {
+        try {
+            consumer.startDataSet();
+            produceTables(readTableNames());
+            consumer.endDataSet();
+        } catch(DataSetException e) {
+            throw e;
+        } catch(FileNotFoundException e) {
+            throw new DataSetException(e.getMessage(), e);
+        } catch(Exception e) {
+            throw new DataSetException(e);
+        }
+    }
+
+    /**
+     * @return A stream of the file with the given name.
+     * @throws FileNotFoundException If there's no such file.
+     */
+    protected abstract InputStream openFile(String filename) throws IOException;
+
+    private List<String> readTableNames() throws Exception {
+        return new CloseableTemplate<List<String>, BufferedReader>() {
+            @Override
+            protected BufferedReader openCloseable() throws IOException {
+                return openReader(CsvDataSet.TABLE_ORDERING_FILE);
+            }
+
+            @Override
+            protected List<String> useCloseable(BufferedReader reader) throws IOException {
+                List<String> tableNames = new ArrayList<String>();
+                for(String line; (line = reader.readLine()) != null; ) {
+                    if(line.trim().length() > 0) {
+                        tableNames.add(line.trim());
+                    }
+                }
+
+                return tableNames;
+            }
+        }.execute();
+    }
+
+    private void produceTables(List<String> tableNames) throws Exception {
+        int threadCount = Math.min(MAX_PARSE_THREAD_COUNT, tableNames.size());
+        if(threadCount <= 1) {
+            for(String tableName : tableNames) {
+                produceTable(tableName, parseTable(tableName));
+            }
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<List<?>>> parsedTables = new ArrayList<Future<List<?>>>();
+            for(final String tableName : tableNames) {
+                parsedTables.add(executor.submit(new Callable<List<?>>() {
+                    @Override
+                    public List<?> call() throws Exception {
+                        return parseTable(tableName);
+                    }
+                }));
+            }
+
+            // Tables are produced in order, each as soon as it and those before it are parsed.
+            for(int i = 0; i < tableNames.size(); i++) {
+                produceTable(tableNames.get(i), getParsedTable(parsedTables.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<?> getParsedTable(Future<List<?>> parsedTable) throws Exception {
+        try {
+            return parsedTable.get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception) {
+                throw (Exception)cause;
+            } else if(cause instanceof Error) {
+                throw (Error)cause;
+            }
+
+            throw e;
+        }
+    }
+
+    /** @return The rows of the table's file, the first of which names its columns. */
+    private List<?> parseTable(String tableName) throws Exception {
+        final String filename = tableName + CSV_EXTENSION;
+        return new CloseableTemplate<List<?>, BufferedReader>() {
+            @Override
+            protected BufferedReader openCloseable() throws IOException {
+                return openReader(filename);
+            }
+
+            @Override
+            protected List<?> useCloseable(BufferedReader reader) throws Exception {
+                return new CsvParserImpl().parse(reader, filename);
+            }
+        }.execute();
+    }
+
+    private void produceTable(String tableName, List<?> rows) throws DataSetException {
+        // As with DBUnit's CsvProducer, the first row names the columns, and "null" is a null value.
+        List<?> columnNames = (List<?>)rows.get(0);
+        Column[] columns = new Column[columnNames.size()];
+        for(int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(((String)columnNames.get(i)).trim(), DataType.UNKNOWN);
+        }
+
+        consumer.startTable(new DefaultTableMetaData(tableName, columns));
+        for(int i = 1; i < rows.size(); i++) {
+            Object[] values = ((List<?>)rows.get(i)).toArray();
+            for(int j = 0; j < values.length; j++) {
+                if(CsvDataSetWriter.NULL.equals(values[j])) {
+                    values[j] = null;
+                }
+            }
+
+            consumer.row(values);
+        }
+        consumer.endTable();
+    }
+
+    private BufferedReader openReader(String filename) throws IOException {
+        InputStream inputStream = openFile(filename);
+        if(inputStream == null) {
+            throw new FileNotFoundException(filename);
+        }
+
+        return new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import android.database.Cursor;
+
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data set of {@link CursorTable}s, for comparing the results of several queries with a data set
+ * without copying them. Tables are in the order they're added, and must all be added before the
+ * data set is used. Closing the data set closes every table's cursor.
+ */
+public class CursorDataSet extends AbstractDataSet implements Closeable {
+    private final List<CursorTable> tables = new ArrayList<CursorTable>();
+
+    public CursorDataSet() { }
+
+    /** Creates a data set containing a single table read from the given cursor. */
+    public CursorDataSet(String tableName, Cursor cursor) throws DataSetException {
+        addTable(tableName, cursor);
+    }
+
+    /** Adds a table read from the given cursor, with column types derived from its first row. */
+    public CursorDataSet addTable(String tableName, Cursor cursor) throws DataSetException {
+        return addTable(new CursorTable(tableName, cursor));
+    }
+
+    public CursorDataSet addTable(CursorTable table) {
+        tables.add(table);
+        return this;
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        return new DefaultTableIterator(tables.toArray(new ITable[tables.size()]), reversed);
+    }
+
+    @Override
+    public void close() {
+        for(CursorTable table : tables) {
+            table.close();
+        }
+    }
+}
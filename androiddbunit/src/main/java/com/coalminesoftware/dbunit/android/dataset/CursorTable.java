@@ -0,0 +1,107 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import android.database.Cursor;
+
+import com.coalminesoftware.dbunit.android.database.SQLiteSql;
+
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+
+import java.io.Closeable;
+
+/**
+ * Table that reads its values from a {@link Cursor} as they're retrieved, rather than copying them
+ * first, so that the results of a query, such as those of a {@link android.content.ContentProvider},
+ * can be compared directly with a data set.
+ * <pre>
+ * Cursor cursor = contentResolver.query(uri, null, null, null, "_id");
+ * try {
+ *     Assertion.assertEquals(expectedDataSet.getTable("widget"), new CursorTable("widget", cursor));
+ * } finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ * The cursor is only moved when a value from a different row is retrieved, so reading a table row
+ * by row, as DBUnit's assertions do for tables with the same ordering, reads each cursor window
+ * once. The table doesn't take ownership of the cursor, which must stay open while the table is
+ * used and can be closed by the caller or through {@link #close()}.
+ */
+public class CursorTable extends AbstractTable implements Closeable {
+    private final ITableMetaData metaData;
+    private final Cursor cursor;
+    private final int[] cursorColumnIndexes;
+
+    /**
+     * Creates a table with a column for each of the cursor's columns. Cursors carry no declared
+     * types, so each column's type is derived from its value in the first row.
+     */
+    public CursorTable(String tableName, Cursor cursor) throws DataSetException {
+        this(createMetaData(tableName, cursor), cursor);
+    }
+
+    /**
+     * Creates a table with the columns described by the given metadata, each of which is read from
+     * the cursor column with the same name.
+     *
+     * @throws DataSetException If the cursor lacks one of the columns.
+     */
+    public CursorTable(ITableMetaData metaData, Cursor cursor) throws DataSetException {
+        this.metaData = metaData;
+        this.cursor = cursor;
+
+        Column[] columns = metaData.getColumns();
+        cursorColumnIndexes = new int[columns.length];
+        for(int i = 0; i < columns.length; i++) {
+            cursorColumnIndexes[i] = cursor.getColumnIndex(columns[i].getColumnName());
+            if(cursorColumnIndexes[i] == -1) {
+                throw new DataSetException("Cursor has no column named " + columns[i].getColumnName() + ".");
+            }
+        }
+    }
+
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public int getRowCount() {
+        return cursor.getCount();
+    }
+
+    @Override
+    public Object getValue(int row, String columnName) throws DataSetException {
+        assertValidRowIndex(row);
+
+        if(cursor.getPosition() != row && !cursor.moveToPosition(row)) {
+            throw new RowOutOfBoundsException(row + " is not a position of the cursor.");
+        }
+
+        return SQLiteSql.getValue(cursor, cursorColumnIndexes[getColumnIndex(columnName)]);
+    }
+
+    /** Closes the underlying cursor. */
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+    private static ITableMetaData createMetaData(String tableName, Cursor cursor) {
+        Column[] columns = new Column[cursor.getColumnCount()];
+        boolean hasRows = cursor.moveToFirst();
+        for(int i = 0; i < columns.length; i++) {
+            DataType dataType = hasRows
+                    ? SQLiteSql.getDataType(cursor.getType(i))
+                    : DataType.UNKNOWN;
+
+            columns[i] = new Column(cursor.getColumnName(i), dataType);
+        }
+
+        return new DefaultTableMetaData(tableName, columns);
+    }
+}
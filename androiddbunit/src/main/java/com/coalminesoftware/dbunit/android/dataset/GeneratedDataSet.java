@@ -0,0 +1,177 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data set whose rows are generated on demand rather than read from a file, for seeding databases
+ * with far more rows than could be checked in as fixtures or held in memory. Each table is declared
+ * with a row count and a {@link ValueGenerator} for each column.
+ * <pre>
+ * IDataSet dataSet = new GeneratedDataSet.Builder(42)
+ *         .addTable("customer", 100000)
+ *         .addColumn("_id", ValueGenerators.sequence(1))
+ *         .addColumn("name", ValueGenerators.randomString(5, 20))
+ *         .addTable("purchase", 5000000)
+ *         .addColumn("_id", ValueGenerators.sequence(1))
+ *         .addColumn("customer_id", ValueGenerators.reference("customer", "_id"))
+ *         .addColumn("price", ValueGenerators.randomDouble(0, 100))
+ *         .build();
+ * </pre>
+ * Every value is a function of the seed, its table, column and row, so the same seed always
+ * produces the same data set, and rows can be read in any order without any being stored. Loading
+ * the data set with {@link com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation}
+ * inserts rows as they're generated.
+ */
+public class GeneratedDataSet extends AbstractDataSet {
+    /** The increment used by SplitMix64, which spreads consecutive inputs across the range of longs. */
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final ITable[] tables;
+
+    private GeneratedDataSet(ITable[] tables) {
+        this.tables = tables;
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        return new DefaultTableIterator(tables, reversed);
+    }
+
+    /** Mixes the bits of the given value, as SplitMix64 does to produce each of its outputs. */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /** Builds a data set from tables declared in the order they should be inserted. */
+    public static class Builder {
+        private final long seed;
+        private final List<TableDeclaration> tableDeclarations = new ArrayList<TableDeclaration>();
+
+        /** @param seed The seed from which every random value in the data set is derived. */
+        public Builder(long seed) {
+            this.seed = seed;
+        }
+
+        /** Adds a table, to which subsequently added columns belong. */
+        public Builder addTable(String tableName, int rowCount) {
+            tableDeclarations.add(new TableDeclaration(tableName, rowCount));
+            return this;
+        }
+
+        /** Adds a column of unknown type to the most recently added table. */
+        public Builder addColumn(String columnName, ValueGenerator generator) {
+            return addColumn(columnName, DataType.UNKNOWN, generator);
+        }
+
+        /** Adds a column to the most recently added table. */
+        public Builder addColumn(String columnName, DataType dataType, ValueGenerator generator) {
+            getCurrentTable().columns.add(new Column(columnName, dataType));
+            getCurrentTable().generators.add(generator);
+            return this;
+        }
+
+        /** Sets the primary key columns of the most recently added table. */
+        public Builder setPrimaryKey(String... columnNames) {
+            getCurrentTable().primaryKeys = columnNames;
+            return this;
+        }
+
+        public GeneratedDataSet build() throws DataSetException {
+            Map<String, ITable> tablesByName = new TreeMap<String, ITable>(String.CASE_INSENSITIVE_ORDER);
+            ITable[] tables = new ITable[tableDeclarations.size()];
+            for(int i = 0; i < tables.length; i++) {
+                TableDeclaration declaration = tableDeclarations.get(i);
+                tables[i] = new GeneratedTable(declaration, seed);
+                tablesByName.put(declaration.tableName, tables[i]);
+            }
+
+            // References are bound once every table exists, so tables can reference those added later.
+            for(TableDeclaration declaration : tableDeclarations) {
+                for(ValueGenerator generator : declaration.generators) {
+                    if(generator instanceof ValueGenerators.ReferenceGenerator) {
+                        ((ValueGenerators.ReferenceGenerator)generator).bind(tablesByName);
+                    }
+                }
+            }
+
+            return new GeneratedDataSet(tables);
+        }
+
+        private TableDeclaration getCurrentTable() {
+            if(tableDeclarations.isEmpty()) {
+                throw new IllegalStateException("A table must be added before its columns.");
+            }
+
+            return tableDeclarations.get(tableDeclarations.size() - 1);
+        }
+    }
+
+    private static class TableDeclaration {
+        private final String tableName;
+        private final int rowCount;
+        private final List<Column> columns = new ArrayList<Column>();
+        private final List<ValueGenerator> generators = new ArrayList<ValueGenerator>();
+        private String[] primaryKeys = new String[0];
+
+        private TableDeclaration(String tableName, int rowCount) {
+            this.tableName = tableName;
+            this.rowCount = rowCount;
+        }
+    }
+
+    /** Table that generates each value when it's retrieved. */
+    private static class GeneratedTable extends AbstractTable {
+        private final ITableMetaData metaData;
+        private final int rowCount;
+        private final ValueGenerator[] generators;
+        private final long[] columnSeeds;
+
+        private GeneratedTable(TableDeclaration declaration, long seed) {
+            Column[] columns = declaration.columns.toArray(new Column[declaration.columns.size()]);
+            metaData = new DefaultTableMetaData(declaration.tableName, columns, declaration.primaryKeys);
+            rowCount = declaration.rowCount;
+            generators = declaration.generators.toArray(new ValueGenerator[declaration.generators.size()]);
+
+            // Each column gets an independent stream of random values, which doesn't change when
+            // other columns or tables are added to the data set.
+            columnSeeds = new long[columns.length];
+            for(int i = 0; i < columns.length; i++) {
+                columnSeeds[i] = mix(seed ^ mix((declaration.tableName + "." + columns[i].getColumnName()).hashCode()));
+            }
+        }
+
+        @Override
+        public ITableMetaData getTableMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public Object getValue(int row, String columnName) throws DataSetException {
+            assertValidRowIndex(row);
+
+            int column = getColumnIndex(columnName);
+            return generators[column].generate(row, mix(columnSeeds[column] + (row + 1L) * GOLDEN_GAMMA));
+        }
+    }
+}
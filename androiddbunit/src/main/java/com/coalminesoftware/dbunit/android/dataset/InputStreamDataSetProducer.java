@@ -0,0 +1,58 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import com.coalminesoftware.dbunit.android.closeable.CloseableTemplate;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.stream.IDataSetConsumer;
+import org.dbunit.dataset.stream.IDataSetProducer;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Producer that opens an {@link InputStream} only once it's asked to produce, delegates to a
+ * format-specific producer reading from the stream, and closes the stream when done. This allows
+ * the stream to remain open for as long as a
+ * {@link org.dbunit.dataset.stream.StreamingDataSet} is being consumed.
+ */
+abstract class InputStreamDataSetProducer implements IDataSetProducer {
+    private IDataSetConsumer consumer;
+
+    @Override
+    public void setConsumer(IDataSetConsumer consumer) throws DataSetException {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void produce() throws DataSetException {
+        try {
+            new CloseableTemplate<Void, InputStream>() {
+                @Override
+                protected InputStream openCloseable() throws IOException {
+                    return openInputStream();
+                }
+
+                @Override
+                protected Void useCloseable(InputStream inputStream) throws Exception {
+                    IDataSetProducer producer = createProducer(inputStream);
+                    producer.setConsumer(consumer);
+                    producer.produce();
+
+                    return null;
+                }
+            }.execute();
+        } catch(DataSetException e) {
+            throw e;
+        } catch(FileNotFoundException e) {
+            throw new DataSetException(e.getMessage(), e);
+        } catch(Exception e) {
+            throw new DataSetException(e);
+        }
+    }
+
+    protected abstract InputStream openInputStream() throws IOException;
+
+    /** @return A producer that reads the data set from the given stream. */
+    protected abstract IDataSetProducer createProducer(InputStream inputStream) throws Exception;
+}
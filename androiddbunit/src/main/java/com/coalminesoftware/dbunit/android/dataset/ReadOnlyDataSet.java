@@ -0,0 +1,62 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.AbstractDataSet;
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableIterator;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data set whose tables can only be read, so that a data set shared between tests, like those of
+ * the {@link AndroidDataSetCache}, can't be changed through them. Each table wraps the
+ * corresponding table of the given data set, hiding any methods for modifying it, like those of
+ * {@link org.dbunit.dataset.DefaultTable}.
+ */
+class ReadOnlyDataSet extends AbstractDataSet {
+    private final ITable[] tables;
+
+    ReadOnlyDataSet(IDataSet dataSet) throws DataSetException {
+        super(dataSet.isCaseSensitiveTableNames());
+
+        List<ITable> tables = new ArrayList<ITable>();
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            tables.add(new ReadOnlyTable(iterator.getTable()));
+        }
+        this.tables = tables.toArray(new ITable[tables.size()]);
+    }
+
+    @Override
+    protected ITableIterator createIterator(boolean reversed) throws DataSetException {
+        return new DefaultTableIterator(tables, reversed);
+    }
+
+    private static class ReadOnlyTable extends AbstractTable {
+        private final ITable table;
+
+        private ReadOnlyTable(ITable table) {
+            this.table = table;
+        }
+
+        @Override
+        public ITableMetaData getTableMetaData() {
+            return table.getTableMetaData();
+        }
+
+        @Override
+        public int getRowCount() {
+            return table.getRowCount();
+        }
+
+        @Override
+        public Object getValue(int row, String columnName) throws DataSetException {
+            return table.getValue(row, columnName);
+        }
+    }
+}
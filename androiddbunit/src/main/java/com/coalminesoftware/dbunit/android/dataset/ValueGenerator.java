@@ -0,0 +1,17 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+/**
+ * Generates the values of a column of a {@link GeneratedDataSet} table. A value must depend only
+ * on the row and the random value provided for it, so that any row can be generated on demand, in
+ * any order, and always has the same values for the same seed.
+ *
+ * @see ValueGenerators
+ */
+public interface ValueGenerator {
+    /**
+     * @param row The index of the row whose value is generated.
+     * @param random A pseudorandom value derived from the data set's seed, the table, the column and
+     * the row.
+     */
+    Object generate(int row, long random);
+}
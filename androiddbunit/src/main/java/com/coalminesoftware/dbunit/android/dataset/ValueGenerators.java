@@ -0,0 +1,170 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+
+import java.util.Locale;
+import java.util.Map;
+
+/** Common {@link ValueGenerator}s for the columns of {@link GeneratedDataSet} tables. */
+public class ValueGenerators {
+    private static final char[] ALPHANUMERIC_CHARACTERS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private ValueGenerators() { }
+
+    /** @return A generator of the same value for every row. */
+    public static ValueGenerator constant(final Object value) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return value;
+            }
+        };
+    }
+
+    /** @return A generator of consecutive longs, beginning with the given value for the first row. */
+    public static ValueGenerator sequence(long start) {
+        return sequence(start, 1);
+    }
+
+    /** @return A generator of longs, beginning with the given value and increasing by the step. */
+    public static ValueGenerator sequence(final long start, final long step) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return start + row * step;
+            }
+        };
+    }
+
+    /**
+     * @return A generator of strings formatted with the row's index, such as "Widget %d", which
+     * produces "Widget 0", "Widget 1" and so on.
+     */
+    public static ValueGenerator format(final String pattern) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return String.format(Locale.US, pattern, row);
+            }
+        };
+    }
+
+    /** @return A generator of random longs between the given bounds, inclusive. */
+    public static ValueGenerator randomLong(final long min, final long max) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return min + bound(random, max - min + 1);
+            }
+        };
+    }
+
+    /** @return A generator of random doubles at least the minimum and less than the maximum. */
+    public static ValueGenerator randomDouble(final double min, final double max) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return min + toUnitDouble(random) * (max - min);
+            }
+        };
+    }
+
+    /** @return A generator of random alphanumeric strings with lengths between the given bounds, inclusive. */
+    public static ValueGenerator randomString(final int minLength, final int maxLength) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                int length = minLength + (int)bound(random, maxLength - minLength + 1);
+
+                char[] characters = new char[length];
+                long state = random;
+                for(int i = 0; i < length; i++) {
+                    state = GeneratedDataSet.mix(state + GeneratedDataSet.GOLDEN_GAMMA);
+                    characters[i] = ALPHANUMERIC_CHARACTERS[(int)bound(state, ALPHANUMERIC_CHARACTERS.length)];
+                }
+
+                return new String(characters);
+            }
+        };
+    }
+
+    /** @return A generator that randomly chooses one of the given values for each row. */
+    public static ValueGenerator oneOf(final Object... values) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                return values[(int)bound(random, values.length)];
+            }
+        };
+    }
+
+    /**
+     * @return A generator that produces null for the given fraction of rows, chosen at random, and
+     * the given generator's values for the others.
+     */
+    public static ValueGenerator nullable(final ValueGenerator generator, final double nullFraction) {
+        return new ValueGenerator() {
+            @Override
+            public Object generate(int row, long random) {
+                long valueRandom = GeneratedDataSet.mix(random);
+                return toUnitDouble(random) < nullFraction ? null : generator.generate(row, valueRandom);
+            }
+        };
+    }
+
+    /**
+     * @return A generator of references to randomly chosen rows of another table in the same data
+     * set, producing the value of the given column, such as its primary key, for the chosen row.
+     * The referenced table must be added to the data set, though it may be added after the table
+     * that references it.
+     */
+    public static ValueGenerator reference(String tableName, String columnName) {
+        return new ReferenceGenerator(tableName, columnName);
+    }
+
+    /** @return A value from 0 to the bound, exclusive, using the random value's high bits. */
+    private static long bound(long random, long bound) {
+        return (random >>> 1) % bound;
+    }
+
+    private static double toUnitDouble(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    /** Generator of references, which is bound to the referenced table once the data set is built. */
+    static class ReferenceGenerator implements ValueGenerator {
+        private final String tableName;
+        private final String columnName;
+        private ITable table;
+
+        private ReferenceGenerator(String tableName, String columnName) {
+            this.tableName = tableName;
+            this.columnName = columnName;
+        }
+
+        void bind(Map<String, ITable> tablesByName) throws DataSetException {
+            table = tablesByName.get(tableName);
+            if(table == null) {
+                throw new DataSetException("Referenced table " + tableName + " is not part of the data set.");
+            }
+
+            if(table.getRowCount() == 0) {
+                throw new DataSetException("Referenced table " + tableName + " has no rows.");
+            }
+
+            // Fail now, rather than when the first row is generated, if the column doesn't exist.
+            table.getTableMetaData().getColumnIndex(columnName);
+        }
+
+        @Override
+        public Object generate(int row, long random) {
+            try {
+                return table.getValue((int)bound(random, table.getRowCount()), columnName);
+            } catch(DataSetException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.coalminesoftware.dbunit.android.operation;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.database.AndroidSQLiteDatabaseConnection;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.database.SQLiteSql;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operation with the same effect as {@link DatabaseOperation#CLEAN_INSERT}, optimized for loading
+ * large data sets into SQLite. The entire load happens in a single transaction, rather than one
+ * per row, and prepared statements are reused for all of a table's rows. The transaction is nested
+ * within any the connection already has in progress. As with CLEAN_INSERT, columns whose value is
+ * {@link ITable#NO_VALUE} are left out of a row's INSERT, so that their declared defaults apply; a
+ * statement is prepared for each set of columns that rows have values for.
+ * <p>
+ * Optionally, foreign key enforcement and synchronous writes can be disabled for the duration of
+ * the load. Both settings are restored to their prior values afterward. SQLite ignores changes to
+ * foreign key enforcement within a transaction, so foreign keys remain enforced if the connection
+ * already has one in progress.
+ * <p>
+ * Rows are read in a single forward pass, so a {@link StreamingDataSet} can be loaded without
+ * holding its rows in memory. In that case, each table is cleaned just before being loaded, rather
+ * than all being cleaned in reverse order first.
+ * <p>
+ * The operation can be returned from {@link org.dbunit.DatabaseTestCase#getSetUpOperation()} or
+ * {@link com.coalminesoftware.dbunit.android.AndroidDbTestCase#getSetUpOperation()}, or executed
+ * directly.
+ */
+public class AndroidBulkLoadOperation extends DatabaseOperation {
+    private static final int ROWS_PER_BATCH = 1000;
+    private static final String SAVEPOINT_NAME = "dbunit_bulk_load";
+
+    private final boolean foreignKeysDisabled;
+    private final boolean synchronousWritesDisabled;
+
+    /** Creates an operation that leaves foreign key and synchronous write settings unchanged. */
+    public AndroidBulkLoadOperation() {
+        this(false, false);
+    }
+
+    /**
+     * @param foreignKeysDisabled Whether to turn off foreign key enforcement while loading, so that
+     * tables can be cleaned and loaded regardless of the order in which they appear in the data set.
+     * @param synchronousWritesDisabled Whether to set PRAGMA synchronous to OFF while loading, so
+     * that SQLite doesn't wait for data to be flushed to storage when committing.
+     */
+    public AndroidBulkLoadOperation(boolean foreignKeysDisabled, boolean synchronousWritesDisabled) {
+        this.foreignKeysDisabled = foreignKeysDisabled;
+        this.synchronousWritesDisabled = synchronousWritesDisabled;
+    }
+
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        // Foreign key enforcement can't be changed within a transaction, so both settings are
+        // changed around the load's.
+        Object foreignKeys = null;
+        if(foreignKeysDisabled) {
+            foreignKeys = DatabaseConnectionUtils.queryForValue(connection, "PRAGMA foreign_keys");
+            DatabaseConnectionUtils.execute(connection, "PRAGMA foreign_keys = OFF");
+        }
+
+        Object synchronous = null;
+        if(synchronousWritesDisabled) {
+            synchronous = DatabaseConnectionUtils.queryForValue(connection, "PRAGMA synchronous");
+            DatabaseConnectionUtils.execute(connection, "PRAGMA synchronous = OFF");
+        }
+
+        try {
+            load(connection, dataSet);
+        } finally {
+            if(synchronous != null) {
+                DatabaseConnectionUtils.execute(connection, "PRAGMA synchronous = " + synchronous);
+            }
+            if(foreignKeys != null) {
+                DatabaseConnectionUtils.execute(connection, "PRAGMA foreign_keys = " + foreignKeys);
+            }
+        }
+    }
+
+    /**
+     * Loads the data set in a transaction, nested within any the connection already has in
+     * progress, as {@link com.coalminesoftware.dbunit.android.database.DatabaseSnapshot} does.
+     */
+    private static void load(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        if(connection instanceof AndroidSQLiteDatabaseConnection) {
+            SQLiteDatabase database = ((AndroidSQLiteDatabaseConnection)connection).getDatabase();
+            database.beginTransactionNonExclusive();
+            try {
+                cleanAndInsert(connection, dataSet);
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        } else {
+            DatabaseConnectionUtils.execute(connection, "SAVEPOINT " + SAVEPOINT_NAME);
+
+            boolean successful = false;
+            try {
+                cleanAndInsert(connection, dataSet);
+                successful = true;
+            } finally {
+                if(!successful) {
+                    DatabaseConnectionUtils.execute(connection, "ROLLBACK TO " + SAVEPOINT_NAME);
+                }
+                DatabaseConnectionUtils.execute(connection, "RELEASE " + SAVEPOINT_NAME);
+            }
+        }
+    }
+
+    private static void cleanAndInsert(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        if(dataSet instanceof StreamingDataSet) {
+            // A streaming data set can only be iterated over once, and only forward, so each
+            // table is cleaned immediately before being loaded.
+            deleteAndInsertEach(connection, dataSet);
+        } else {
+            deleteAll(connection, dataSet);
+            insertAll(connection, dataSet);
+        }
+    }
+
+    /** Deletes the rows of the data set's tables, in reverse order to respect dependencies. */
+    private static void deleteAll(IDatabaseConnection connection, IDataSet dataSet) throws DataSetException, SQLException {
+        ITableIterator iterator = dataSet.reverseIterator();
+        while(iterator.next()) {
+            DatabaseConnectionUtils.execute(connection,
+                    "DELETE FROM " + SQLiteSql.quoteIdentifier(iterator.getTableMetaData().getTableName()));
+        }
+    }
+
+    private static void insertAll(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        IDataSet databaseDataSet = connection.createDataSet();
+
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            insert(connection, databaseDataSet, iterator.getTable());
+        }
+    }
+
+    private static void deleteAndInsertEach(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        IDataSet databaseDataSet = connection.createDataSet();
+
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            ITable table = iterator.getTable();
+
+            DatabaseConnectionUtils.execute(connection,
+                    "DELETE FROM " + SQLiteSql.quoteIdentifier(table.getTableMetaData().getTableName()));
+            insert(connection, databaseDataSet, table);
+        }
+    }
+
+    private static void insert(IDatabaseConnection connection, IDataSet databaseDataSet, ITable table)
+            throws DatabaseUnitException, SQLException {
+        ITableMetaData metaData = table.getTableMetaData();
+        Column[] columns = getDatabaseColumns(metaData, databaseDataSet.getTableMetaData(metaData.getTableName()));
+        if(columns.length == 0) {
+            return;
+        }
+
+        // Columns without a value in a row are left out of its INSERT, so that their defaults
+        // apply. Rows are grouped by the columns they have values for, and each group's statement
+        // is prepared once and reused for all of the group's rows.
+        Map<BitSet, IPreparedBatchStatement> statements = new HashMap<BitSet, IPreparedBatchStatement>();
+        try {
+            IPreparedBatchStatement statement = null;
+            int batchedRowCount = 0;
+
+            // Rows are read until the table runs out, rather than by row count, so that tables
+            // which can only be read sequentially are supported.
+            for(int row = 0; ; row++) {
+                Object[] values = new Object[columns.length];
+                try {
+                    values[0] = table.getValue(row, columns[0].getColumnName());
+                } catch(RowOutOfBoundsException e) {
+                    break;
+                }
+
+                BitSet valuedColumns = new BitSet(columns.length);
+                for(int i = 0; i < columns.length; i++) {
+                    if(i > 0) {
+                        values[i] = table.getValue(row, columns[i].getColumnName());
+                    }
+                    if(values[i] != ITable.NO_VALUE) {
+                        valuedColumns.set(i);
+                    }
+                }
+
+                IPreparedBatchStatement rowStatement = statements.get(valuedColumns);
+                if(rowStatement == null) {
+                    rowStatement = DatabaseConnectionUtils.getStatementFactory(connection).createPreparedBatchStatement(
+                            buildInsertStatement(metaData.getTableName(), columns, valuedColumns), connection);
+                    statements.put(valuedColumns, rowStatement);
+                }
+
+                // Rows batched for another group are executed first, so that rows are inserted in
+                // the order they appear, as generated keys depend on it.
+                if(rowStatement != statement && statement != null) {
+                    statement.executeBatch();
+                    statement.clearBatch();
+                    batchedRowCount = 0;
+                }
+                statement = rowStatement;
+
+                for(int i = valuedColumns.nextSetBit(0); i >= 0; i = valuedColumns.nextSetBit(i + 1)) {
+                    statement.addValue(values[i], columns[i].getDataType());
+                }
+                statement.addBatch();
+
+                if(++batchedRowCount == ROWS_PER_BATCH) {
+                    statement.executeBatch();
+                    statement.clearBatch();
+                    batchedRowCount = 0;
+                }
+            }
+
+            if(statement != null) {
+                statement.executeBatch();
+                statement.clearBatch();
+            }
+        } finally {
+            for(IPreparedBatchStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * @return The database's definitions of the columns in the given data set table, so that values
+     * are bound using the types declared in the database.
+     */
+    private static Column[] getDatabaseColumns(ITableMetaData dataSetMetaData,
+            ITableMetaData databaseMetaData) throws DataSetException {
+        Column[] dataSetColumns = dataSetMetaData.getColumns();
+        Column[] databaseColumns = databaseMetaData.getColumns();
+
+        Column[] columns = new Column[dataSetColumns.length];
+        for(int i = 0; i < dataSetColumns.length; i++) {
+            columns[i] = Columns.getColumn(dataSetColumns[i].getColumnName(), databaseColumns);
+            if(columns[i] == null) {
+                throw new DataSetException("Column " + dataSetColumns[i].getColumnName()
+                        + " does not exist in table " + databaseMetaData.getTableName() + ".");
+            }
+        }
+
+        return columns;
+    }
+
+    private static String buildInsertStatement(String tableName, Column[] columns, BitSet valuedColumns) {
+        StringBuilder builder = new StringBuilder("INSERT INTO ")
+                .append(SQLiteSql.quoteIdentifier(tableName));
+
+        if(valuedColumns.isEmpty()) {
+            return builder.append(" DEFAULT VALUES").toString();
+        }
+
+        String separator = " (";
+        for(int i = valuedColumns.nextSetBit(0); i >= 0; i = valuedColumns.nextSetBit(i + 1)) {
+            builder.append(separator).append(SQLiteSql.quoteIdentifier(columns[i].getColumnName()));
+            separator = ", ";
+        }
+
+        builder.append(") VALUES (");
+        for(int i = 0; i < valuedColumns.cardinality(); i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+
+        return builder.append(")").toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.dbunit.database.ForwardOnlyResultSetTable;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IResultSetTableFactory;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * {@link IResultSetTableFactory} that counts the rows read into the tables created by the factory
+ * it wraps. Rows of tables that can only be read sequentially, whose row counts are unknown, aren't
+ * counted.
+ */
+public class CountingResultSetTableFactory implements IResultSetTableFactory {
+    private final IResultSetTableFactory tableFactory;
+    private final TestMetrics metrics;
+
+    public CountingResultSetTableFactory(IResultSetTableFactory tableFactory, TestMetrics metrics) {
+        this.tableFactory = tableFactory;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ITable createTable(String tableName, String selectStatement, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        return count(tableFactory.createTable(tableName, selectStatement, connection));
+    }
+
+    @Override
+    public ITable createTable(String tableName, PreparedStatement preparedStatement, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        return count(tableFactory.createTable(tableName, preparedStatement, connection));
+    }
+
+    @Override
+    public ITable createTable(ITableMetaData metaData, IDatabaseConnection connection)
+            throws DataSetException, SQLException {
+        return count(tableFactory.createTable(metaData, connection));
+    }
+
+    private ITable count(ITable table) {
+        if(!(table instanceof ForwardOnlyResultSetTable)) {
+            metrics.increment(TestMetrics.Counter.ROWS_QUERIED, table.getRowCount());
+        }
+
+        return table;
+    }
+}
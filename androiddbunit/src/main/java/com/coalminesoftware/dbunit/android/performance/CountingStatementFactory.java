@@ -0,0 +1,105 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IBatchStatement;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * {@link IStatementFactory} that counts the statements executed and rows inserted through the
+ * statements of the factory it wraps.
+ */
+public class CountingStatementFactory implements IStatementFactory {
+    private final IStatementFactory statementFactory;
+    private final TestMetrics metrics;
+
+    public CountingStatementFactory(IStatementFactory statementFactory, TestMetrics metrics) {
+        this.statementFactory = statementFactory;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IBatchStatement createBatchStatement(IDatabaseConnection connection) throws SQLException {
+        final IBatchStatement statement = statementFactory.createBatchStatement(connection);
+
+        return new IBatchStatement() {
+            private int statementCount;
+
+            @Override
+            public void addBatch(String sql) throws SQLException {
+                statement.addBatch(sql);
+                statementCount++;
+            }
+
+            @Override
+            public int executeBatch() throws SQLException {
+                int result = statement.executeBatch();
+                metrics.increment(TestMetrics.Counter.STATEMENTS_EXECUTED, statementCount);
+                statementCount = 0;
+
+                return result;
+            }
+
+            @Override
+            public void clearBatch() throws SQLException {
+                statement.clearBatch();
+                statementCount = 0;
+            }
+
+            @Override
+            public void close() throws SQLException {
+                statement.close();
+            }
+        };
+    }
+
+    @Override
+    public IPreparedBatchStatement createPreparedBatchStatement(String sql, IDatabaseConnection connection)
+            throws SQLException {
+        final IPreparedBatchStatement statement = statementFactory.createPreparedBatchStatement(sql, connection);
+        final boolean insert = sql.trim().toUpperCase(Locale.US).startsWith("INSERT");
+
+        return new IPreparedBatchStatement() {
+            private int rowCount;
+
+            @Override
+            public void addValue(Object value, DataType dataType) throws TypeCastException, SQLException {
+                statement.addValue(value, dataType);
+            }
+
+            @Override
+            public void addBatch() throws SQLException {
+                statement.addBatch();
+                rowCount++;
+            }
+
+            @Override
+            public int executeBatch() throws SQLException {
+                int result = statement.executeBatch();
+                metrics.increment(TestMetrics.Counter.STATEMENTS_EXECUTED, rowCount);
+                if(insert) {
+                    metrics.increment(TestMetrics.Counter.ROWS_INSERTED, rowCount);
+                }
+                rowCount = 0;
+
+                return result;
+            }
+
+            @Override
+            public void clearBatch() throws SQLException {
+                statement.clearBatch();
+                rowCount = 0;
+            }
+
+            @Override
+            public void close() throws SQLException {
+                statement.close();
+            }
+        };
+    }
+}
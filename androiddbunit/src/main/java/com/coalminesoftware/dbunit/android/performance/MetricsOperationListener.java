@@ -0,0 +1,34 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.dbunit.IOperationListener;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * {@link IOperationListener} that counts the connections DBUnit retrieves to execute its setup and
+ * teardown operations, before passing each event on to the listener it wraps.
+ */
+public class MetricsOperationListener implements IOperationListener {
+    private final IOperationListener listener;
+    private final TestMetrics metrics;
+
+    public MetricsOperationListener(IOperationListener listener, TestMetrics metrics) {
+        this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void connectionRetrieved(IDatabaseConnection connection) {
+        metrics.increment(TestMetrics.Counter.CONNECTIONS_OPENED, 1);
+        listener.connectionRetrieved(connection);
+    }
+
+    @Override
+    public void operationSetUpFinished(IDatabaseConnection connection) {
+        listener.operationSetUpFinished(connection);
+    }
+
+    @Override
+    public void operationTearDownFinished(IDatabaseConnection connection) {
+        listener.operationTearDownFinished(connection);
+    }
+}
@@ -0,0 +1,64 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on the {@link TestMetrics} of a test, which fail the test, and so the build, when they're
+ * exceeded. Budgets are opt-in, since times vary between devices and runs; counts, such as the
+ * statements a test executes, are stable and make for tighter limits.
+ *
+ * @see com.coalminesoftware.dbunit.android.AndroidDbTestCase#getPerformanceBudget()
+ */
+public class PerformanceBudget {
+    private final Map<TestMetrics.Phase, Long> maxPhaseNanos = new EnumMap<TestMetrics.Phase, Long>(TestMetrics.Phase.class);
+    private final Map<TestMetrics.Counter, Long> maxCounts = new EnumMap<TestMetrics.Counter, Long>(TestMetrics.Counter.class);
+
+    /**
+     * Limits the total time a test may spend in the given phase.
+     *
+     * @return This budget, so that limits can be chained.
+     */
+    public PerformanceBudget setMaxTime(TestMetrics.Phase phase, long duration, TimeUnit unit) {
+        maxPhaseNanos.put(phase, unit.toNanos(duration));
+        return this;
+    }
+
+    /**
+     * Limits the count a test may reach of the given counter.
+     *
+     * @return This budget, so that limits can be chained.
+     */
+    public PerformanceBudget setMaxCount(TestMetrics.Counter counter, long maxCount) {
+        maxCounts.put(counter, maxCount);
+        return this;
+    }
+
+    /** @return Descriptions of the limits the given metrics exceed, which is empty if there are none. */
+    public List<String> getViolations(TestMetrics metrics) {
+        List<String> violations = new ArrayList<String>();
+
+        for(Map.Entry<TestMetrics.Phase, Long> entry : maxPhaseNanos.entrySet()) {
+            long nanos = metrics.getTime(entry.getKey());
+            if(nanos > entry.getValue()) {
+                violations.add(String.format("%s took %d ms, over its budget of %d ms.",
+                        entry.getKey().getKey(),
+                        TimeUnit.NANOSECONDS.toMillis(nanos),
+                        TimeUnit.NANOSECONDS.toMillis(entry.getValue())));
+            }
+        }
+
+        for(Map.Entry<TestMetrics.Counter, Long> entry : maxCounts.entrySet()) {
+            long count = metrics.getCount(entry.getKey());
+            if(count > entry.getValue()) {
+                violations.add(String.format("%s was %d, over its budget of %d.",
+                        entry.getKey().getKey(), count, entry.getValue()));
+            }
+        }
+
+        return violations;
+    }
+}
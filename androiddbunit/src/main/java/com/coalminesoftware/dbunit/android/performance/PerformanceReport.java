@@ -0,0 +1,62 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import android.content.Context;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Report of the {@link TestMetrics} of each test in a run, written as JSON lines: one JSON object
+ * per test, appended as each test finishes, so that CI can collect the report and track its values
+ * over time.
+ * <pre>
+ * {"test":"com.example.FooTest#testBar","phases":{"createDatabase":12.5,...},"counters":{"rowsInserted":100,...}}
+ * </pre>
+ */
+public class PerformanceReport {
+    private static final String FILENAME_PREFIX = "dbunit-performance-";
+    private static final long RUN_START_TIME = System.currentTimeMillis();
+
+    private PerformanceReport() { }
+
+    /**
+     * @return A report file specific to the current run, in the given context's external files
+     * directory if it's available, or its internal files directory if not.
+     */
+    public static File getDefaultFile(Context context) {
+        File directory = context.getExternalFilesDir(null);
+        if(directory == null) {
+            directory = context.getFilesDir();
+        }
+
+        return new File(directory, FILENAME_PREFIX + RUN_START_TIME + ".jsonl");
+    }
+
+    /** Appends the given test's metrics to the report file. */
+    public static synchronized void append(File reportFile, String testName, TestMetrics metrics) throws IOException {
+        String line;
+        try {
+            JSONObject json = metrics.toJson();
+            line = new JSONObject()
+                    .put("test", testName)
+                    .put("phases", json.get("phases"))
+                    .put("counters", json.get("counters"))
+                    .toString();
+        } catch(JSONException e) {
+            throw new IOException("Unable to write metrics for " + testName + ".", e);
+        }
+
+        Writer writer = new FileWriter(reportFile, true);
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import com.coalminesoftware.dbunit.android.database.SQLiteSql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Captures the queries run through databases opened with one of its {@link SQLiteDatabase.CursorFactory
+ * cursor factories}, and records those whose plans scan a table with more than a threshold number
+ * of rows in full, rather than searching it through an index. Each distinct query's plan is read
+ * with EXPLAIN QUERY PLAN the first time the query is run, against the database it's run on, so
+ * that it reflects that database's indexes and the size of its tables at the time.
+ * <p>
+ * Only queries returning cursors are captured; statements compiled with
+ * {@link SQLiteDatabase#compileStatement(String)} or executed with
+ * {@link SQLiteDatabase#execSQL(String)} aren't.
+ */
+public class QueryPlanProfiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryPlanProfiler.class);
+
+    private static final String QUERY_DESCRIPTION_PREFIX = "SQLiteQuery: ";
+    /**
+     * Matches a plan's full scan of a table, as opposed to a search or a scan of an index. Before
+     * SQLite 3.8, as on API levels below 21, plan details end with the estimated row count, as in
+     * "SCAN TABLE widget (~100000 rows)". Since SQLite 3.36, "TABLE" is left out.
+     */
+    private static final Pattern FULL_TABLE_SCAN = Pattern.compile("SCAN (?:TABLE )?(\\S+)(?: AS \\S+)?(?: \\(~\\d+ rows?\\))?");
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*)"
+            + " FROM (SELECT type, name FROM sqlite_master UNION ALL SELECT type, name FROM sqlite_temp_master)"
+            + " WHERE type = 'table' AND name = ? COLLATE NOCASE";
+
+    /** Factory for the profiler's own queries, so that they aren't profiled. */
+    private static final SQLiteDatabase.CursorFactory UNPROFILED_CURSOR_FACTORY = new SQLiteDatabase.CursorFactory() {
+        @Override
+        public Cursor newCursor(SQLiteDatabase database, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+            return new SQLiteCursor(driver, editTable, query);
+        }
+    };
+
+    private final long rowThreshold;
+    private final Set<String> profiledQueries = new HashSet<String>();
+    private final List<FullTableScan> fullTableScans = new ArrayList<FullTableScan>();
+
+    /** @param rowThreshold The number of rows a table may have and still be scanned in full. */
+    public QueryPlanProfiler(long rowThreshold) {
+        this.rowThreshold = rowThreshold;
+    }
+
+    /**
+     * @return A cursor factory that profiles each query before creating its cursor with the given
+     * factory, or as {@link SQLiteDatabase} would by default if the given factory is null.
+     */
+    public SQLiteDatabase.CursorFactory createCursorFactory(final SQLiteDatabase.CursorFactory cursorFactory) {
+        return new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase database, SQLiteCursorDriver driver, String editTable,
+                    SQLiteQuery query) {
+                profile(database, getSql(query));
+
+                return cursorFactory == null
+                        ? new SQLiteCursor(driver, editTable, query)
+                        : cursorFactory.newCursor(database, driver, editTable, query);
+            }
+        };
+    }
+
+    /** @return The full scans of tables above the threshold, in the order they were found. */
+    public synchronized List<FullTableScan> getFullTableScans() {
+        return new ArrayList<FullTableScan>(fullTableScans);
+    }
+
+    private static String getSql(SQLiteQuery query) {
+        // The SQL is only exposed through the query's description.
+        String description = query.toString();
+        return description.startsWith(QUERY_DESCRIPTION_PREFIX)
+                ? description.substring(QUERY_DESCRIPTION_PREFIX.length())
+                : description;
+    }
+
+    /**
+     * Reads the query's plan and records its full scans of large tables. The plan is read outside
+     * of the profiler's lock, since the database may be waiting on another thread's transaction,
+     * and that thread may in turn be waiting to profile a query of its own.
+     */
+    private void profile(SQLiteDatabase database, String sql) {
+        synchronized(this) {
+            if(!profiledQueries.add(sql)) {
+                return;
+            }
+        }
+
+        List<FullTableScan> queryFullTableScans;
+        try {
+            queryFullTableScans = findFullTableScans(database, sql);
+        } catch(RuntimeException e) {
+            // Profiling must never break the query being profiled.
+            LOGGER.debug("Unable to profile query " + sql + ".", e);
+            return;
+        }
+
+        synchronized(this) {
+            fullTableScans.addAll(queryFullTableScans);
+        }
+    }
+
+    private List<FullTableScan> findFullTableScans(SQLiteDatabase database, String sql) {
+        List<FullTableScan> queryFullTableScans = new ArrayList<FullTableScan>();
+
+        // Parameters are left unbound, which doesn't change the plan.
+        Cursor plan;
+        try {
+            plan = database.rawQueryWithFactory(UNPROFILED_CURSOR_FACTORY, "EXPLAIN QUERY PLAN " + sql, null, null);
+        } catch(SQLException e) {
+            LOGGER.debug("Unable to read query plan of " + sql + ".", e);
+            return queryFullTableScans;
+        }
+
+        try {
+            int detailColumnIndex = plan.getColumnIndexOrThrow("detail");
+            while(plan.moveToNext()) {
+                String detail = plan.getString(detailColumnIndex);
+                LOGGER.debug("Query plan of {}: {}", sql, detail);
+
+                String tableName = getFullyScannedTableName(detail);
+                if(tableName != null && isTable(database, tableName)) {
+                    long rowCount = DatabaseUtils.queryNumEntries(database, SQLiteSql.quoteIdentifier(tableName));
+                    if(rowCount > rowThreshold) {
+                        queryFullTableScans.add(new FullTableScan(sql, tableName, rowCount));
+                    }
+                }
+            }
+        } finally {
+            plan.close();
+        }
+
+        return queryFullTableScans;
+    }
+
+    /**
+     * @return The name of the table or other source, such as a view or common table expression,
+     * scanned in full by the step of a plan with the given detail, or null if the step isn't a full
+     * scan. Tables used internally by SQLite, like sqlite_master, are small and can't be indexed,
+     * so they're never reported.
+     */
+    static String getFullyScannedTableName(String planDetail) {
+        Matcher matcher = FULL_TABLE_SCAN.matcher(planDetail);
+        return matcher.matches() && !matcher.group(1).startsWith("sqlite_")
+                ? matcher.group(1)
+                : null;
+    }
+
+    /** @return Whether the scanned source is a table, rather than a subquery or a CTE's results. */
+    private static boolean isTable(SQLiteDatabase database, String name) {
+        return DatabaseUtils.longForQuery(database, TABLE_EXISTS_SQL, new String[] { name }) > 0;
+    }
+
+    /** A query whose plan scans every row of a table. */
+    public static class FullTableScan {
+        private final String sql;
+        private final String tableName;
+        private final long rowCount;
+
+        private FullTableScan(String sql, String tableName, long rowCount) {
+            this.sql = sql;
+            this.tableName = tableName;
+            this.rowCount = rowCount;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        /** @return The number of rows in the table when the query was first run. */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Full scan of " + tableName + " (" + rowCount + " rows): " + sql;
+        }
+    }
+}
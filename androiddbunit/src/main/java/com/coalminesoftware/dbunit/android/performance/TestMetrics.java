@@ -0,0 +1,119 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time a single test spent in each phase of its lifecycle, along with counts of the work it
+ * did, as collected by {@link com.coalminesoftware.dbunit.android.AndroidDbTestCase} when a
+ * performance report or budget is enabled.
+ *
+ * @see PerformanceReport
+ */
+public class TestMetrics {
+    /** The phases of a test that are timed. */
+    public enum Phase {
+        /** Creating the database's schema, in onCreateDatabase(). */
+        CREATE_DATABASE("createDatabase"),
+        /** Loading the data set used to populate the database, in getDataSet(). */
+        LOAD_DATA_SET("loadDataSet"),
+        /** Executing the setup operation, or restoring the tables modified by previous tests. */
+        SET_UP_OPERATION("setUpOperation"),
+        /** Opening the test's own database connection. */
+        CONNECT("connect"),
+        /** Running the test method, including any of the phases below called from it. */
+        TEST("test"),
+        /** Comparing data sets with assertDatabaseEquals(). */
+        ASSERTION("assertion"),
+        /** Taking snapshots of the database with snapshot(). */
+        SNAPSHOT("snapshot"),
+        /** Restoring snapshots of the database with restore(). */
+        RESTORE("restore"),
+        /** Executing the teardown operation. */
+        TEAR_DOWN_OPERATION("tearDownOperation");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+
+        /** @return The phase's name in reports. */
+        String getKey() {
+            return key;
+        }
+    }
+
+    /** The work done by a test that's counted. */
+    public enum Counter {
+        /** Database connections opened, whether by DBUnit or for the test itself. */
+        CONNECTIONS_OPENED("connectionsOpened"),
+        /** Rows inserted through the connections' statement factories. */
+        ROWS_INSERTED("rowsInserted"),
+        /** Rows read into tables through the connections' result set table factories. */
+        ROWS_QUERIED("rowsQueried"),
+        /** Statements executed through the connections' statement factories. */
+        STATEMENTS_EXECUTED("statementsExecuted"),
+        /** Bytes taken up by the snapshots of the database taken with snapshot(). */
+        SNAPSHOT_BYTES("snapshotBytes"),
+        /** Queries found to scan large tables in full, when profiling queries. */
+        FULL_TABLE_SCANS("fullTableScans");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        /** @return The counter's name in reports. */
+        String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<Phase, Long> phaseNanos = new EnumMap<Phase, Long>(Phase.class);
+    private final Map<Counter, Long> counts = new EnumMap<Counter, Long>(Counter.class);
+
+    /** Adds the given duration to the time spent in the phase. */
+    public synchronized void addTime(Phase phase, long nanos) {
+        Long total = phaseNanos.get(phase);
+        phaseNanos.put(phase, total == null ? nanos : total + nanos);
+    }
+
+    public synchronized void increment(Counter counter, long amount) {
+        Long total = counts.get(counter);
+        counts.put(counter, total == null ? amount : total + amount);
+    }
+
+    /** @return The total time spent in the phase, in nanoseconds. */
+    public synchronized long getTime(Phase phase) {
+        Long total = phaseNanos.get(phase);
+        return total == null ? 0 : total;
+    }
+
+    public synchronized long getCount(Counter counter) {
+        Long total = counts.get(counter);
+        return total == null ? 0 : total;
+    }
+
+    /** @return The metrics as JSON, with times in milliseconds. */
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONObject phases = new JSONObject();
+        for(Map.Entry<Phase, Long> entry : phaseNanos.entrySet()) {
+            phases.put(entry.getKey().key, entry.getValue() / (double)TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        JSONObject counters = new JSONObject();
+        for(Counter counter : Counter.values()) {
+            counters.put(counter.key, getCount(counter));
+        }
+
+        return new JSONObject()
+                .put("phases", phases)
+                .put("counters", counters);
+    }
+}
@@ -0,0 +1,31 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+import java.sql.SQLException;
+
+/** Operation that adds the time taken by the operation it wraps to a phase of a test's metrics. */
+public class TimedDatabaseOperation extends DatabaseOperation {
+    private final DatabaseOperation operation;
+    private final TestMetrics metrics;
+    private final TestMetrics.Phase phase;
+
+    public TimedDatabaseOperation(DatabaseOperation operation, TestMetrics metrics, TestMetrics.Phase phase) {
+        this.operation = operation;
+        this.metrics = metrics;
+        this.phase = phase;
+    }
+
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        long startTime = System.nanoTime();
+        try {
+            operation.execute(connection, dataSet);
+        } finally {
+            metrics.addTime(phase, System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class AndroidDataSetCacheTest {
+    private long originalMaxSize;
+
+    @Before
+    public void setUp() {
+        originalMaxSize = AndroidDataSetCache.getMaxSize();
+        AndroidDataSetCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        AndroidDataSetCache.setMaxSize(originalMaxSize);
+        AndroidDataSetCache.clear();
+    }
+
+    @Test
+    public void testHitAndMissCounts() throws Exception {
+        CountingLoader loader = new CountingLoader();
+
+        AndroidDataSetCache.get("a", loader);
+        assertEquals(0, AndroidDataSetCache.getHitCount());
+        assertEquals(1, AndroidDataSetCache.getMissCount());
+
+        AndroidDataSetCache.get("a", loader);
+        assertEquals(1, AndroidDataSetCache.getHitCount());
+        assertEquals(1, AndroidDataSetCache.getMissCount());
+
+        AndroidDataSetCache.get("b", loader);
+        assertEquals(1, AndroidDataSetCache.getHitCount());
+        assertEquals(2, AndroidDataSetCache.getMissCount());
+        assertEquals(2, loader.loadCount);
+
+        AndroidDataSetCache.clear();
+        assertEquals(0, AndroidDataSetCache.getHitCount());
+        assertEquals(0, AndroidDataSetCache.getMissCount());
+        assertEquals(0, AndroidDataSetCache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDataSetEvictedFirst() throws Exception {
+        CountingLoader loader = new CountingLoader();
+
+        AndroidDataSetCache.get("a", loader);
+        long dataSetSize = AndroidDataSetCache.getSize();
+        AndroidDataSetCache.get("b", loader);
+        AndroidDataSetCache.get("c", loader);
+        assertEquals(3 * dataSetSize, AndroidDataSetCache.getSize());
+
+        // Using "a" leaves "b" as the least recently used.
+        AndroidDataSetCache.get("a", loader);
+
+        AndroidDataSetCache.setMaxSize(3 * dataSetSize - 1);
+        assertEquals(2 * dataSetSize, AndroidDataSetCache.getSize());
+
+        AndroidDataSetCache.get("a", loader);
+        AndroidDataSetCache.get("c", loader);
+        assertEquals(3, loader.loadCount);
+
+        AndroidDataSetCache.get("b", loader);
+        assertEquals(4, loader.loadCount);
+
+        // Caching "b" again evicts "a", which is now the least recently used.
+        assertEquals(2 * dataSetSize, AndroidDataSetCache.getSize());
+        AndroidDataSetCache.get("c", loader);
+        assertEquals(4, loader.loadCount);
+        AndroidDataSetCache.get("a", loader);
+        assertEquals(5, loader.loadCount);
+    }
+
+    @Test
+    public void testDataSetLargerThanMaxSizeIsNotCached() throws Exception {
+        CountingLoader loader = new CountingLoader();
+
+        AndroidDataSetCache.get("a", loader);
+        long dataSetSize = AndroidDataSetCache.getSize();
+        AndroidDataSetCache.clear();
+        AndroidDataSetCache.setMaxSize(dataSetSize - 1);
+
+        // The data set is returned, but isn't cached, and doesn't evict anything.
+        assertEquals(2, AndroidDataSetCache.get("a", loader).getTable("widget").getRowCount());
+        assertEquals(0, AndroidDataSetCache.getSize());
+
+        AndroidDataSetCache.get("a", loader);
+        assertEquals(3, loader.loadCount);
+    }
+
+    @Test
+    public void testPrefetchedDataSetOnlyCachedInHalfOfCache() throws Exception {
+        CountingLoader loader = new CountingLoader();
+
+        AndroidDataSetCache.get("a", loader);
+        long dataSetSize = AndroidDataSetCache.getSize();
+        AndroidDataSetCache.setMaxSize(3 * dataSetSize);
+
+        // A second data set would fill two thirds of the cache, so a prefetched one isn't kept.
+        AndroidDataSetCache.get("b", loader, true);
+        assertEquals(dataSetSize, AndroidDataSetCache.getSize());
+
+        AndroidDataSetCache.get("b", loader);
+        assertEquals(2 * dataSetSize, AndroidDataSetCache.getSize());
+        assertEquals(3, loader.loadCount);
+
+        // Running out of room for prefetching doesn't evict data sets that were already cached.
+        AndroidDataSetCache.get("a", loader);
+        AndroidDataSetCache.get("b", loader);
+        assertEquals(3, loader.loadCount);
+    }
+
+    @Test
+    public void testCachedTablesAreReadOnly() throws Exception {
+        CountingLoader loader = new CountingLoader();
+
+        IDataSet dataSet = AndroidDataSetCache.get("a", loader);
+        assertSame(dataSet, AndroidDataSetCache.get("a", loader));
+
+        ITable table = dataSet.getTable("widget");
+        assertFalse(table instanceof DefaultTable);
+        assertEquals(2, table.getRowCount());
+        assertEquals("Bar", table.getValue(1, "name"));
+    }
+
+    private static class CountingLoader implements AndroidDataSetCache.DataSetLoader {
+        private int loadCount;
+
+        @Override
+        public IDataSet load() throws Exception {
+            loadCount++;
+
+            DefaultTable table = new DefaultTable("widget", new Column[] {
+                    new Column("_id", DataType.BIGINT),
+                    new Column("name", DataType.VARCHAR)});
+            table.addRow(new Object[] { 1L, "Foo" });
+            table.addRow(new Object[] { 2L, "Bar" });
+
+            return new DefaultDataSet(table);
+        }
+    }
+}
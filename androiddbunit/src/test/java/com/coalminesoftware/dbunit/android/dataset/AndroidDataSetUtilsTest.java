@@ -0,0 +1,111 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AndroidDataSetUtilsTest {
+    private static final String MISSING_RESOURCE = "datasets/missing";
+
+    /** Context whose class loader finds the fixtures in src/test/resources. */
+    private final Context context = new ContextWrapper(null) {
+        @Override
+        public ClassLoader getClassLoader() {
+            return AndroidDataSetUtilsTest.class.getClassLoader();
+        }
+    };
+
+    @Test
+    public void testGzipFlatXmlDataSet() throws Exception {
+        assertWidgetsRead(AndroidDataSetUtils.createGzipFlatXmlDataSet(context, "datasets/widgets_flat.xml.gz"));
+    }
+
+    @Test
+    public void testGzipXmlDataSet() throws Exception {
+        assertWidgetsRead(AndroidDataSetUtils.createGzipXmlDataSet(context, "datasets/widgets.xml.gz"));
+    }
+
+    @Test
+    public void testCsvDataSet() throws Exception {
+        assertCsvDataSetRead(AndroidDataSetUtils.createCsvDataSet(context, "datasets/widgets_csv"));
+    }
+
+    @Test
+    public void testCsvArchiveDataSet() throws Exception {
+        assertCsvDataSetRead(AndroidDataSetUtils.createCsvArchiveDataSet(context, "datasets/widgets_csv.zip"));
+    }
+
+    @Test
+    public void testMissingGzipResourceIsNamed() throws Exception {
+        try {
+            AndroidDataSetUtils.createGzipFlatXmlDataSet(context, MISSING_RESOURCE);
+            fail("Expected a missing resource to be reported.");
+        } catch(DataSetException e) {
+            assertMissingResourceNamed(e);
+        }
+    }
+
+    @Test
+    public void testMissingCsvArchiveResourceIsNamed() throws Exception {
+        try {
+            AndroidDataSetUtils.createCsvArchiveDataSet(context, MISSING_RESOURCE);
+            fail("Expected a missing resource to be reported.");
+        } catch(DataSetException e) {
+            assertMissingResourceNamed(e);
+        }
+    }
+
+    @Test
+    public void testMissingCsvDirectoryIsNamed() throws Exception {
+        try {
+            AndroidDataSetUtils.createCsvDataSet(context, MISSING_RESOURCE);
+            fail("Expected a missing resource to be reported.");
+        } catch(DataSetException e) {
+            assertMissingResourceNamed(e);
+        }
+    }
+
+    @Test
+    public void testMissingStreamingResourceIsNamed() throws Exception {
+        // Streaming data sets only open their resource once they're iterated over.
+        IDataSet dataSet = AndroidDataSetUtils.createStreamingFlatXmlDataSet(context, MISSING_RESOURCE);
+        try {
+            dataSet.iterator().next();
+            fail("Expected a missing resource to be reported.");
+        } catch(DataSetException e) {
+            assertMissingResourceNamed(e);
+        }
+    }
+
+    private static void assertWidgetsRead(IDataSet dataSet) throws DataSetException {
+        ITable table = dataSet.getTable("widget");
+        assertEquals(2, table.getRowCount());
+        assertEquals("1", table.getValue(0, "_id"));
+        assertEquals("Foo", table.getValue(0, "name"));
+        assertNull(table.getValue(1, "name"));
+    }
+
+    private static void assertCsvDataSetRead(IDataSet dataSet) throws DataSetException {
+        assertArrayEquals(new String[] { "widget", "gadget" }, dataSet.getTableNames());
+        assertWidgetsRead(dataSet);
+
+        ITable gadgetTable = dataSet.getTable("gadget");
+        assertEquals(1, gadgetTable.getRowCount());
+        assertEquals("1", gadgetTable.getValue(0, "widget_id"));
+        assertEquals("Bar, Baz", gadgetTable.getValue(0, "name"));
+    }
+
+    private static void assertMissingResourceNamed(DataSetException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains(MISSING_RESOURCE));
+    }
+}
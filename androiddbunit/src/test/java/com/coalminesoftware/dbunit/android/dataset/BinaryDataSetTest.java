@@ -0,0 +1,181 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.CachedDataSet;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryDataSetTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripOfEachValueType() throws Exception {
+        byte[] binary = write(createDataSet());
+
+        assertDataSetRead(new BinaryDataSet(ByteBuffer.wrap(binary)));
+        assertDataSetRead(new CachedDataSet(new BinaryDataSetProducer(ByteBuffer.wrap(binary))));
+    }
+
+    @Test
+    public void testTruncatedDataSetIsRejected() throws Exception {
+        byte[] binary = write(createDataSet());
+
+        try {
+            new BinaryDataSet(ByteBuffer.wrap(Arrays.copyOf(binary, binary.length - 1)));
+            fail("Expected a truncated data set to be rejected.");
+        } catch(DataSetException expected) { }
+    }
+
+    @Test
+    public void testNonBinaryDataIsRejected() throws Exception {
+        try {
+            new BinaryDataSet(ByteBuffer.wrap("<dataset/>".getBytes("UTF-8")));
+            fail("Expected data in another format to be rejected.");
+        } catch(DataSetException expected) { }
+    }
+
+    @Test
+    public void testConvertXmlDataSet() throws Exception {
+        File xmlFile = writeFile("widgets.xml", "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<!DOCTYPE dataset SYSTEM \"dataset.dtd\">\n"
+                + "<dataset>\n"
+                + "  <table name=\"widget\">\n"
+                + "    <column>_id</column>\n"
+                + "    <column>name</column>\n"
+                + "    <row><value>1</value><value>Foo</value></row>\n"
+                + "    <row><value>2</value><null/></row>\n"
+                + "  </table>\n"
+                + "</dataset>\n");
+
+        ITable table = convert(xmlFile).getTable("widget");
+        assertEquals(2, table.getRowCount());
+        assertEquals("1", table.getValue(0, "_id"));
+        assertEquals("Foo", table.getValue(0, "name"));
+        assertNull(table.getValue(1, "name"));
+    }
+
+    @Test
+    public void testConvertFlatXmlDataSet() throws Exception {
+        File xmlFile = writeFile("widgets.xml", "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<dataset>\n"
+                + "  <widget _id=\"1\" name=\"Foo\"/>\n"
+                + "  <widget _id=\"2\"/>\n"
+                + "</dataset>\n");
+
+        ITable table = convert(xmlFile).getTable("widget");
+        assertEquals(2, table.getRowCount());
+        assertEquals("Foo", table.getValue(0, "name"));
+        assertNull(table.getValue(1, "name"));
+    }
+
+    @Test
+    public void testXmlFileThatIsNotADataSetIsSkipped() throws Exception {
+        File xmlFile = writeFile("strings.xml", "<resources><string name=\"app_name\">Example</string></resources>");
+
+        assertFalse(BinaryDataSetConverter.convert(xmlFile, new File(temporaryFolder.getRoot(), "strings.dbub")));
+    }
+
+    private static IDataSet createDataSet() throws DataSetException {
+        DefaultTable table = new DefaultTable("gadget", new Column[] {
+                new Column("_id", DataType.BIGINT),
+                new Column("name", DataType.VARCHAR),
+                new Column("weight", DataType.DOUBLE),
+                new Column("price", DataType.DECIMAL),
+                new Column("image", DataType.BLOB)});
+        table.addRow(new Object[] { 1L, "Foo", 1.5, new BigDecimal("19.99"), new byte[] { 1, 2, 3 } });
+        table.addRow(new Object[] { 2, "Ünïcødé ✓", 2.5f, null, ITable.NO_VALUE });
+        table.addRow(new Object[] { 3L, "Foo", null, ITable.NO_VALUE, new byte[0] });
+
+        DefaultTable emptyTable = new DefaultTable("empty", new Column[] { new Column("_id", DataType.BIGINT) });
+
+        return new DefaultDataSet(new ITable[] { table, emptyTable });
+    }
+
+    private static void assertDataSetRead(IDataSet dataSet) throws DataSetException {
+        assertArrayEquals(new String[] { "gadget", "empty" }, dataSet.getTableNames());
+        assertEquals(0, dataSet.getTable("empty").getRowCount());
+
+        ITable table = dataSet.getTable("gadget");
+        assertEquals(3, table.getRowCount());
+        assertEquals(5, table.getTableMetaData().getColumns().length);
+
+        assertEquals(1L, table.getValue(0, "_id"));
+        assertEquals("Foo", table.getValue(0, "name"));
+        assertEquals(1.5, table.getValue(0, "weight"));
+        assertEquals("19.99", table.getValue(0, "price"));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[])table.getValue(0, "image"));
+
+        assertEquals(2L, table.getValue(1, "_id"));
+        assertEquals("Ünïcødé ✓", table.getValue(1, "name"));
+        assertEquals(2.5, table.getValue(1, "weight"));
+        assertNull(table.getValue(1, "price"));
+        assertSame(ITable.NO_VALUE, table.getValue(1, "image"));
+
+        assertEquals("Foo", table.getValue(2, "name"));
+        assertNull(table.getValue(2, "weight"));
+        assertSame(ITable.NO_VALUE, table.getValue(2, "price"));
+        assertArrayEquals(new byte[0], (byte[])table.getValue(2, "image"));
+    }
+
+    private static byte[] write(IDataSet dataSet) throws DataSetException, IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryDataSetWriter.write(dataSet, outputStream);
+
+        return outputStream.toByteArray();
+    }
+
+    private IDataSet convert(File xmlFile) throws Exception {
+        File binaryFile = new File(temporaryFolder.getRoot(), "converted.dbub");
+        assertTrue(BinaryDataSetConverter.convert(xmlFile, binaryFile));
+
+        FileInputStream inputStream = new FileInputStream(binaryFile);
+        try {
+            byte[] binary = new byte[(int)binaryFile.length()];
+            assertEquals(binary.length, inputStream.read(binary));
+
+            return new BinaryDataSet(ByteBuffer.wrap(binary));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,52 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarDataSetTest {
+    private static final String FLAT_XML = "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<dataset>\n"
+            + "  <widget _id=\"1\" name=\"Foo\"/>\n"
+            + "  <widget _id=\"2\"/>\n"
+            + "  <gadget _id=\"1\" widget_id=\"2\"/>\n"
+            + "</dataset>\n";
+
+    @Test
+    public void testDataSetFromProducer() throws Exception {
+        assertDataSetRead(new ColumnarDataSet(createProducer()));
+    }
+
+    @Test
+    public void testDataSetCopiedFromStreamingDataSet() throws Exception {
+        assertDataSetRead(new ColumnarDataSet(new StreamingDataSet(createProducer())));
+    }
+
+    private static FlatXmlProducer createProducer() {
+        return new FlatXmlProducer(new InputSource(new StringReader(FLAT_XML)));
+    }
+
+    private static void assertDataSetRead(IDataSet dataSet) throws Exception {
+        assertArrayEquals(new String[] { "widget", "gadget" }, dataSet.getTableNames());
+
+        ITable widgetTable = dataSet.getTable("widget");
+        assertEquals(2, widgetTable.getRowCount());
+        assertEquals("1", widgetTable.getValue(0, "_id"));
+        assertEquals("Foo", widgetTable.getValue(0, "name"));
+        assertEquals("2", widgetTable.getValue(1, "_id"));
+        assertNull(widgetTable.getValue(1, "name"));
+
+        ITable gadgetTable = dataSet.getTable("gadget");
+        assertEquals(1, gadgetTable.getRowCount());
+        assertEquals("2", gadgetTable.getValue(0, "widget_id"));
+    }
+}
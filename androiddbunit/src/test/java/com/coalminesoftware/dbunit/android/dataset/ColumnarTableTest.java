@@ -0,0 +1,172 @@
+package com.coalminesoftware.dbunit.android.dataset;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarTableTest {
+    // More rows than fit in one word of the null bitmap.
+    private static final int ROW_COUNT = 150;
+
+    @Test
+    public void testValuesOfEachColumnType() throws Exception {
+        ColumnarTable table = ColumnarTable.copyOf(createTable());
+
+        assertEquals(ROW_COUNT, table.getRowCount());
+        for(int row = 0; row < ROW_COUNT; row++) {
+            if(isNullRow(row)) {
+                assertNull(table.getValue(row, "integer"));
+                assertNull(table.getValue(row, "real"));
+                assertNull(table.getValue(row, "text"));
+                assertNull(table.getValue(row, "blob"));
+                assertNull(table.getValue(row, "numeric_text"));
+            } else {
+                assertEquals(Long.valueOf(row * 1000000000L), table.getValue(row, "integer"));
+                assertEquals(Double.valueOf(row / 4.0), table.getValue(row, "real"));
+                assertEquals(repeat('x', row % 5), table.getValue(row, "text"));
+                assertArrayEquals(new byte[] { (byte)row, (byte)(row + 1) }, (byte[])table.getValue(row, "blob"));
+                assertEquals(Integer.toString(-row), table.getValue(row, "numeric_text"));
+            }
+        }
+    }
+
+    @Test
+    public void testValuesAreBoxedOnEachCall() throws Exception {
+        ColumnarTable table = ColumnarTable.copyOf(createTable());
+
+        Object first = table.getValue(1, "blob");
+        ((byte[])first)[0] = 42;
+
+        // Blobs are copied out of the table's buffer, so changes to one don't affect the table.
+        assertArrayEquals(new byte[] { 1, 2 }, (byte[])table.getValue(1, "blob"));
+        assertTrue(table.getValue(1, "integer") instanceof Long);
+        assertTrue(table.getValue(1, "real") instanceof Double);
+        assertTrue(table.getValue(1, "numeric_text") instanceof String);
+    }
+
+    @Test
+    public void testNoValueCellsArePreserved() throws Exception {
+        DefaultTable source = new DefaultTable("widget", new Column[] {
+                new Column("_id", DataType.BIGINT),
+                new Column("name", DataType.VARCHAR)});
+        source.addRow(new Object[] { 1L, ITable.NO_VALUE });
+        source.addRow(new Object[] { 2L, "Foo" });
+        source.addRow(new Object[] { ITable.NO_VALUE, null });
+
+        ColumnarTable table = ColumnarTable.copyOf(source);
+
+        assertEquals(1L, table.getValue(0, "_id"));
+        assertSame(ITable.NO_VALUE, table.getValue(0, "name"));
+        assertEquals(2L, table.getValue(1, "_id"));
+        assertEquals("Foo", table.getValue(1, "name"));
+        assertSame(ITable.NO_VALUE, table.getValue(2, "_id"));
+        assertNull(table.getValue(2, "name"));
+    }
+
+    @Test
+    public void testColumnOfMixedValuesIsConverted() throws Exception {
+        DefaultTable source = new DefaultTable("widget", new Column[] {
+                new Column("code", DataType.VARCHAR),
+                new Column("value", DataType.UNKNOWN)});
+        source.addRow(new Object[] { "1", 1L });
+        source.addRow(new Object[] { null, null });
+        source.addRow(new Object[] { "01", "one" });
+
+        ColumnarTable table = ColumnarTable.copyOf(source);
+
+        // Values stored before the conversion are returned as they were added.
+        assertEquals("1", table.getValue(0, "code"));
+        assertNull(table.getValue(1, "code"));
+        assertEquals("01", table.getValue(2, "code"));
+        assertEquals(1L, table.getValue(0, "value"));
+        assertNull(table.getValue(1, "value"));
+        assertEquals("one", table.getValue(2, "value"));
+    }
+
+    @Test
+    public void testRowAfterLastIsOutOfBounds() throws Exception {
+        ColumnarTable table = ColumnarTable.copyOf(createTable());
+
+        try {
+            table.getValue(ROW_COUNT, "integer");
+            fail("Expected the row after the last to be out of bounds.");
+        } catch(RowOutOfBoundsException expected) { }
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        ColumnarTable table = ColumnarTable.copyOf(new DefaultTable("widget", new Column[] {
+                new Column("_id", DataType.BIGINT)}));
+
+        assertEquals(0, table.getRowCount());
+        try {
+            table.getValue(0, "_id");
+            fail("Expected the first row of an empty table to be out of bounds.");
+        } catch(RowOutOfBoundsException expected) { }
+    }
+
+    @Test
+    public void testCanonicalLongs() {
+        assertTrue(ColumnarTable.isCanonicalLong("0"));
+        assertTrue(ColumnarTable.isCanonicalLong("-1"));
+        assertTrue(ColumnarTable.isCanonicalLong("9223372036854775807"));
+        assertTrue(ColumnarTable.isCanonicalLong("-9223372036854775808"));
+
+        assertFalse(ColumnarTable.isCanonicalLong(""));
+        assertFalse(ColumnarTable.isCanonicalLong("-"));
+        assertFalse(ColumnarTable.isCanonicalLong("-0"));
+        assertFalse(ColumnarTable.isCanonicalLong("01"));
+        assertFalse(ColumnarTable.isCanonicalLong("+1"));
+        assertFalse(ColumnarTable.isCanonicalLong("1.0"));
+        assertFalse(ColumnarTable.isCanonicalLong("9223372036854775808"));
+    }
+
+    private static ITable createTable() throws DataSetException {
+        DefaultTable table = new DefaultTable("sample", new Column[] {
+                new Column("integer", DataType.BIGINT),
+                new Column("real", DataType.DOUBLE),
+                new Column("text", DataType.VARCHAR),
+                new Column("blob", DataType.BLOB),
+                new Column("numeric_text", DataType.VARCHAR)});
+        for(int row = 0; row < ROW_COUNT; row++) {
+            if(isNullRow(row)) {
+                table.addRow(new Object[5]);
+            } else {
+                table.addRow(new Object[] {
+                        row * 1000000000L,
+                        row / 4.0,
+                        repeat('x', row % 5),
+                        new byte[] { (byte)row, (byte)(row + 1) },
+                        Integer.toString(-row)});
+            }
+        }
+
+        return table;
+    }
+
+    /** Null rows fall on both sides of the null bitmap's word boundaries. */
+    private static boolean isNullRow(int row) {
+        return row % 7 == 0 || row == 63 || row == 64;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PerformanceBudgetTest {
+    @Test
+    public void testMetricsWithinBudgetHaveNoViolations() {
+        PerformanceBudget budget = new PerformanceBudget()
+                .setMaxTime(TestMetrics.Phase.SET_UP_OPERATION, 100, TimeUnit.MILLISECONDS)
+                .setMaxCount(TestMetrics.Counter.STATEMENTS_EXECUTED, 10);
+
+        TestMetrics metrics = new TestMetrics();
+        metrics.addTime(TestMetrics.Phase.SET_UP_OPERATION, TimeUnit.MILLISECONDS.toNanos(100));
+        metrics.increment(TestMetrics.Counter.STATEMENTS_EXECUTED, 10);
+
+        assertTrue(budget.getViolations(metrics).isEmpty());
+    }
+
+    @Test
+    public void testEachExceededLimitIsAViolation() {
+        PerformanceBudget budget = new PerformanceBudget()
+                .setMaxTime(TestMetrics.Phase.SET_UP_OPERATION, 100, TimeUnit.MILLISECONDS)
+                .setMaxTime(TestMetrics.Phase.TEST, 1, TimeUnit.SECONDS)
+                .setMaxCount(TestMetrics.Counter.STATEMENTS_EXECUTED, 10);
+
+        TestMetrics metrics = new TestMetrics();
+        metrics.addTime(TestMetrics.Phase.SET_UP_OPERATION, TimeUnit.MILLISECONDS.toNanos(150));
+        metrics.addTime(TestMetrics.Phase.TEST, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.increment(TestMetrics.Counter.STATEMENTS_EXECUTED, 11);
+
+        List<String> violations = budget.getViolations(metrics);
+        assertEquals(2, violations.size());
+        assertEquals("setUpOperation took 150 ms, over its budget of 100 ms.", violations.get(0));
+        assertEquals("statementsExecuted was 11, over its budget of 10.", violations.get(1));
+    }
+}
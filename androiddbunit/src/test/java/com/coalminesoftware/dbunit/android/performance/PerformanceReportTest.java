@@ -0,0 +1,60 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class PerformanceReportTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEachTestIsAppendedAsALineOfJson() throws Exception {
+        File reportFile = new File(temporaryFolder.getRoot(), "report.jsonl");
+
+        TestMetrics firstMetrics = new TestMetrics();
+        firstMetrics.addTime(TestMetrics.Phase.TEST, TimeUnit.MILLISECONDS.toNanos(12));
+        PerformanceReport.append(reportFile, "com.example.FooTest#testFirst", firstMetrics);
+
+        TestMetrics secondMetrics = new TestMetrics();
+        secondMetrics.increment(TestMetrics.Counter.ROWS_QUERIED, 5);
+        PerformanceReport.append(reportFile, "com.example.FooTest#testSecond", secondMetrics);
+
+        List<String> lines = readLines(reportFile);
+        assertEquals(2, lines.size());
+
+        JSONObject first = new JSONObject(lines.get(0));
+        assertEquals("com.example.FooTest#testFirst", first.getString("test"));
+        assertEquals(12, first.getJSONObject("phases").getDouble("test"), 0);
+
+        JSONObject second = new JSONObject(lines.get(1));
+        assertEquals("com.example.FooTest#testSecond", second.getString("test"));
+        assertEquals(5, second.getJSONObject("counters").getLong("rowsQueried"));
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            for(String line; (line = reader.readLine()) != null; ) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return lines;
+    }
+}
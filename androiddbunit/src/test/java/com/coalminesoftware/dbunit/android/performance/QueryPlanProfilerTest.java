@@ -0,0 +1,39 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class QueryPlanProfilerTest {
+    @Test
+    public void testFullScanFromSQLite37() {
+        // API levels 15 to 20 append the estimated number of rows.
+        assertEquals("widget", QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget (~100000 rows)"));
+        assertEquals("widget", QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget AS w (~1 rows)"));
+    }
+
+    @Test
+    public void testFullScanFromSQLite38() {
+        assertEquals("widget", QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget"));
+        assertEquals("widget", QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget AS w"));
+        assertEquals("widget", QueryPlanProfiler.getFullyScannedTableName("SCAN widget"));
+    }
+
+    @Test
+    public void testSearchesAndIndexScansAreNotFullScans() {
+        assertNull(QueryPlanProfiler.getFullyScannedTableName(
+                "SEARCH TABLE widget USING INTEGER PRIMARY KEY (rowid=?) (~1 rows)"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SEARCH TABLE widget USING INDEX widget_name (name=?)"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget USING COVERING INDEX widget_name (~100000 rows)"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE widget USING INDEX widget_name"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SCAN SUBQUERY 1"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("USE TEMP B-TREE FOR ORDER BY"));
+    }
+
+    @Test
+    public void testSQLiteTablesAreNotReported() {
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE sqlite_master (~100000 rows)"));
+        assertNull(QueryPlanProfiler.getFullyScannedTableName("SCAN TABLE sqlite_master"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.coalminesoftware.dbunit.android.performance;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestMetricsTest {
+    @Test
+    public void testTimesAndCountsAccumulate() {
+        TestMetrics metrics = new TestMetrics();
+        metrics.addTime(TestMetrics.Phase.CONNECT, 100);
+        metrics.addTime(TestMetrics.Phase.CONNECT, 50);
+        metrics.increment(TestMetrics.Counter.ROWS_INSERTED, 3);
+        metrics.increment(TestMetrics.Counter.ROWS_INSERTED, 4);
+
+        assertEquals(150, metrics.getTime(TestMetrics.Phase.CONNECT));
+        assertEquals(0, metrics.getTime(TestMetrics.Phase.TEST));
+        assertEquals(7, metrics.getCount(TestMetrics.Counter.ROWS_INSERTED));
+        assertEquals(0, metrics.getCount(TestMetrics.Counter.STATEMENTS_EXECUTED));
+    }
+
+    @Test
+    public void testJsonHasTimesInMillisecondsAndEveryCounter() throws Exception {
+        TestMetrics metrics = new TestMetrics();
+        metrics.addTime(TestMetrics.Phase.SET_UP_OPERATION, TimeUnit.MICROSECONDS.toNanos(2500));
+        metrics.increment(TestMetrics.Counter.STATEMENTS_EXECUTED, 2);
+
+        JSONObject json = metrics.toJson();
+
+        JSONObject phases = json.getJSONObject("phases");
+        assertEquals(2.5, phases.getDouble("setUpOperation"), 0);
+        // Phases that weren't timed are left out, rather than reported as taking no time.
+        assertFalse(phases.has("test"));
+
+        JSONObject counters = json.getJSONObject("counters");
+        assertEquals(TestMetrics.Counter.values().length, counters.length());
+        assertEquals(2, counters.getLong("statementsExecuted"));
+        assertEquals(0, counters.getLong("rowsInserted"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.dataset.BinaryDataSetProducer;
+import com.coalminesoftware.dbunit.android.dataset.BinaryDataSetWriter;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.Assertion;
+import org.dbunit.dataset.CachedDataSet;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading data sets from the binary format, as converted by binary-datasets.gradle, with
+ * loading them from XML.
+ */
+public class BinaryDataSetTimingTest extends InstrumentationTestCase {
+	private static final String TAG = BinaryDataSetTimingTest.class.getSimpleName();
+	private static final int ITERATIONS = 20;
+	private static final int TABLE_COUNT = 10;
+	private static final int ROW_COUNT = 2000;
+
+	public void testConvertedResourceMatchesXml() throws Exception {
+		IDataSet xmlDataSet = AndroidDataSetUtils.createXmlDataSet(getInstrumentation(), R.raw.initial_dataset);
+		IDataSet binaryDataSet = AndroidDataSetUtils.createBinaryDataSet(getInstrumentation(), R.raw.initial_dataset_binary);
+
+		Assertion.assertEquals(xmlDataSet, binaryDataSet);
+	}
+
+	public void testLoadTimeOfXmlAndBinaryResources() throws Exception {
+		long startTime = System.nanoTime();
+		for(int i = 0; i < ITERATIONS; i++) {
+			AndroidDataSetUtils.createXmlDataSet(getInstrumentation(), R.raw.initial_dataset);
+		}
+		long xmlMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime) / ITERATIONS;
+
+		startTime = System.nanoTime();
+		for(int i = 0; i < ITERATIONS; i++) {
+			AndroidDataSetUtils.createBinaryDataSet(getInstrumentation(), R.raw.initial_dataset_binary);
+		}
+		long binaryMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime) / ITERATIONS;
+
+		Log.i(TAG, String.format("Loading initial_dataset: %d us from XML, %d us from binary.",
+				xmlMicros, binaryMicros));
+	}
+
+	public void testLoadTimeOfLargeFlatXmlAndBinaryDataSets() throws Exception {
+		IDataSet dataSet = createLargeDataSet();
+
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		FlatXmlDataSet.write(dataSet, xml);
+		byte[] xmlBytes = xml.toByteArray();
+
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		BinaryDataSetWriter.write(dataSet, binary);
+		ByteBuffer binaryBuffer = ByteBuffer.wrap(binary.toByteArray());
+
+		long startTime = System.nanoTime();
+		IDataSet xmlDataSet = new FlatXmlDataSet(new FlatXmlProducer(new InputSource(new ByteArrayInputStream(xmlBytes)), false));
+		long xmlMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		startTime = System.nanoTime();
+		IDataSet binaryDataSet = new CachedDataSet(new BinaryDataSetProducer(binaryBuffer));
+		long binaryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		Assertion.assertEquals(xmlDataSet, binaryDataSet);
+
+		Log.i(TAG, String.format("Loading %d rows: %d ms from %d bytes of flat XML, %d ms from %d bytes of binary.",
+				TABLE_COUNT * ROW_COUNT, xmlMillis, xmlBytes.length, binaryMillis, binaryBuffer.capacity()));
+	}
+
+	private static IDataSet createLargeDataSet() throws Exception {
+		Column[] columns = {
+				new Column("_id", DataType.UNKNOWN),
+				new Column("name", DataType.UNKNOWN),
+				new Column("category", DataType.UNKNOWN) };
+
+		DefaultDataSet dataSet = new DefaultDataSet();
+		for(int t = 0; t < TABLE_COUNT; t++) {
+			DefaultTable table = new DefaultTable("table_" + t, columns);
+			for(int r = 0; r < ROW_COUNT; r++) {
+				table.addRow(new Object[] { String.valueOf(r), "Name " + r, "Category " + (r % 10) });
+			}
+			dataSet.addTable(table);
+		}
+
+		return dataSet;
+	}
+}
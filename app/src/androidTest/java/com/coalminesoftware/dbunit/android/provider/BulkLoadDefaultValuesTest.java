@@ -0,0 +1,97 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.DatabaseIsolation;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * Loads a data set missing a value for a column with a declared default, checking that the default
+ * is applied both when the database is populated and when the tables a test modified are restored
+ * for the next. Also checks that the operation can load a data set within a transaction already in
+ * progress.
+ */
+public class BulkLoadDefaultValuesTest extends AndroidDbTestCase {
+	public BulkLoadDefaultValuesTest() {
+		super("gadget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		DefaultTable table = new DefaultTable("gadget", new Column[] {
+				new Column("_id", DataType.BIGINT),
+				new Column("name", DataType.VARCHAR),
+				new Column("color", DataType.VARCHAR)});
+		table.addRow(new Object[] { 1, "Foo", ITable.NO_VALUE });
+		table.addRow(new Object[] { 2, "Bar", "red" });
+
+		return new DefaultDataSet(table);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		createDatabase(1, "DROP TABLE IF EXISTS gadget;\n"
+				+ "CREATE TABLE gadget(_id INTEGER PRIMARY KEY, name TEXT, color TEXT NOT NULL DEFAULT 'grey');\n");
+	}
+
+	@Override
+	protected DatabaseOperation getSetUpOperation() throws Exception {
+		return new AndroidBulkLoadOperation();
+	}
+
+	@Override
+	protected DatabaseIsolation getDatabaseIsolation() {
+		// Whichever test runs second finds the table the first modified restored by the operation.
+		return DatabaseIsolation.MODIFIED_TABLES;
+	}
+
+	public void testDefaultAppliedToMissingValue() throws Exception {
+		assertColorsAndRepaint();
+	}
+
+	public void testDefaultAppliedToMissingValueAfterRestore() throws Exception {
+		assertColorsAndRepaint();
+	}
+
+	public void testLoadWithinTransaction() throws Exception {
+		DefaultTable table = new DefaultTable("gadget", new Column[] {
+				new Column("_id", DataType.BIGINT),
+				new Column("name", DataType.VARCHAR)});
+		table.addRow(new Object[] { 3, "Baz" });
+
+		DatabaseConnectionUtils.execute(getConnection(), "BEGIN");
+		try {
+			replaceDatabaseDataSet(new DefaultDataSet(table));
+			assertEquals(1, getConnection().getRowCount("gadget"));
+		} finally {
+			DatabaseConnectionUtils.execute(getConnection(), "ROLLBACK");
+		}
+
+		// Rolling back the outer transaction also undoes the load.
+		assertEquals(2, getConnection().getRowCount("gadget"));
+	}
+
+	private void assertColorsAndRepaint() {
+		SQLiteDatabase database = getDatabase();
+		try {
+			assertEquals("grey", DatabaseUtils.stringForQuery(database, "SELECT color FROM gadget WHERE _id = 1", null));
+			assertEquals("red", DatabaseUtils.stringForQuery(database, "SELECT color FROM gadget WHERE _id = 2", null));
+
+			database.execSQL("UPDATE gadget SET color = 'blue'");
+		} finally {
+			database.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.dataset.CursorDataSet;
+import com.coalminesoftware.dbunit.android.dataset.CursorTable;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import junit.framework.AssertionFailedError;
+
+import org.dbunit.Assertion;
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Compares query results with a data set through {@link CursorTable} and {@link CursorDataSet},
+ * without copying the results first.
+ */
+public class CursorTableTest extends AndroidDbTestCase {
+	public CursorTableTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	public void testQueryResultsMatchTable() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			Cursor cursor = database.query("widget", null, null, null, null, null, "_id");
+			try {
+				Assertion.assertEquals(getDataSet().getTable("widget"), new CursorTable("widget", cursor));
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testQueryResultsMatchDataSet() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			CursorDataSet dataSet = new CursorDataSet("widget",
+					database.query("widget", null, null, null, null, null, "_id"));
+			try {
+				Assertion.assertEquals(getDataSet(), dataSet);
+			} finally {
+				dataSet.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testDifferingQueryResults() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			Cursor cursor = database.rawQuery(
+					"SELECT _id, CASE WHEN _id = 2 THEN 'Baz' ELSE name END AS name FROM widget ORDER BY _id", null);
+			try {
+				CursorTable table = new CursorTable("widget", cursor);
+
+				// Values can be read in any order, not only row by row.
+				assertEquals("Baz", table.getValue(1, "name"));
+				assertEquals(1L, table.getValue(0, "_id"));
+
+				try {
+					Assertion.assertEquals(getDataSet().getTable("widget"), table);
+				} catch(AssertionFailedError e) {
+					return;
+				}
+				fail("Expected the differing value to be found.");
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+}
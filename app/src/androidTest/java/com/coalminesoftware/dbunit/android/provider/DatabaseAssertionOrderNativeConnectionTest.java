@@ -0,0 +1,12 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+/**
+ * Runs the same tests as {@link DatabaseAssertionOrderTest}, but reading rows through a Cursor
+ * rather than a page at a time through SQLite.JDBC.
+ */
+public class DatabaseAssertionOrderNativeConnectionTest extends DatabaseAssertionOrderTest {
+	@Override
+	protected boolean isNativeConnectionEnabled() {
+		return true;
+	}
+}
@@ -0,0 +1,108 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+
+import junit.framework.AssertionFailedError;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * Compares tables whose keys SQLite and Java order differently, such as text with mixed case and
+ * characters outside the Basic Multilingual Plane, and a table without a primary key, with
+ * {@link #assertDatabaseEquals(IDataSet)}.
+ */
+public class DatabaseAssertionOrderTest extends AndroidDbTestCase {
+	private static final String[] NAMES = { "banana", "Apple", "éclair", "Zebra", "😀", "ｚ", "ñandú" };
+	private static final int READING_COUNT = 6000;
+
+	public DatabaseAssertionOrderTest() {
+		super("order.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		DefaultTable tags = new DefaultTable("tag", new Column[] {
+				new Column("name", DataType.UNKNOWN),
+				new Column("weight", DataType.UNKNOWN)});
+		for(int i = 0; i < NAMES.length; i++) {
+			tags.addRow(new Object[] { NAMES[i], i });
+		}
+
+		DefaultTable notes = new DefaultTable("note", new Column[] {
+				new Column("body", DataType.UNKNOWN),
+				new Column("rank", DataType.UNKNOWN)});
+		notes.addRow(new Object[] { "b", 1 });
+		notes.addRow(new Object[] { "B", 1 });
+		notes.addRow(new Object[] { null, 2 });
+		notes.addRow(new Object[] { "ñ", null });
+		notes.addRow(new Object[] { "b", 1 });
+		notes.addRow(new Object[] { "😀", 3 });
+		notes.addRow(new Object[] { "ｚ", 3 });
+
+		// More rows than are read in a page, with runs of identical rows spanning the page boundary.
+		DefaultTable readings = new DefaultTable("reading", new Column[] {
+				new Column("sensor", DataType.UNKNOWN),
+				new Column("value", DataType.UNKNOWN)});
+		for(int i = 0; i < READING_COUNT; i++) {
+			readings.addRow(new Object[] { NAMES[i % 3], i % 3 });
+		}
+
+		return new DefaultDataSet(new ITable[] { tags, notes, readings });
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		createDatabase(1, "DROP TABLE IF EXISTS tag;\n"
+				+ "DROP TABLE IF EXISTS note;\n"
+				+ "DROP TABLE IF EXISTS reading;\n"
+				+ "CREATE TABLE tag(name TEXT PRIMARY KEY COLLATE NOCASE, weight INTEGER);\n"
+				+ "CREATE TABLE note(body TEXT, rank INTEGER);\n"
+				+ "CREATE TABLE reading(sensor TEXT COLLATE NOCASE, value INTEGER);\n");
+	}
+
+	public void testMixedCaseAndNonAsciiKeys() throws Exception {
+		assertDatabaseEquals(getDataSet());
+	}
+
+	public void testDifferenceInTableWithoutPrimaryKey() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.execSQL("UPDATE note SET rank = 9 WHERE body = 'ñ'");
+		} finally {
+			database.close();
+		}
+
+		try {
+			assertDatabaseEquals(getDataSet());
+		} catch(AssertionFailedError e) {
+			return;
+		}
+		fail("Expected the changed row to be found.");
+	}
+
+	public void testDifferenceAfterFirstPage() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			long rowId = DatabaseUtils.longForQuery(database, "SELECT MAX(rowid) FROM reading", null);
+			database.execSQL("UPDATE reading SET value = 9 WHERE rowid = " + rowId);
+		} finally {
+			database.close();
+		}
+
+		try {
+			assertDatabaseEquals(getDataSet());
+		} catch(AssertionFailedError e) {
+			return;
+		}
+		fail("Expected the changed row to be found.");
+	}
+}
@@ -0,0 +1,74 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.database.DatabaseSnapshot;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that restoring a snapshot returns the database's rows and AUTOINCREMENT sequences to their
+ * state when it was taken, as many times as needed.
+ */
+public class DatabaseSnapshotTest extends AndroidDbTestCase {
+	public DatabaseSnapshotTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	public void testRestoreUndoesChanges() throws Exception {
+		DatabaseSnapshot snapshot = snapshot();
+
+		DatabaseConnectionUtils.execute(getConnection(),
+				"UPDATE widget SET name = 'Baz' WHERE _id = 1",
+				"DELETE FROM widget WHERE _id = 2",
+				"INSERT INTO widget(name) VALUES ('Qux')");
+
+		restore(snapshot);
+		assertDatabaseEquals(getDataSet());
+	}
+
+	public void testRestoreResetsAutoincrementSequence() throws Exception {
+		DatabaseSnapshot snapshot = snapshot();
+
+		// Deleting the inserted row leaves the sequence advanced past it.
+		DatabaseConnectionUtils.execute(getConnection(),
+				"INSERT INTO widget(name) VALUES ('Baz')",
+				"DELETE FROM widget WHERE _id = 3");
+
+		restore(snapshot);
+		DatabaseConnectionUtils.execute(getConnection(), "INSERT INTO widget(name) VALUES ('Qux')");
+		assertEquals(3, DatabaseConnectionUtils.queryForLong(getConnection(), "SELECT MAX(_id) FROM widget"));
+	}
+
+	public void testRestoreRepeatedly() throws Exception {
+		DatabaseConnectionUtils.execute(getConnection(), "DELETE FROM widget WHERE _id = 1");
+		DatabaseSnapshot snapshot = snapshot();
+
+		for(int i = 0; i < 2; i++) {
+			DatabaseConnectionUtils.execute(getConnection(), "DELETE FROM widget");
+			assertEquals(0, getConnection().getRowCount("widget"));
+
+			restore(snapshot);
+			assertEquals(1, getConnection().getRowCount("widget"));
+			assertEquals(2, DatabaseConnectionUtils.queryForLong(getConnection(), "SELECT _id FROM widget"));
+		}
+	}
+}
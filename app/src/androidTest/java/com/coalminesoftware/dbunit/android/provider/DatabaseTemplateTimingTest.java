@@ -0,0 +1,94 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+import android.test.RenamingDelegatingContext;
+import android.util.Log;
+
+import com.coalminesoftware.dbunit.android.TestFileNamespace;
+import com.coalminesoftware.dbunit.android.database.DatabaseTemplates;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-test cost of creating a large schema by replaying its DDL versus copying a
+ * template database, which is what AndroidDbTestCase does when its template mode is enabled. The
+ * timings are logged rather than asserted, as they vary with the device and its load; only the
+ * databases created are checked.
+ */
+public class DatabaseTemplateTimingTest extends InstrumentationTestCase {
+	private static final String TAG = DatabaseTemplateTimingTest.class.getSimpleName();
+	private static final String DATABASE_NAME = "timing.sqlite";
+	private static final int TABLE_COUNT = 200;
+	private static final int ITERATIONS = 10;
+
+	private Context context;
+	private File templateDirectory;
+	private String creationSql;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		// Namespace the database as AndroidDbTestCase does, so concurrent test processes don't share
+		// it and it's cleaned up if this process dies before tearing down.
+		Context targetContext = getInstrumentation().getTargetContext();
+		TestFileNamespace.deleteStaleFiles(targetContext);
+		context = new RenamingDelegatingContext(targetContext, TestFileNamespace.getFilenamePrefix());
+		templateDirectory = targetContext.getCacheDir();
+
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < TABLE_COUNT; i++) {
+			builder.append("DROP TABLE IF EXISTS table_").append(i).append(";\n")
+					.append("CREATE TABLE table_").append(i)
+					.append("(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT, value REAL);\n")
+					.append("CREATE INDEX table_").append(i).append("_name ON table_").append(i).append("(name);\n");
+		}
+		creationSql = builder.toString();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		context.deleteDatabase(DATABASE_NAME);
+
+		super.tearDown();
+	}
+
+	public void testSetUpTimeWithAndWithoutTemplate() throws Exception {
+		long startTime = System.nanoTime();
+		for(int i = 0; i < ITERATIONS; i++) {
+			context.deleteDatabase(DATABASE_NAME);
+			DatabaseUtils.createDbFromSqlStatements(context, DATABASE_NAME, 1, creationSql);
+		}
+		long replayMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) / ITERATIONS;
+		assertEquals(TABLE_COUNT, countTables());
+
+		// Create the template outside of the timed loop, as it's only built once per schema.
+		DatabaseTemplates.getTemplate(context, templateDirectory, DATABASE_NAME, 1, creationSql);
+
+		startTime = System.nanoTime();
+		for(int i = 0; i < ITERATIONS; i++) {
+			DatabaseTemplates.createDatabase(context, templateDirectory, DATABASE_NAME, 1, creationSql);
+		}
+		long templateMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) / ITERATIONS;
+		assertEquals(TABLE_COUNT, countTables());
+
+		Log.i(TAG, String.format("Per-test database creation for %d tables: %d ms replaying DDL, %d ms copying template.",
+				TABLE_COUNT, replayMillis, templateMillis));
+	}
+
+	private long countTables() {
+		SQLiteDatabase database = SQLiteDatabase.openDatabase(
+				context.getDatabasePath(DATABASE_NAME).getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+		try {
+			return DatabaseUtils.longForQuery(database,
+					"SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name LIKE 'table\\_%' ESCAPE '\\'",
+					null);
+		} finally {
+			database.close();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.GeneratedDataSet;
+import com.coalminesoftware.dbunit.android.dataset.ValueGenerators;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+
+import org.dbunit.Assertion;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * Seeds a database with generated rows, which are inserted as they're generated rather than being
+ * read from a fixture.
+ */
+public class GeneratedDataSetTest extends AndroidDbTestCase {
+	private static final long SEED = 42;
+
+	public GeneratedDataSetTest() {
+		super("generated.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return createDataSet(SEED);
+	}
+
+	@Override
+	protected DatabaseOperation getSetUpOperation() throws Exception {
+		return new AndroidBulkLoadOperation();
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "DROP TABLE IF EXISTS widget_order;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY, name TEXT, price REAL);\n"
+				+ "CREATE TABLE widget_order(_id INTEGER PRIMARY KEY, widget_id INTEGER REFERENCES widget(_id), quantity INTEGER);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	public void testDatabaseMatchesDataSet() throws Exception {
+		assertDatabaseEquals(getDataSet());
+	}
+
+	public void testSameSeedGeneratesSameDataSet() throws Exception {
+		Assertion.assertEquals(createDataSet(SEED), createDataSet(SEED));
+	}
+
+	public void testOrdersReferenceExistingWidgets() throws Exception {
+		assertEquals(0, DatabaseUtils.longForQuery(getDatabase(),
+				"SELECT COUNT(*) FROM widget_order WHERE widget_id NOT IN (SELECT _id FROM widget)",
+				null));
+	}
+
+	private static IDataSet createDataSet(long seed) throws Exception {
+		return new GeneratedDataSet.Builder(seed)
+				.addTable("widget", 1000)
+				.addColumn("_id", ValueGenerators.sequence(1))
+				.addColumn("name", ValueGenerators.randomString(5, 20))
+				.addColumn("price", ValueGenerators.nullable(ValueGenerators.randomDouble(0, 100), 0.1))
+				.setPrimaryKey("_id")
+				.addTable("widget_order", 10000)
+				.addColumn("_id", ValueGenerators.sequence(1))
+				.addColumn("widget_id", ValueGenerators.reference("widget", "_id"))
+				.addColumn("quantity", ValueGenerators.randomLong(1, 10))
+				.setPrimaryKey("_id")
+				.build();
+	}
+}
@@ -0,0 +1,68 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that an in-memory test database is shared by DBUnit's connection, {@link #getDatabase()}
+ * and databases opened by name through {@link #getDatabaseContext()}, and that no database file is
+ * created.
+ */
+public class InMemoryDatabaseTest extends AndroidDbTestCase {
+	public InMemoryDatabaseTest() {
+		super("in_memory.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected boolean isInMemoryDatabaseEnabled() {
+		return true;
+	}
+
+	public void testDatabaseMatchesDataSet() throws Exception {
+		assertDatabaseEquals(getDataSet());
+		assertFalse(getDatabaseContext().getDatabasePath(getDatabaseName()).exists());
+	}
+
+	public void testChangesThroughGetDatabaseAreShared() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.execSQL("INSERT INTO widget(name) VALUES ('Baz')");
+		} finally {
+			database.close();
+		}
+
+		assertEquals(3, getConnection().getRowCount("widget"));
+	}
+
+	public void testDatabaseOpenedByNameIsShared() throws Exception {
+		// As a SQLiteOpenHelper opens its database, before API level 28.
+		SQLiteDatabase database = getDatabaseContext().openOrCreateDatabase(getDatabaseName(), 0, null);
+		try {
+			database.execSQL("DELETE FROM widget WHERE _id = 1");
+		} finally {
+			database.close();
+		}
+
+		assertEquals(1, getConnection().getRowCount("widget"));
+	}
+}
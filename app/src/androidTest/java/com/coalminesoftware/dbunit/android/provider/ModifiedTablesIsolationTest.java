@@ -0,0 +1,65 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.DatabaseIsolation;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that under {@link DatabaseIsolation#MODIFIED_TABLES}, tables changed through either the
+ * test's connection or another are restored before the next test, along with their AUTOINCREMENT
+ * sequences. Each test checks the database before changing it, so whichever runs second checks the
+ * restoration of the first's changes.
+ */
+public class ModifiedTablesIsolationTest extends AndroidDbTestCase {
+	public ModifiedTablesIsolationTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected DatabaseIsolation getDatabaseIsolation() {
+		return DatabaseIsolation.MODIFIED_TABLES;
+	}
+
+	public void testChangesThroughOwnConnectionAreRestored() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		DatabaseConnectionUtils.execute(getConnection(),
+				"UPDATE widget SET name = 'Baz' WHERE _id = 1",
+				"INSERT INTO widget(name) VALUES ('Qux')");
+		assertEquals(3, DatabaseConnectionUtils.queryForLong(getConnection(), "SELECT MAX(_id) FROM widget"));
+	}
+
+	public void testChangesThroughOtherConnectionAreRestored() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.execSQL("DELETE FROM widget WHERE _id = 2");
+			database.execSQL("INSERT INTO widget(name) VALUES ('Qux')");
+			assertEquals(3, DatabaseUtils.longForQuery(database, "SELECT MAX(_id) FROM widget", null));
+		} finally {
+			database.close();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that with a native connection, {@link #getDatabase()} shares the DBUnit connection's
+ * database, so that DBUnit sees changes made through it before they're committed.
+ */
+public class NativeConnectionTest extends AndroidDbTestCase {
+	public NativeConnectionTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected boolean isNativeConnectionEnabled() {
+		return true;
+	}
+
+	public void testDatabaseMatchesDataSet() throws Exception {
+		assertDatabaseEquals(getDataSet());
+	}
+
+	public void testUncommittedChangesAreVisible() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.beginTransaction();
+			try {
+				database.execSQL("INSERT INTO widget(name) VALUES ('Baz')");
+				assertEquals(3, getConnection().getRowCount("widget"));
+			} finally {
+				database.endTransaction();
+			}
+		} finally {
+			database.close();
+		}
+
+		// The transaction was rolled back, and closing the database left the connection usable.
+		assertEquals(2, getConnection().getRowCount("widget"));
+	}
+}
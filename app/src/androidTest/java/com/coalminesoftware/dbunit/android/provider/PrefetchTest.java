@@ -0,0 +1,47 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.Prefetch;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetCache;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that a data set declared with {@link Prefetch} is loaded into the
+ * {@link AndroidDataSetCache} when the test class starts, so that retrieving it during a test
+ * doesn't load it again.
+ */
+@Prefetch(flatXmlDataSets = R.raw.initial_flat_dataset)
+public class PrefetchTest extends AndroidDbTestCase {
+	public PrefetchTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetCache.getXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	public void testPrefetchedDataSetIsNotLoadedAgain() throws Exception {
+		int missCount = AndroidDataSetCache.getMissCount();
+
+		// The prefetch may still be in progress, in which case this waits for it.
+		IDataSet dataSet = AndroidDataSetCache.getFlatXmlDataSet(getInstrumentation().getContext(),
+				R.raw.initial_flat_dataset);
+
+		assertEquals(missCount, AndroidDataSetCache.getMissCount());
+		assertDatabaseEquals(dataSet);
+	}
+}
@@ -0,0 +1,111 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetCache;
+import com.coalminesoftware.dbunit.android.example.test.R;
+import com.coalminesoftware.dbunit.android.performance.QueryPlanProfiler;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Profiles the queries each test makes, failing a test whose queries scan the widget table in full
+ * rather than searching its primary key.
+ */
+public class QueryPlanProfilerTest extends AndroidDbTestCase {
+	public QueryPlanProfilerTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetCache.getXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected int getFullTableScanRowThreshold() {
+		// The fixture is tiny, so any scan of a table with rows is treated as too slow.
+		return 0;
+	}
+
+	public void testQueryByPrimaryKey() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			Cursor cursor = database.query("widget", null, "_id = ?", new String[] { "1" }, null, null, null);
+			try {
+				assertEquals(1, cursor.getCount());
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testQueryByPrimaryKeyThroughOpenHelper() throws Exception {
+		// From API level 28, SQLiteOpenHelper opens its database by path, so it needs the profiling factory.
+		DatabaseHelper databaseHelper = new DatabaseHelper(getDatabaseContext(), getDatabaseName(),
+				getProfilingCursorFactory(null));
+		try {
+			Cursor cursor = databaseHelper.getReadableDatabase().query("widget", null, "_id = ?", new String[] { "1" },
+					null, null, null);
+			try {
+				assertEquals(1, cursor.getCount());
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	public void testFullTableScanIsFound() throws Exception {
+		QueryPlanProfiler profiler = new QueryPlanProfiler(0);
+
+		// Opened with the profiler's own factory, so the scan doesn't fail this test.
+		String databasePath = getDatabaseContext().getDatabasePath(getDatabaseName()).getAbsolutePath();
+		SQLiteDatabase database = SQLiteDatabase.openDatabase(databasePath, profiler.createCursorFactory(null), 0);
+		try {
+			database.query("widget", null, "name = ?", new String[] { "Foo" }, null, null, null).close();
+		} finally {
+			database.close();
+		}
+
+		assertEquals(1, profiler.getFullTableScans().size());
+		assertEquals("widget", profiler.getFullTableScans().get(0).getTableName());
+	}
+
+	public void testCommonTableExpressionScanIsIgnored() throws Exception {
+		// Common table expressions were added in SQLite 3.8.3, first shipped with API level 21.
+		if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+			return;
+		}
+
+		// The plan scans the CTE, which has no table of its own to count the rows of.
+		SQLiteDatabase database = getDatabase();
+		try {
+			Cursor cursor = database.rawQuery("WITH RECURSIVE number(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM number WHERE n < 3)"
+					+ " SELECT n FROM number", null);
+			try {
+				assertEquals(3, cursor.getCount());
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+}
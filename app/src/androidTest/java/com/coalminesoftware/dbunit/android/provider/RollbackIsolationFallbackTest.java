@@ -0,0 +1,67 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.DatabaseIsolation;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that opening another connection to the test database under
+ * {@link DatabaseIsolation#ROLLBACK} commits the rollback transaction, so that the other connection
+ * can write, and that the database is then repopulated before the next test. Each test checks the
+ * database before changing it, so whichever runs second checks the repopulation.
+ */
+public class RollbackIsolationFallbackTest extends AndroidDbTestCase {
+	public RollbackIsolationFallbackTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected DatabaseIsolation getDatabaseIsolation() {
+		return DatabaseIsolation.ROLLBACK;
+	}
+
+	public void testDeleteThroughOtherConnection() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		commitThroughOtherConnection("DELETE FROM widget");
+		assertEquals(0, getConnection().getRowCount("widget"));
+	}
+
+	public void testInsertThroughOtherConnection() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		commitThroughOtherConnection("INSERT INTO widget(name) VALUES ('Baz')");
+		assertEquals(3, getConnection().getRowCount("widget"));
+	}
+
+	private void commitThroughOtherConnection(String sql) {
+		// Without a native connection, getDatabase() opens a connection of its own, which cancels the
+		// rollback transaction rather than waiting on its lock.
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.execSQL(sql);
+		} finally {
+			database.close();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.DatabaseIsolation;
+import com.coalminesoftware.dbunit.android.database.DatabaseConnectionUtils;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * Checks that changes made through the test's own connection under {@link DatabaseIsolation#ROLLBACK}
+ * are undone before the next test. Each test checks the database before changing it, so whichever
+ * runs second checks the rollback of the first.
+ */
+public class RollbackIsolationTest extends AndroidDbTestCase {
+	public RollbackIsolationTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createXmlDataSet(getInstrumentation().getContext(), R.raw.initial_dataset);
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Override
+	protected DatabaseIsolation getDatabaseIsolation() {
+		return DatabaseIsolation.ROLLBACK;
+	}
+
+	public void testDeleteIsRolledBack() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		DatabaseConnectionUtils.execute(getConnection(), "DELETE FROM widget");
+		assertEquals(0, getConnection().getRowCount("widget"));
+	}
+
+	public void testInsertIsRolledBack() throws Exception {
+		assertDatabaseEquals(getDataSet());
+
+		DatabaseConnectionUtils.execute(getConnection(), "INSERT INTO widget(name) VALUES ('Baz')");
+		assertEquals(3, getConnection().getRowCount("widget"));
+	}
+}
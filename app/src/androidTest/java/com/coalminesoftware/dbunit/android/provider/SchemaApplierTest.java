@@ -0,0 +1,135 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+import android.test.RenamingDelegatingContext;
+
+import com.coalminesoftware.dbunit.android.TestFileNamespace;
+import com.coalminesoftware.dbunit.android.database.SchemaApplier;
+
+/**
+ * Checks that SchemaApplier creates a schema, skips recreating it when it's unchanged, and
+ * recreates it when the database has since been upgraded.
+ */
+public class SchemaApplierTest extends InstrumentationTestCase {
+	private static final String DATABASE_NAME = "schema.sqlite";
+
+	// Without DROP TABLE statements, executing this a second time fails, since the tables exist.
+	private static final String CREATION_SQL = "CREATE TABLE gadget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n"
+			+ "CREATE INDEX gadget_name ON gadget(name);\n";
+
+	private Context context;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		Context targetContext = getInstrumentation().getTargetContext();
+		TestFileNamespace.deleteStaleFiles(targetContext);
+		context = new RenamingDelegatingContext(targetContext, TestFileNamespace.getFilenamePrefix());
+		context.deleteDatabase(DATABASE_NAME);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		context.deleteDatabase(DATABASE_NAME);
+
+		super.tearDown();
+	}
+
+	public void testApplyCreatesSchema() throws Exception {
+		SchemaApplier.apply(context, DATABASE_NAME, 3, CREATION_SQL);
+
+		SQLiteDatabase database = openDatabase();
+		try {
+			assertEquals(3, database.getVersion());
+			assertEquals(1, countObjects(database, "table", "gadget"));
+			assertEquals(1, countObjects(database, "index", "gadget_name"));
+			assertEquals(1, DatabaseUtils.queryNumEntries(database, SchemaApplier.SCHEMA_TABLE_NAME));
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testUnchangedSchemaIsSkippedAndRowsDeleted() throws Exception {
+		SchemaApplier.apply(context, DATABASE_NAME, 1, CREATION_SQL);
+
+		SQLiteDatabase database = openDatabase();
+		try {
+			database.execSQL("INSERT INTO gadget(name) VALUES ('Foo')");
+			database.execSQL("INSERT INTO gadget(name) VALUES ('Bar')");
+		} finally {
+			database.close();
+		}
+
+		// Recreating the schema would fail, as the creation SQL doesn't drop the existing tables.
+		SchemaApplier.apply(context, DATABASE_NAME, 1, CREATION_SQL);
+
+		database = openDatabase();
+		try {
+			assertEquals(0, DatabaseUtils.queryNumEntries(database, "gadget"));
+
+			// AUTOINCREMENT sequences are reset, as they would be if the table were recreated.
+			database.execSQL("INSERT INTO gadget(name) VALUES ('Baz')");
+			assertEquals(1, DatabaseUtils.longForQuery(database, "SELECT _id FROM gadget", null));
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testUpgradedSchemaIsRecreated() throws Exception {
+		String creationSql = "DROP TABLE IF EXISTS gadget;\n" + CREATION_SQL;
+		SchemaApplier.apply(context, DATABASE_NAME, 1, creationSql);
+
+		// Upgrade the database, as a test of a SQLiteOpenHelper's onUpgrade() would.
+		SQLiteDatabase database = openDatabase();
+		try {
+			database.execSQL("ALTER TABLE gadget ADD COLUMN description TEXT");
+			database.setVersion(2);
+		} finally {
+			database.close();
+		}
+
+		SchemaApplier.apply(context, DATABASE_NAME, 1, creationSql);
+
+		database = openDatabase();
+		try {
+			assertEquals(1, database.getVersion());
+
+			Cursor cursor = database.rawQuery("SELECT * FROM gadget", null);
+			try {
+				assertEquals(-1, cursor.getColumnIndex("description"));
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testNonTransactionalStatementsAreExecuted() throws Exception {
+		// SQLite rejects VACUUM within a transaction.
+		SchemaApplier.apply(context, DATABASE_NAME, 1, "PRAGMA journal_mode = TRUNCATE;\n"
+				+ CREATION_SQL
+				+ "VACUUM;\n");
+
+		SQLiteDatabase database = openDatabase();
+		try {
+			assertEquals(1, countObjects(database, "table", "gadget"));
+		} finally {
+			database.close();
+		}
+	}
+
+	private SQLiteDatabase openDatabase() {
+		return context.openOrCreateDatabase(DATABASE_NAME, 0, null);
+	}
+
+	private static long countObjects(SQLiteDatabase database, String type, String name) {
+		return DatabaseUtils.longForQuery(database, "SELECT COUNT(*) FROM sqlite_master WHERE type = ? AND name = ?",
+				new String[] { type, name });
+	}
+}
@@ -0,0 +1,78 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.AndroidDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+import com.coalminesoftware.dbunit.android.example.test.R;
+
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * Loads streaming flat XML and XML data sets, which are read as they're inserted rather than being
+ * held in memory, through {@link AndroidBulkLoadOperation}.
+ */
+public class StreamingDataSetTest extends AndroidDbTestCase {
+	public StreamingDataSetTest() {
+		super("streaming.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		return AndroidDataSetUtils.createStreamingFlatXmlDataSet(getInstrumentation(), R.raw.initial_flat_dataset);
+	}
+
+	@Override
+	protected DatabaseOperation getSetUpOperation() throws Exception {
+		return new AndroidBulkLoadOperation();
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		createDatabase(1, "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n");
+	}
+
+	public void testStreamingFlatXmlDataSet() throws Exception {
+		assertWidgetsLoaded();
+	}
+
+	public void testStreamingXmlDataSet() throws Exception {
+		SQLiteDatabase database = getDatabase();
+		try {
+			database.execSQL("DELETE FROM widget");
+		} finally {
+			database.close();
+		}
+
+		replaceDatabaseDataSet(AndroidDataSetUtils.createStreamingXmlDataSet(getInstrumentation(), R.raw.initial_dataset));
+
+		assertWidgetsLoaded();
+	}
+
+	private void assertWidgetsLoaded() {
+		SQLiteDatabase database = getDatabase();
+		try {
+			Cursor cursor = database.rawQuery("SELECT _id, name FROM widget ORDER BY _id", null);
+			try {
+				assertEquals(2, cursor.getCount());
+
+				cursor.moveToNext();
+				assertEquals(1, cursor.getLong(0));
+				assertEquals("Foo", cursor.getString(1));
+
+				cursor.moveToNext();
+				assertEquals(2, cursor.getLong(0));
+				assertEquals("Bar", cursor.getString(1));
+			} finally {
+				cursor.close();
+			}
+		} finally {
+			database.close();
+		}
+	}
+}
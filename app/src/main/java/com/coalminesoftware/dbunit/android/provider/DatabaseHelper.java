@@ -9,7 +9,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
 
 	public DatabaseHelper(Context context, String databaseFilename) {
-		super(context, databaseFilename, null, SCHEMA_VERSION);
+		this(context, databaseFilename, null);
+	}
+
+	public DatabaseHelper(Context context, String databaseFilename, SQLiteDatabase.CursorFactory cursorFactory) {
+		super(context, databaseFilename, cursorFactory, SCHEMA_VERSION);
 	}
 
 	@Override
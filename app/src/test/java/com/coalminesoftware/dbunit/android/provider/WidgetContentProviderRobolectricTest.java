@@ -0,0 +1,63 @@
+package com.coalminesoftware.dbunit.android.provider;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.coalminesoftware.dbunit.android.RobolectricDbTestCase;
+import com.coalminesoftware.dbunit.android.dataset.AndroidDataSetUtils;
+
+import org.dbunit.Assertion;
+import org.dbunit.dataset.IDataSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Runs tests like those of WidgetContentProviderDatabaseTest as local unit tests on the
+ * JVM, without a device or emulator.
+ */
+public class WidgetContentProviderRobolectricTest extends RobolectricDbTestCase {
+	public WidgetContentProviderRobolectricTest() {
+		super("widget.sqlite");
+	}
+
+	@Override
+	protected IDataSet getDataSet() throws Exception {
+		// Off-device, data sets are read from the test resources directory rather than res/raw.
+		return AndroidDataSetUtils.createXmlDataSet(getDatabaseContext(), "initial_dataset.xml");
+	}
+
+	@Override
+	protected void onCreateDatabase(Context context) {
+		String CREATION_SQL = "DROP TABLE IF EXISTS widget;\n"
+				+ "CREATE TABLE widget(_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);\n";
+
+		DatabaseUtils.createDbFromSqlStatements(context, getDatabaseName(), 1, CREATION_SQL);
+	}
+
+	@Test
+	public void testTableCreation() throws Exception {
+		Assertion.assertEquals(getDataSet(), createFilteredConnectionDataSet());
+	}
+
+	@Test
+	public void testTableCreationWithDatabaseAssertion() throws Exception {
+		assertDatabaseEquals(getDataSet());
+	}
+
+	@Test
+	public void testUpgrade() throws Exception {
+		DatabaseHelper databaseHelper = new DatabaseHelper(getDatabaseContext(), getDatabaseName());
+		SQLiteDatabase database = databaseHelper.getWritableDatabase();
+		databaseHelper.upgradeDatabase(database);
+
+		IDataSet actualDataSet = getConnection().createDataSet();
+
+		assertNotNull("Expected some_new_table to be created when upgrading database.",
+				actualDataSet.getTable("some_new_table"));
+
+		// This will throw an exception if the column doesn't exist, so there's not really anything to assert.
+		actualDataSet.getTable("widget").getTableMetaData().getColumnIndex("description");
+	}
+}
@@ -0,0 +1,68 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import com.coalminesoftware.dbunit.android.assertion.DatabaseAssertion;
+import com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+
+import org.dbunit.Assertion;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.SortedDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asserts that a populated database matches the data set it was populated with, using DBUnit's
+ * full comparison of sorted data sets and, for comparison, {@link DatabaseAssertion}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AssertionBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private IDataSet expectedDataSet;
+    private HostDatabase database;
+    private IDatabaseConnection connection;
+
+    @Setup
+    public void setUp() throws Exception {
+        expectedDataSet = WidgetDataSets.create(rows);
+        database = HostDatabase.create(WidgetDataSets.CREATE_TABLE_STATEMENT);
+        connection = database.openConnection();
+        new AndroidBulkLoadOperation().execute(connection, expectedDataSet);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        database.delete();
+    }
+
+    @Benchmark
+    public void assertion() throws Exception {
+        Assertion.assertEquals(new SortedDataSet(expectedDataSet),
+                new SortedDataSet(new AndroidFilteredDataSet(connection.createDataSet())));
+    }
+
+    @Benchmark
+    public void databaseAssertion() throws Exception {
+        DatabaseAssertion.assertEquals(expectedDataSet, connection);
+    }
+}
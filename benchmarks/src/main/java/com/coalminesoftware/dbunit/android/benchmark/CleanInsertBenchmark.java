@@ -0,0 +1,64 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a data set into an empty table with DBUnit's CLEAN_INSERT, as AndroidDbTestCase's default
+ * setup operation does, and with {@link AndroidBulkLoadOperation} for comparison. Both clean the
+ * table first, so each invocation starts from the same state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CleanInsertBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private IDataSet dataSet;
+    private HostDatabase database;
+    private IDatabaseConnection connection;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSet = WidgetDataSets.create(rows);
+        database = HostDatabase.create(WidgetDataSets.CREATE_TABLE_STATEMENT);
+        connection = database.openConnection();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        database.delete();
+    }
+
+    @Benchmark
+    public void cleanInsert() throws Exception {
+        DatabaseOperation.CLEAN_INSERT.execute(connection, dataSet);
+    }
+
+    @Benchmark
+    public void bulkLoad() throws Exception {
+        new AndroidBulkLoadOperation().execute(connection, dataSet);
+    }
+}
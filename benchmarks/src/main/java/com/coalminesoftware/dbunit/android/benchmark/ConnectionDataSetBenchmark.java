@@ -0,0 +1,82 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import com.coalminesoftware.dbunit.android.database.SQLiteConnectionDataSet;
+import com.coalminesoftware.dbunit.android.dataset.AndroidFilteredDataSet;
+import com.coalminesoftware.dbunit.android.operation.AndroidBulkLoadOperation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.SortedDataSet;
+import org.dbunit.dataset.filter.ExcludeTableFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a sorted data set of a populated database, filtered of metadata tables, both by wrapping
+ * DBUnit's connection data set in {@link AndroidFilteredDataSet} and {@link SortedDataSet} and
+ * with {@link SQLiteConnectionDataSet}. Each table is read and its first row retrieved, so that
+ * lazily sorted tables are sorted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ConnectionDataSetBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private HostDatabase database;
+    private IDatabaseConnection connection;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = HostDatabase.create(WidgetDataSets.CREATE_TABLE_STATEMENT);
+        connection = database.openConnection();
+        new AndroidBulkLoadOperation().execute(connection, WidgetDataSets.create(rows));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+        database.delete();
+    }
+
+    @Benchmark
+    public void filteredSortedDataSet(Blackhole blackhole) throws Exception {
+        readTables(new SortedDataSet(new AndroidFilteredDataSet(connection.createDataSet())), blackhole);
+    }
+
+    @Benchmark
+    public void sqliteConnectionDataSet(Blackhole blackhole) throws Exception {
+        readTables(new SQLiteConnectionDataSet(connection,
+                new ExcludeTableFilter(AndroidFilteredDataSet.EXCLUDED_TABLE_NAMES),
+                true), blackhole);
+    }
+
+    private static void readTables(IDataSet dataSet, Blackhole blackhole) throws Exception {
+        ITableIterator iterator = dataSet.iterator();
+        while(iterator.next()) {
+            ITable table = iterator.getTable();
+            if(table.getRowCount() > 0) {
+                blackhole.consume(table.getValue(0, table.getTableMetaData().getColumns()[0].getColumnName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import com.coalminesoftware.dbunit.android.dataset.BinaryDataSetProducer;
+import com.coalminesoftware.dbunit.android.dataset.BinaryDataSetWriter;
+
+import org.dbunit.dataset.CachedDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.dbunit.dataset.xml.XmlDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the same data set from each of the formats AndroidDataSetUtils reads, the same way it
+ * reads them, but from memory rather than a resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DataSetParsingBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private byte[] flatXml;
+    private byte[] xml;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        IDataSet dataSet = WidgetDataSets.create(rows);
+        flatXml = WidgetDataSets.toFlatXml(dataSet);
+        xml = WidgetDataSets.toXml(dataSet);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryDataSetWriter.write(dataSet, output);
+        binary = output.toByteArray();
+    }
+
+    @Benchmark
+    public IDataSet flatXml() throws Exception {
+        return new FlatXmlDataSet(new FlatXmlProducer(new InputSource(new ByteArrayInputStream(flatXml)), false));
+    }
+
+    @Benchmark
+    public IDataSet xml() throws Exception {
+        return new XmlDataSet(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public IDataSet binary() throws Exception {
+        return new CachedDataSet(new BinaryDataSetProducer(ByteBuffer.wrap(binary)));
+    }
+}
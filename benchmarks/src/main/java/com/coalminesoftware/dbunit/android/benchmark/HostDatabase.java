@@ -0,0 +1,77 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * SQLite database file on the host, reached through Xerial's JDBC driver in place of JDBC2z.
+ * Connections are configured as AndroidDbTestCase configures those of
+ * AndroidSQLiteDatabaseTester, which aren't compiled for the host.
+ */
+final class HostDatabase {
+    static {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch(ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final File file;
+
+    private HostDatabase(File file) {
+        this.file = file;
+    }
+
+    /** @return A new, empty database with the given schema. */
+    static HostDatabase create(String... createStatements) throws IOException, SQLException {
+        File file = File.createTempFile("dbunit-benchmark", ".db");
+        HostDatabase database = new HostDatabase(file);
+
+        Connection connection = database.openJdbcConnection();
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                for(String createStatement : createStatements) {
+                    statement.execute(createStatement);
+                }
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+
+        return database;
+    }
+
+    IDatabaseConnection openConnection() throws Exception {
+        IDatabaseConnection connection = new DatabaseConnection(openJdbcConnection());
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_FETCH_SIZE, 1);
+        return connection;
+    }
+
+    private Connection openJdbcConnection() throws SQLException {
+        // Writes aren't synced, since the host's storage says little about a device's, and waiting
+        // on it would only add noise to measurements of the library's and DBUnit's own costs.
+        Properties properties = new Properties();
+        properties.setProperty("synchronous", "OFF");
+
+        return DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath(), properties);
+    }
+
+    void delete() {
+        if(!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.coalminesoftware.dbunit.android.benchmark;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.dataset.xml.XmlDataSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Data sets of a single widget table, with a primary key and columns of each of SQLite's common
+ * storage classes, generated at a given size for benchmarks.
+ */
+final class WidgetDataSets {
+    static final String TABLE_NAME = "widget";
+    static final String CREATE_TABLE_STATEMENT = "CREATE TABLE widget ("
+            + "id INTEGER PRIMARY KEY, "
+            + "name TEXT NOT NULL, "
+            + "price REAL, "
+            + "created_at INTEGER)";
+
+    private static final long FIRST_CREATED_AT = 1400000000000L;
+
+    private WidgetDataSets() { }
+
+    /** @return A data set whose widget table has the given number of rows, in primary key order. */
+    static IDataSet create(int rowCount) throws DataSetException {
+        DefaultTable table = new DefaultTable(new DefaultTableMetaData(TABLE_NAME,
+                new Column[] {
+                        new Column("id", DataType.BIGINT),
+                        new Column("name", DataType.VARCHAR),
+                        new Column("price", DataType.DOUBLE),
+                        new Column("created_at", DataType.BIGINT) },
+                new String[] { "id" }));
+
+        for(int i = 0; i < rowCount; i++) {
+            table.addRow(new Object[] {
+                    (long)i + 1,
+                    "Widget " + i,
+                    (i % 1000) / 10.0,
+                    FIRST_CREATED_AT + i });
+        }
+
+        return new DefaultDataSet(table);
+    }
+
+    static byte[] toFlatXml(IDataSet dataSet) throws IOException, DataSetException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FlatXmlDataSet.write(dataSet, output);
+        return output.toByteArray();
+    }
+
+    static byte[] toXml(IDataSet dataSet) throws IOException, DataSetException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XmlDataSet.write(dataSet, output);
+        return output.toByteArray();
+    }
+}